@@ -0,0 +1,291 @@
+package de.init.backend.datatable.processor;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Generates a <tt>&lt;Entity&gt;_Datatable</tt> descriptor for every class
+ * which uses the datatable annotations <tt>@Searchable</tt> or
+ * <tt>@Editable</tt>. The descriptor contains the searchable, editable and
+ * sortable field names and a merge function for the editable fields, which
+ * uses the getters and setters of the entity instead of reflection.
+ *
+ * Fields of superclasses can be added by the annotation value on the class,
+ * e.g. <tt>@Editable({"username"})</tt>. Unknown field names are reported as
+ * compile error, so the lists can't drift out of sync with the entity.
+ */
+@SupportedAnnotationTypes({ DatatableProcessor.SEARCHABLE, DatatableProcessor.EDITABLE })
+public class DatatableProcessor extends AbstractProcessor {
+
+	static final String SEARCHABLE = "de.init.backend.datatable.annotation.Searchable";
+	static final String EDITABLE = "de.init.backend.datatable.annotation.Editable";
+
+	private static final String DESCRIPTOR = "de.init.backend.datatable.metadata.DatatableDescriptor";
+	private static final String SUFFIX = "_Datatable";
+
+	/** annotations which mark a field as not single valued or not persistent */
+	private static final Set<String> NOT_SORTABLE = Set.of("javax.persistence.Transient",
+			"javax.persistence.OneToMany", "javax.persistence.ManyToMany", "javax.persistence.ManyToOne",
+			"javax.persistence.OneToOne", "javax.persistence.Embedded");
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		Set<TypeElement> types = new LinkedHashSet<>();
+		for (TypeElement annotation : annotations) {
+			for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+				if (element.getKind().isClass())
+					types.add((TypeElement) element);
+				else if (element.getKind() == ElementKind.FIELD)
+					types.add((TypeElement) element.getEnclosingElement());
+			}
+		}
+
+		for (TypeElement type : types) {
+			if (type.getNestingKind() != NestingKind.TOP_LEVEL) {
+				this.processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+						"No datatable descriptor is generated for nested classes", type);
+				continue;
+			}
+			try {
+				this.generate(type);
+			} catch (IOException e) {
+				this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+						"Could not write datatable descriptor: " + e.getMessage(), type);
+			}
+		}
+		return false;
+	}
+
+	private void generate(TypeElement type) throws IOException {
+		Map<String, VariableElement> fields = this.getFields(type);
+		Set<String> searchable = this.getAnnotatedFields(type, fields, SEARCHABLE);
+		Set<String> editable = this.getAnnotatedFields(type, fields, EDITABLE);
+		Set<String> sortable = fields.values().stream().filter(this::isSortable)
+				.map(field -> field.getSimpleName().toString()).collect(Collectors.toCollection(LinkedHashSet::new));
+
+		List<String> mergeStatements = new ArrayList<>();
+		for (String name : editable) {
+			Optional<String> getter = this.findAccessor(type, fields.get(name), true);
+			Optional<String> setter = this.findAccessor(type, fields.get(name), false);
+			if (getter.isEmpty() || setter.isEmpty()) {
+				this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+						"@Editable field '" + name + "' needs a public getter and setter", type);
+				return;
+			}
+			mergeStatements.add("target." + setter.get() + "(source." + getter.get() + "());");
+		}
+
+		String packageName = ((PackageElement) type.getEnclosingElement()).getQualifiedName().toString();
+		String entityName = type.getSimpleName().toString();
+		String descriptorName = entityName + SUFFIX;
+
+		JavaFileObject file = this.processingEnv.getFiler()
+				.createSourceFile(packageName.isEmpty() ? descriptorName : packageName + "." + descriptorName, type);
+		try (PrintWriter out = new PrintWriter(file.openWriter())) {
+			if (!packageName.isEmpty())
+				out.println("package " + packageName + ";");
+			out.println();
+			out.println("import java.util.Arrays;");
+			out.println("import java.util.Collections;");
+			out.println("import java.util.LinkedHashSet;");
+			out.println("import java.util.Set;");
+			out.println();
+			out.println("import javax.annotation.processing.Generated;");
+			out.println();
+			out.println("/**");
+			out.println(" * Datatable descriptor of {@link " + entityName + "}.");
+			out.println(" */");
+			out.println("@Generated(\"" + DatatableProcessor.class.getName() + "\")");
+			out.println("public final class " + descriptorName + " implements " + DESCRIPTOR + "<" + entityName
+					+ "> {");
+			out.println();
+			out.println("\tpublic static final Set<String> SEARCHABLE_FIELDS = " + this.toSet(searchable) + ";");
+			out.println();
+			out.println("\tpublic static final Set<String> EDITABLE_FIELDS = " + this.toSet(editable) + ";");
+			out.println();
+			out.println("\tpublic static final Set<String> SORTABLE_FIELDS = " + this.toSet(sortable) + ";");
+			out.println();
+			out.println("\t@Override");
+			out.println("\tpublic Class<" + entityName + "> getEntityClass() {");
+			out.println("\t\treturn " + entityName + ".class;");
+			out.println("\t}");
+			out.println();
+			out.println("\t@Override");
+			out.println("\tpublic Set<String> getSearchableFields() {");
+			out.println("\t\treturn SEARCHABLE_FIELDS;");
+			out.println("\t}");
+			out.println();
+			out.println("\t@Override");
+			out.println("\tpublic Set<String> getEditableFields() {");
+			out.println("\t\treturn EDITABLE_FIELDS;");
+			out.println("\t}");
+			out.println();
+			out.println("\t@Override");
+			out.println("\tpublic Set<String> getSortableFields() {");
+			out.println("\t\treturn SORTABLE_FIELDS;");
+			out.println("\t}");
+			out.println();
+			out.println("\t@Override");
+			out.println("\tpublic boolean isSortable(String field) {");
+			out.println("\t\treturn SORTABLE_FIELDS.contains(field);");
+			out.println("\t}");
+			out.println();
+			out.println("\t@Override");
+			out.println("\tpublic " + entityName + " merge(" + entityName + " target, " + entityName + " source) {");
+			for (String statement : mergeStatements)
+				out.println("\t\t" + statement);
+			out.println("\t\treturn target;");
+			out.println("\t}");
+			out.println();
+			out.println("}");
+		}
+	}
+
+	/**
+	 * Collect the instance fields of the type and its superclasses by name. Fields
+	 * of subclasses hide the ones of superclasses.
+	 */
+	private Map<String, VariableElement> getFields(TypeElement type) {
+		Map<String, VariableElement> fields = new LinkedHashMap<>();
+		for (TypeElement current = type; current != null; current = this.getSuperclass(current)) {
+			for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+				if (!field.getModifiers().contains(Modifier.STATIC))
+					fields.putIfAbsent(field.getSimpleName().toString(), field);
+			}
+		}
+		return fields;
+	}
+
+	private TypeElement getSuperclass(TypeElement type) {
+		TypeMirror superclass = type.getSuperclass();
+		if (superclass.getKind() != TypeKind.DECLARED)
+			return null;
+		TypeElement element = (TypeElement) ((DeclaredType) superclass).asElement();
+		return element.getQualifiedName().contentEquals("java.lang.Object") ? null : element;
+	}
+
+	/**
+	 * Names of the fields annotated with the given annotation and the field names
+	 * given by the annotation value on the type or its superclasses.
+	 */
+	private Set<String> getAnnotatedFields(TypeElement type, Map<String, VariableElement> fields,
+			String annotation) {
+		Set<String> names = new LinkedHashSet<>();
+		for (VariableElement field : fields.values()) {
+			if (this.getAnnotation(field, annotation).isPresent())
+				names.add(field.getSimpleName().toString());
+		}
+		for (TypeElement current = type; current != null; current = this.getSuperclass(current)) {
+			Optional<AnnotationMirror> mirror = this.getAnnotation(current, annotation);
+			if (mirror.isEmpty())
+				continue;
+			for (String name : this.getValues(mirror.get())) {
+				if (!fields.containsKey(name))
+					this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+							"Unknown field '" + name + "' in @" + mirror.get().getAnnotationType().asElement()
+									.getSimpleName() + " of " + current.getSimpleName(),
+							current, mirror.get());
+				else
+					names.add(name);
+			}
+		}
+		return names;
+	}
+
+	private Optional<AnnotationMirror> getAnnotation(Element element, String annotation) {
+		return element.getAnnotationMirrors().stream().filter(mirror -> ((TypeElement) mirror.getAnnotationType()
+				.asElement()).getQualifiedName().contentEquals(annotation)).findFirst().map(mirror -> mirror);
+	}
+
+	private List<String> getValues(AnnotationMirror mirror) {
+		List<String> values = new ArrayList<>();
+		mirror.getElementValues().forEach((method, value) -> {
+			if (method.getSimpleName().contentEquals("value") && value.getValue() instanceof List) {
+				for (Object item : (List<?>) value.getValue())
+					values.add(String.valueOf(((AnnotationValue) item).getValue()));
+			}
+		});
+		return values;
+	}
+
+	private boolean isSortable(VariableElement field) {
+		if (field.getModifiers().contains(Modifier.TRANSIENT))
+			return false;
+		if (field.getAnnotationMirrors().stream().anyMatch(mirror -> NOT_SORTABLE
+				.contains(((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().toString())))
+			return false;
+
+		TypeMirror fieldType = this.processingEnv.getTypeUtils().erasure(field.asType());
+		return !this.isSubtype(fieldType, "java.util.Collection") && !this.isSubtype(fieldType, "java.util.Map");
+	}
+
+	private boolean isSubtype(TypeMirror type, String superType) {
+		TypeElement element = this.processingEnv.getElementUtils().getTypeElement(superType);
+		return element != null && this.processingEnv.getTypeUtils().isAssignable(type,
+				this.processingEnv.getTypeUtils().erasure(element.asType()));
+	}
+
+	/**
+	 * Find the public getter or setter of the field on the type or its
+	 * superclasses.
+	 *
+	 * @return method name
+	 */
+	private Optional<String> findAccessor(TypeElement type, VariableElement field, boolean getter) {
+		String name = field.getSimpleName().toString();
+		String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+		Set<String> candidates = getter ? Set.of("get" + capitalized, "is" + capitalized)
+				: Set.of("set" + capitalized);
+
+		List<ExecutableElement> methods = ElementFilter
+				.methodsIn(this.processingEnv.getElementUtils().getAllMembers(type));
+		return methods.stream()
+				.filter(method -> method.getModifiers().contains(Modifier.PUBLIC)
+						&& !method.getModifiers().contains(Modifier.STATIC)
+						&& candidates.contains(method.getSimpleName().toString())
+						&& method.getParameters().size() == (getter ? 0 : 1))
+				.map(method -> method.getSimpleName().toString()).findFirst();
+	}
+
+	private String toSet(Set<String> names) {
+		if (names.isEmpty())
+			return "Collections.emptySet()";
+		String values = names.stream().map(name -> "\"" + name + "\"").collect(Collectors.joining(", "));
+		return "Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(" + values + ")))";
+	}
+
+}
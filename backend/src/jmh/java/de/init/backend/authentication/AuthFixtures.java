@@ -0,0 +1,58 @@
+package de.init.backend.authentication;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import de.init.backend.authentication.model.Permission;
+import de.init.backend.authentication.model.Role;
+
+/**
+ * Roles and users of the authentication benchmarks.
+ */
+public final class AuthFixtures {
+
+	/** number of roles the permissions are spread over */
+	public static final int ROLES = 4;
+
+	private AuthFixtures() {
+	}
+
+	/**
+	 * Create {@link #ROLES} roles with the permissions <tt>PERMISSION_0</tt> to
+	 * <tt>PERMISSION_[permissions - 1]</tt>, spread round robin over the roles.
+	 *
+	 * @param permissions number of permissions
+	 * @return roles
+	 */
+	public static Collection<Role> roles(int permissions) {
+		List<Role> roles = new ArrayList<>();
+		List<List<Permission>> privileges = new ArrayList<>();
+		for (int i = 0; i < ROLES; i++) {
+			roles.add(new Role("ROLE_" + i));
+			privileges.add(new ArrayList<>());
+		}
+		for (int i = 0; i < permissions; i++)
+			privileges.get(i % ROLES).add(new Permission(permission(i)));
+		for (int i = 0; i < ROLES; i++)
+			roles.get(i).setPrivileges(privileges.get(i));
+		return roles;
+	}
+
+	/**
+	 * @param permissions number of permissions
+	 * @return user with the {@link #roles(int)}
+	 */
+	public static UserPrinciple user(int permissions) {
+		return new UserPrinciple(1L, "user", "password", true, roles(permissions));
+	}
+
+	/**
+	 * @param index index of the permission
+	 * @return name of the permission
+	 */
+	public static String permission(int index) {
+		return "PERMISSION_" + index;
+	}
+
+}
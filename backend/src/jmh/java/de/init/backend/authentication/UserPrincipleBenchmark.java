@@ -0,0 +1,52 @@
+package de.init.backend.authentication;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.init.backend.authentication.model.Role;
+
+/**
+ * Builds the {@link UserPrinciple} with its granted authorities, like every
+ * authenticated request does after loading the user.
+ *
+ * <pre>
+ * ./gradlew jmh -Pjmh.includes=UserPrincipleBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserPrincipleBenchmark {
+
+	/** permissions of the user, spread over {@link AuthFixtures#ROLES} roles */
+	@Param({ "4", "32", "128" })
+	private int permissions;
+
+	private Collection<Role> roles;
+
+	@Setup
+	public void createRoles() {
+		roles = AuthFixtures.roles(permissions);
+	}
+
+	@Benchmark
+	public UserPrinciple buildAuthorities() {
+		return new UserPrinciple(1L, "user", "password", true, roles);
+	}
+
+}
@@ -0,0 +1,70 @@
+package de.init.backend.authentication.config;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import de.init.backend.authentication.AuthFixtures;
+import de.init.backend.authentication.UserPrinciple;
+
+/**
+ * Evaluates the <tt>hasPermission</tt> and <tt>hasAnyPermission</tt>
+ * expressions of {@link CustomSecurityExpressionRoot}, which are checked by
+ * <tt>@PreAuthorize</tt> on every secured endpoint. The checked permissions
+ * are the last ones of the user, so the authorities are searched completely.
+ *
+ * <pre>
+ * ./gradlew jmh -Pjmh.includes=PermissionExpressionBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PermissionExpressionBenchmark {
+
+	/** permissions of the user, spread over {@link AuthFixtures#ROLES} roles */
+	@Param({ "4", "32", "128" })
+	private int permissions;
+
+	private CustomSecurityExpressionRoot root;
+
+	/** two permissions the user has */
+	private String[] granted;
+
+	/** a permission the user misses and one the user has */
+	private String[] any;
+
+	@Setup
+	public void createRoot() {
+		UserPrinciple user = AuthFixtures.user(permissions);
+		root = new CustomSecurityExpressionRoot(
+				new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+		granted = new String[] { AuthFixtures.permission(permissions - 2), AuthFixtures.permission(permissions - 1) };
+		any = new String[] { "MISSING_PERMISSION", AuthFixtures.permission(permissions - 1) };
+	}
+
+	@Benchmark
+	public boolean hasPermission() {
+		return root.hasPermission(granted);
+	}
+
+	@Benchmark
+	public boolean hasAnyPermission() {
+		return root.hasAnyPermission(any);
+	}
+
+}
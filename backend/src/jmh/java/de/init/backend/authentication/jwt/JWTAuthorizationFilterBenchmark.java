@@ -0,0 +1,84 @@
+package de.init.backend.authentication.jwt;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import de.init.backend.authentication.AuthFixtures;
+import de.init.backend.authentication.UserPrinciple;
+
+/**
+ * Runs an authenticated request through the {@link JWTAuthorizationFilter}:
+ * verify and decode the token, load the user, build the authentication and
+ * sign the refreshed token. The {@link UserDetailsService} returns a prepared
+ * user, so the database is not part of the measurement.
+ *
+ * <pre>
+ * ./gradlew jmh -Pjmh.includes=JWTAuthorizationFilterBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JWTAuthorizationFilterBenchmark {
+
+	/** permissions of the user, spread over {@link AuthFixtures#ROLES} roles */
+	@Param({ "4", "32" })
+	private int permissions;
+
+	private JWTAuthorizationFilter filter;
+
+	private String header;
+
+	/** shared, a new MockServletContext per request would dominate the measurement */
+	private final MockServletContext servletContext = new MockServletContext();
+
+	private final FilterChain chain = (request, response) -> {
+	};
+
+	@Setup
+	public void createFilter() {
+		new JWTUtils(JWTBenchmark.SECRET, JWTBenchmark.EXPIRATION_TIME);
+		// the user is loaded from the database with its roles in the application
+		UserDetailsService userDetailsService = username -> new UserPrinciple(1L, username, "password", true,
+				AuthFixtures.roles(permissions));
+		filter = new JWTAuthorizationFilter(authentication -> authentication, userDetailsService);
+		header = JWTUtils.TOKEN_PREFIX + JWTUtils.generateToken(AuthFixtures.user(permissions));
+	}
+
+	@Benchmark
+	public MockHttpServletResponse doFilter() throws ServletException, IOException {
+		MockHttpServletRequest request = new MockHttpServletRequest(servletContext, "GET", "/api/accounts");
+		request.addHeader(JWTUtils.HEADER_STRING, header);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		try {
+			filter.doFilter(request, response, chain);
+		} finally {
+			SecurityContextHolder.clearContext();
+		}
+		return response;
+	}
+
+}
@@ -0,0 +1,64 @@
+package de.init.backend.authentication.jwt;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.init.backend.authentication.AuthFixtures;
+import de.init.backend.authentication.UserPrinciple;
+
+/**
+ * Signs, verifies and decodes the HMAC512 tokens of {@link JWTUtils}.
+ *
+ * <pre>
+ * ./gradlew jmh -Pjmh.includes=JWTBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JWTBenchmark {
+
+	/** secret and expiration time of the application.properties */
+	static final String SECRET = "sdfj4#23nlv!dfnv!fndf#";
+	static final long EXPIRATION_TIME = 900000;
+
+	private UserPrinciple user;
+
+	private String token;
+
+	@Setup
+	public void createToken() {
+		new JWTUtils(SECRET, EXPIRATION_TIME);
+		user = AuthFixtures.user(8);
+		token = JWTUtils.generateToken(user);
+	}
+
+	@Benchmark
+	public String generateToken() {
+		return JWTUtils.generateToken(user);
+	}
+
+	@Benchmark
+	public boolean validateToken() {
+		return JWTUtils.validateToken(token);
+	}
+
+	@Benchmark
+	public String getUserNameFromToken() {
+		return JWTUtils.getUserNameFromToken(token);
+	}
+
+}
@@ -0,0 +1,85 @@
+package de.init.backend.datatable;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.jpa.domain.Specification;
+
+import de.init.backend.BackendApplication;
+import de.init.backend.datatable.search.SearchService;
+import de.init.backend.model.entity.Account;
+
+/**
+ * Creates the predicates of the RSQL specifications against the
+ * CriteriaBuilder of the H2 in memory database. The specifications come from
+ * the warm RSQL cache, so only the predicate generation is measured.
+ *
+ * <pre>
+ * ./gradlew jmh -Pjmh.includes=PredicateBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PredicateBenchmark {
+
+	@Param({ "1", "10", "50" })
+	private int comparisons;
+
+	@Param
+	private QueryShape shape;
+
+	private ConfigurableApplicationContext context;
+
+	private EntityManager entityManager;
+
+	private Specification<Account> specification;
+
+	@Setup
+	public void startContext() {
+		// the security configuration needs the servlet context, the server runs on a random port
+		context = new SpringApplicationBuilder(BackendApplication.class).run("--server.port=0",
+				"--spring.main.banner-mode=off", "--logging.level.root=WARN",
+				"--logging.level.org.springframework.web=WARN");
+		entityManager = context.getBean(EntityManagerFactory.class).createEntityManager();
+		specification = SearchService.createSpecificationWithRSQL(shape.rsql(comparisons));
+	}
+
+	@TearDown
+	public void closeContext() {
+		entityManager.close();
+		context.close();
+	}
+
+	@Benchmark
+	public Predicate toPredicate() {
+		CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Account> query = builder.createQuery(Account.class);
+		Root<Account> root = query.from(Account.class);
+		return specification.toPredicate(root, query, builder);
+	}
+
+}
@@ -0,0 +1,121 @@
+package de.init.backend.datatable;
+
+import java.util.StringJoiner;
+
+/**
+ * Shapes of the search queries used by the datatable benchmarks. Every shape
+ * renders a RSQL query and the corresponding infix expression of
+ * {@link de.init.backend.datatable.search.SearchService#createSpecificationFromInfixExpr(String)}
+ * on {@link de.init.backend.model.entity.Account}.
+ */
+public enum QueryShape {
+
+	/** comparisons on basic attributes, AND'ed with every third one OR'ed */
+	FLAT {
+		@Override
+		public String rsql(int comparisons) {
+			StringBuilder query = new StringBuilder();
+			for (int i = 0; i < comparisons; i++) {
+				if (i > 0)
+					query.append(i % 3 == 0 ? ',' : ';');
+				query.append(BASIC_RSQL[i % BASIC_RSQL.length]);
+			}
+			return query.toString();
+		}
+	},
+
+	/**
+	 * comparisons through the roles and permissions collections, grouped in
+	 * nested parentheses
+	 */
+	NESTED {
+		@Override
+		public String rsql(int comparisons) {
+			StringBuilder query = new StringBuilder();
+			int groups = 0;
+			for (int i = 0; i < comparisons; i++) {
+				if (i > 0)
+					query.append(i % 2 == 0 ? ';' : ',');
+				if (i % 2 == 0 && i + 1 < comparisons) {
+					query.append('(');
+					groups++;
+				}
+				query.append(NESTED_RSQL[i % NESTED_RSQL.length]);
+			}
+			for (int i = 0; i < groups; i++)
+				query.append(')');
+			return query.toString();
+		}
+
+		@Override
+		public String infix(int comparisons) {
+			StringBuilder query = new StringBuilder();
+			int groups = 0;
+			for (int i = 0; i < comparisons; i++) {
+				if (i > 0)
+					query.append(i % 2 == 0 ? " AND " : " OR ");
+				if (i % 2 == 0 && i + 1 < comparisons) {
+					query.append("( ");
+					groups++;
+				}
+				query.append(BASIC_INFIX[i % BASIC_INFIX.length]);
+			}
+			for (int i = 0; i < groups; i++)
+				query.append(" )");
+			return query.toString();
+		}
+	},
+
+	/** one IN list with 40 ids per comparison */
+	IN_LIST {
+		@Override
+		public String rsql(int comparisons) {
+			StringJoiner ids = new StringJoiner(",", "id=in=(", ")");
+			for (int i = 1; i <= comparisons * IN_LIST_FACTOR; i++)
+				ids.add(Integer.toString(i));
+			return ids.toString();
+		}
+
+		@Override
+		public String infix(int comparisons) {
+			// the infix syntax has no IN list, the ids are OR'ed
+			StringJoiner ids = new StringJoiner(" OR ");
+			for (int i = 1; i <= comparisons * IN_LIST_FACTOR; i++)
+				ids.add("id:" + i);
+			return ids.toString();
+		}
+	};
+
+	/** ids of an {@link #IN_LIST} per comparison */
+	public static final int IN_LIST_FACTOR = 40;
+
+	private static final String[] BASIC_RSQL = { "firstName==*an*", "lastName==Adams", "email==*@init.de",
+			"username!=admin", "lastLogin=ge=2021-01-01", "id=gt=10" };
+
+	private static final String[] NESTED_RSQL = { "roles.name==ROLE_USER", "roles.permissions.name==READ*",
+			"username==user*", "roles.permissions.name=in=(READ_USER,WRITE_USER)" };
+
+	private static final String[] BASIC_INFIX = { "firstName:*an*", "lastName:Adams", "email~init",
+			"username!admin", "lastLogin>1609459200000", "id>10" };
+
+	/**
+	 * @param comparisons number of comparisons
+	 * @return RSQL query
+	 */
+	public abstract String rsql(int comparisons);
+
+	/**
+	 * @param comparisons number of comparisons
+	 * @return infix expression
+	 */
+	public String infix(int comparisons) {
+		StringBuilder query = new StringBuilder();
+		for (int i = 0; i < comparisons; i++) {
+			if (i > 0)
+				query.append(i % 3 == 0 ? " OR " : " AND ");
+			query.append(BASIC_INFIX[i % BASIC_INFIX.length]);
+		}
+		return query.toString();
+	}
+
+}
@@ -0,0 +1,68 @@
+package de.init.backend.datatable;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.init.backend.datatable.metadata.EntityMetadata;
+import de.init.backend.datatable.metadata.FieldDescriptor;
+import de.init.backend.datatable.search.SearchParser;
+import de.init.backend.model.entity.Account;
+
+/**
+ * Turns a search term of the datatable into a RSQL query over the searchable
+ * fields of {@link Account}: {@link SearchParser#parse(String)} alone and
+ * {@link PageService#buildEntitySearchQuery(String, java.util.Set)} with the
+ * field lookup.
+ *
+ * <pre>
+ * ./gradlew jmh -Pjmh.includes=SearchTermBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchTermBenchmark {
+
+	@Param({ "john", "o'neil smith", "42" })
+	private String term;
+
+	private List<Field> fields;
+
+	private PageService<Account, Long> pageService;
+
+	@Setup
+	public void createParser() {
+		fields = EntityMetadata.of(Account.class).getSearchableFields().stream().map(FieldDescriptor::getField)
+				.collect(Collectors.toList());
+		// the search query needs neither a repository nor an EntityManager
+		pageService = new PageService<>(null, Account.class, null);
+	}
+
+	@Benchmark
+	public String searchParser() {
+		return new SearchParser(fields).parse(term);
+	}
+
+	@Benchmark
+	public String buildEntitySearchQuery() {
+		return pageService.buildEntitySearchQuery(term, null);
+	}
+
+}
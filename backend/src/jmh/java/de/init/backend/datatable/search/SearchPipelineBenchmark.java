@@ -0,0 +1,78 @@
+package de.init.backend.datatable.search;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.jpa.domain.Specification;
+
+import cz.jirutka.rsql.parser.RSQLParser;
+import de.init.backend.datatable.QueryShape;
+import de.init.backend.datatable.search.rsql.CustomRsqlVisitor;
+import de.init.backend.datatable.search.rsql.RsqlOptimizer;
+import de.init.backend.model.entity.Account;
+
+/**
+ * Creates the specifications of the search queries, without a database.
+ * <ul>
+ * <li><tt>rsqlCached</tt>: {@link SearchService#createSpecificationWithRSQL(String)}
+ * with a warm cache,</li>
+ * <li><tt>rsqlCompile</tt>: parse, optimize and create the specification like
+ * a cache miss,</li>
+ * <li><tt>infix</tt>: {@link SearchService#createSpecificationFromInfixExpr(String)}.</li>
+ * </ul>
+ *
+ * <pre>
+ * ./gradlew jmh -Pjmh.includes=SearchPipelineBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchPipelineBenchmark {
+
+	@Param({ "1", "10", "50" })
+	private int comparisons;
+
+	@Param
+	private QueryShape shape;
+
+	private String rsql;
+
+	private String infix;
+
+	@Setup
+	public void createQueries() {
+		rsql = shape.rsql(comparisons);
+		infix = shape.infix(comparisons);
+		SearchService.createSpecificationWithRSQL(rsql);
+	}
+
+	@Benchmark
+	public Specification<Account> rsqlCached() {
+		return SearchService.createSpecificationWithRSQL(rsql);
+	}
+
+	@Benchmark
+	public Specification<Account> rsqlCompile() {
+		return RsqlOptimizer.optimize(new RSQLParser().parse(rsql)).accept(new CustomRsqlVisitor<>());
+	}
+
+	@Benchmark
+	public Specification<Account> infix() {
+		return SearchService.createSpecificationFromInfixExpr(infix);
+	}
+
+}
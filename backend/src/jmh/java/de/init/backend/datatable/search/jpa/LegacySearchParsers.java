@@ -0,0 +1,128 @@
+package de.init.backend.datatable.search.jpa;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.google.common.base.Joiner;
+
+/**
+ * Regex based parsers of the simple and the infix search syntax as they were
+ * before {@link SimpleCriteriaParser} and {@link CriteriaParser}. Only kept as
+ * baseline of {@link SearchParserBenchmark}.
+ */
+final class LegacySearchParsers {
+
+	private static final Map<String, String> OPS = new HashMap<>();
+
+	private static final Map<String, Integer> PRECEDENCE = new HashMap<>();
+
+	private static final Pattern INFIX_CRITERIA = Pattern.compile("^(\\w+?)("
+			+ Joiner.on("|").join(SearchOperation.SIMPLE_OPERATION_SET) + ")(\\p{Punct}?)(\\w+?)(\\p{Punct}?)$");
+
+	static {
+		OPS.put("AND", SearchOperation.AND_OPERATOR);
+		OPS.put("and", SearchOperation.AND_OPERATOR);
+		OPS.put("OR", SearchOperation.OR_OPERATOR);
+		OPS.put("or", SearchOperation.OR_OPERATOR);
+		PRECEDENCE.put(SearchOperation.OR_OPERATOR, 1);
+		PRECEDENCE.put(SearchOperation.AND_OPERATOR, 2);
+	}
+
+	private LegacySearchParsers() {
+	}
+
+	/**
+	 * The former <tt>SearchService.createSpecification(String)</tt>.
+	 */
+	static <T> Specification<T> simple(String query) {
+		SearchSpecificationBuilder<T> builder = new SearchSpecificationBuilder<>();
+		String operationSetExper = Joiner.on("|").join(SearchOperation.SIMPLE_OPERATION_SET);
+		Pattern pattern = Pattern.compile(
+				"(\\p{Punct}?)(\\w+?\\.?\\w+?)(" + operationSetExper + ")(\\p{Punct}?)(\\w+?)(\\p{Punct}?),");
+
+		Matcher matcher = pattern.matcher(query + ",");
+		while (matcher.find()) {
+			builder.with(matcher.group(1), matcher.group(2), matcher.group(3), matcher.group(5), matcher.group(4),
+					matcher.group(6));
+		}
+
+		return builder.build();
+	}
+
+	/**
+	 * The former <tt>CriteriaParser.parse(String)</tt>, shunting yard to a
+	 * postfix deque.
+	 */
+	static Deque<?> infix(String searchParam) {
+		Deque<Object> output = new LinkedList<>();
+		Deque<String> stack = new LinkedList<>();
+		Arrays.stream(searchParam.split("\\s+")).forEach(token -> {
+			if (OPS.containsKey(token)) {
+				String operator = OPS.get(token);
+				while (!stack.isEmpty() && PRECEDENCE.containsKey(stack.peek())
+						&& PRECEDENCE.get(stack.peek()) >= PRECEDENCE.get(operator))
+					output.push(stack.pop());
+				stack.push(operator);
+			} else if (token.equals(SearchOperation.LEFT_PARANTHESIS)) {
+				stack.push(SearchOperation.LEFT_PARANTHESIS);
+			} else if (token.equals(SearchOperation.RIGHT_PARANTHESIS)) {
+				while (!stack.peek().equals(SearchOperation.LEFT_PARANTHESIS))
+					output.push(stack.pop());
+				stack.pop();
+			} else {
+				String prevOp = stack.peek();
+				String orPredicate = (prevOp != null && prevOp.equalsIgnoreCase(SearchOperation.OR_OPERATOR))
+						? SearchOperation.OR_OPERATOR
+						: SearchOperation.AND_OPERATOR;
+
+				Matcher matcher = INFIX_CRITERIA.matcher(token);
+				while (matcher.find()) {
+					output.push(new SearchCriteria(orPredicate, matcher.group(1), matcher.group(2), matcher.group(3),
+							matcher.group(4), matcher.group(5)));
+				}
+			}
+		});
+
+		while (!stack.isEmpty())
+			output.push(stack.pop());
+
+		return output;
+	}
+
+	/**
+	 * The former <tt>SearchSpecificationBuilder.build(Deque, Function)</tt>.
+	 */
+	static <T> Specification<T> build(Deque<?> postFixedExprStack,
+			Function<SearchCriteria, Specification<T>> converter) {
+		Deque<Specification<T>> specStack = new LinkedList<>();
+
+		Collections.reverse((List<?>) postFixedExprStack);
+
+		while (!postFixedExprStack.isEmpty()) {
+			Object mayBeOperand = postFixedExprStack.pop();
+
+			if (!(mayBeOperand instanceof String)) {
+				specStack.push(converter.apply((SearchCriteria) mayBeOperand));
+			} else {
+				Specification<T> operand1 = specStack.pop();
+				Specification<T> operand2 = specStack.pop();
+				if (mayBeOperand.equals(SearchOperation.AND_OPERATOR))
+					specStack.push(Specification.where(operand1).and(operand2));
+				else if (mayBeOperand.equals(SearchOperation.OR_OPERATOR))
+					specStack.push(Specification.where(operand1).or(operand2));
+			}
+		}
+		return specStack.pop();
+	}
+
+}
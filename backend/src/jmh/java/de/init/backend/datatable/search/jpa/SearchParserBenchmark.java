@@ -0,0 +1,87 @@
+package de.init.backend.datatable.search.jpa;
+
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.jpa.domain.Specification;
+
+import de.init.backend.datatable.search.SearchService;
+
+/**
+ * Compares the single pass parsers of the simple and the infix search syntax
+ * with the former regex based ones ({@link LegacySearchParsers}). Every
+ * benchmark parses the query and builds the specification.
+ *
+ * <pre>
+ * ./gradlew jmh -Pjmh.includes=SearchParserBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchParserBenchmark {
+
+	/** number of criteria in the query */
+	@Param({ "1", "4", "16" })
+	private int criteria;
+
+	private String simpleQuery;
+
+	private String infixQuery;
+
+	@Setup
+	public void createQueries() {
+		String[] criterion = { "firstName:john*", "lastName!doe", "age>22", "email~init" };
+		StringJoiner simple = new StringJoiner(",");
+		StringJoiner infix = new StringJoiner(" ");
+		for (int i = 0; i < criteria; i++) {
+			simple.add((i % 3 == 2 ? SearchOperation.OR_PREDICATE_FLAG : "") + criterion[i % criterion.length]);
+			if (i > 0)
+				infix.add(i % 3 == 2 ? "OR" : "AND");
+			// group every pair of criteria
+			if (i % 2 == 0 && i + 1 < criteria)
+				infix.add("( " + criterion[i % criterion.length]);
+			else if (i % 2 == 1)
+				infix.add(criterion[i % criterion.length] + " )");
+			else
+				infix.add(criterion[i % criterion.length]);
+		}
+		simpleQuery = simple.toString();
+		infixQuery = infix.toString();
+	}
+
+	@Benchmark
+	public Specification<Object> simpleLegacy() {
+		return LegacySearchParsers.simple(simpleQuery);
+	}
+
+	@Benchmark
+	public Specification<Object> simpleSinglePass() {
+		return SearchService.createSpecification(simpleQuery);
+	}
+
+	@Benchmark
+	public Specification<Object> infixLegacy() {
+		return LegacySearchParsers.build(LegacySearchParsers.infix(infixQuery), SearchSpecification::new);
+	}
+
+	@Benchmark
+	public Specification<Object> infixPrecedenceClimbing() {
+		return SearchService.createSpecificationFromInfixExpr(infixQuery);
+	}
+
+}
@@ -0,0 +1,205 @@
+package de.init.backend.scale;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import de.init.backend.BackendApplication;
+import de.init.backend.services.AccountService;
+import de.init.backend.services.TestAccountGenerator;
+
+/**
+ * Macro benchmark of the page requests of the AccountController against large
+ * datasets. For every size of <tt>scale.rows</tt> the application is started
+ * with a file backed H2 database, the synthetic accounts of the
+ * {@link TestAccountGenerator} are loaded and every
+ * {@link ScaleRequest} is executed <tt>scale.warmup</tt> times without and
+ * <tt>scale.iterations</tt> times with measurement. Per request the latency,
+ * the SQL statements and the allocated heap are recorded, the summary is
+ * written as JSON to <tt>scale.results</tt>, named by the commit and the time
+ * of the run.
+ *
+ * <pre>
+ * ./gradlew scaleBenchmark -Pscale.rows=10000,1000000,5000000
+ * </pre>
+ *
+ * The database files are kept in <tt>scale.dir</tt>, so later runs only load
+ * the missing rows.
+ */
+public final class ScaleBenchmark {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ScaleBenchmark.class);
+
+	private static final com.sun.management.ThreadMXBean THREADS = (com.sun.management.ThreadMXBean) ManagementFactory
+			.getThreadMXBean();
+
+	/** seed of the synthetic accounts */
+	static final long SEED = 42;
+
+	private ScaleBenchmark() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		String[] rows = System.getProperty("scale.rows", "10000").split(",");
+		int warmup = Integer.getInteger("scale.warmup", 20);
+		int iterations = Integer.getInteger("scale.iterations", 100);
+		File dir = new File(System.getProperty("scale.dir", "build/scale"));
+		File results = new File(System.getProperty("scale.results", "build/results/scale"));
+
+		Map<String, Object> report = new LinkedHashMap<>();
+		report.put("commit", commit());
+		report.put("timestamp", new Date().getTime());
+		report.put("warmup", warmup);
+		report.put("iterations", iterations);
+		List<Map<String, Object>> datasets = new ArrayList<>();
+		report.put("datasets", datasets);
+
+		for (String size : rows) {
+			datasets.add(run(Integer.parseInt(size.trim()), warmup, iterations, dir));
+		}
+
+		results.mkdirs();
+		File file = new File(results, "scale-" + report.get("commit") + "-"
+				+ new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".json");
+		Gson gson = new GsonBuilder().setPrettyPrinting().create();
+		try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+			gson.toJson(report, writer);
+		}
+		LOG.warn("Results written to {}", file.getAbsolutePath());
+	}
+
+	private static Map<String, Object> run(int rows, int warmup, int iterations, File dir) throws Exception {
+		// H2 1.4.200 loses the last column of sorted results which are spilled to disk,
+		// so all rows of a sort are kept in memory
+		String url = "jdbc:h2:file:" + new File(dir, "accounts-" + rows).getAbsolutePath() + ";MAX_MEMORY_ROWS="
+				+ Math.max(rows * 2, 100_000);
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BackendApplication.class).run(
+				"--server.port=0", "--spring.main.banner-mode=off", "--spring.datasource.url=" + url,
+				"--spring.jpa.properties.hibernate.session_factory.statement_inspector="
+						+ SqlStatementCounter.class.getName(),
+				"--logging.level.root=WARN", "--logging.level.org.springframework.web=WARN")) {
+
+			loadDataset(context.getBean(TestAccountGenerator.class), rows);
+
+			// like a request of the controller, the service maps the DTOs in its own
+			// transaction
+			AccountService service = context.getBean(AccountService.class);
+
+			Map<String, Object> dataset = new LinkedHashMap<>();
+			dataset.put("rows", rows);
+			Map<String, Object> requests = new LinkedHashMap<>();
+			dataset.put("requests", requests);
+
+			for (ScaleRequest request : ScaleRequest.values()) {
+				for (int i = 0; i < warmup; i++) {
+					request.execute(service, rows, i);
+				}
+
+				long[] latencies = new long[iterations];
+				long[] statements = new long[iterations];
+				long[] allocations = new long[iterations];
+				long thread = Thread.currentThread().getId();
+				for (int i = 0; i < iterations; i++) {
+					long sql = SqlStatementCounter.get();
+					long allocated = THREADS.getThreadAllocatedBytes(thread);
+					long start = System.nanoTime();
+					request.execute(service, rows, warmup + i);
+					latencies[i] = System.nanoTime() - start;
+					allocations[i] = THREADS.getThreadAllocatedBytes(thread) - allocated;
+					statements[i] = SqlStatementCounter.get() - sql;
+				}
+
+				Map<String, Object> result = new LinkedHashMap<>();
+				result.put("latencyMs", summary(latencies, 1e6));
+				result.put("statements", summary(statements, 1));
+				result.put("allocatedKb", summary(allocations, 1024));
+				requests.put(request.name(), result);
+				LOG.warn("{} rows, {}: {}", rows, request, result);
+			}
+			return dataset;
+		}
+	}
+
+	/**
+	 * Generate the accounts missing in the database of a previous run.
+	 */
+	private static void loadDataset(TestAccountGenerator generator, int rows) {
+		long existing = generator.countExisting(SEED);
+		if (existing >= rows) {
+			LOG.warn("Reusing dataset with {} accounts", existing);
+			return;
+		}
+		long start = System.currentTimeMillis();
+		int parallelism = Integer.getInteger("scale.parallelism",
+				Math.min(Runtime.getRuntime().availableProcessors(), 4));
+		generator.generate((int) (rows - existing), SEED, parallelism, inserted -> {
+			if (inserted % 100_000 == 0)
+				LOG.warn("Inserted {} of {} accounts", existing + inserted, rows);
+		});
+		LOG.warn("Loaded {} accounts in {} s", rows - existing, (System.currentTimeMillis() - start) / 1000);
+	}
+
+	/**
+	 * @return mean, p50, p99 and max of the values, divided by the unit
+	 */
+	private static Map<String, Double> summary(long[] values, double unit) {
+		long[] sorted = values.clone();
+		Arrays.sort(sorted);
+		Map<String, Double> summary = new LinkedHashMap<>();
+		summary.put("mean", Arrays.stream(sorted).average().orElse(0) / unit);
+		summary.put("p50", percentile(sorted, 0.50) / unit);
+		summary.put("p99", percentile(sorted, 0.99) / unit);
+		summary.put("max", sorted.length == 0 ? 0 : sorted[sorted.length - 1] / unit);
+		return summary;
+	}
+
+	/** nearest rank percentile of sorted values */
+	private static double percentile(long[] sorted, double percentile) {
+		if (sorted.length == 0) {
+			return 0;
+		}
+		int rank = (int) Math.ceil(percentile * sorted.length);
+		return sorted[Math.max(0, rank - 1)];
+	}
+
+	/**
+	 * @return short hash of the checked out commit, "unknown" outside of git
+	 */
+	private static String commit() {
+		try {
+			Process process = new ProcessBuilder("git", "rev-parse", "--short", "HEAD").redirectErrorStream(true)
+					.start();
+			try (BufferedReader reader = new BufferedReader(
+					new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+				String line = reader.readLine();
+				return process.waitFor() == 0 && line != null ? line.trim() : "unknown";
+			}
+		} catch (IOException e) {
+			return "unknown";
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return "unknown";
+		}
+	}
+
+}
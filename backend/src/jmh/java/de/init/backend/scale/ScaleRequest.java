@@ -0,0 +1,74 @@
+package de.init.backend.scale;
+
+import org.springframework.data.domain.Slice;
+
+import de.init.backend.model.dto.AccountDto;
+import de.init.backend.services.AccountService;
+
+/**
+ * Catalog of the page requests of the {@link ScaleBenchmark}. The requests
+ * call {@link AccountService#getPage} like the <tt>/accounts/page</tt>
+ * endpoint of the AccountController. Every iteration varies the page or the
+ * term, so the database doesn't answer the same query over and over.
+ */
+enum ScaleRequest {
+
+	/** first pages sorted by id, with the total */
+	DEFAULT_SORT {
+		@Override
+		Slice<AccountDto> execute(AccountService service, int rows, int iteration) {
+			return service.getPage(iteration % 10, PAGE_SIZE, "id", true, null, null, null, true, false);
+		}
+	},
+
+	/** pages in the middle of the table, with an OFFSET of half of the rows */
+	DEEP_OFFSET {
+		@Override
+		Slice<AccountDto> execute(AccountService service, int rows, int iteration) {
+			int page = rows / PAGE_SIZE / 2 + iteration % 10;
+			return service.getPage(page, PAGE_SIZE, "id", true, null, null, null, true, false);
+		}
+	},
+
+	/** free text search over the searchable fields */
+	FREE_TEXT {
+		@Override
+		Slice<AccountDto> execute(AccountService service, int rows, int iteration) {
+			String term = SEARCH_TERMS[iteration % SEARCH_TERMS.length];
+			return service.getPage(0, PAGE_SIZE, "id", true, term, null, null, true, false);
+		}
+	},
+
+	/** RSQL filter through the roles collection */
+	ROLE_FILTER {
+		@Override
+		Slice<AccountDto> execute(AccountService service, int rows, int iteration) {
+			return service.getPage(iteration % 5, PAGE_SIZE, "id", true, null, "roles.name==ROLE_ADMIN", null, true,
+					false);
+		}
+	},
+
+	/** sort by a column without index */
+	SORT_LAST_NAME {
+		@Override
+		Slice<AccountDto> execute(AccountService service, int rows, int iteration) {
+			return service.getPage(iteration % 10, PAGE_SIZE, "lastName", iteration % 2 == 0, null, null, null, true,
+					false);
+		}
+	};
+
+	static final int PAGE_SIZE = 20;
+
+	private static final String[] SEARCH_TERMS = { "anna", "schmidt", "user42-1", "mül", "example.net" };
+
+	/**
+	 * Execute the request.
+	 *
+	 * @param service   AccountService
+	 * @param rows      accounts in the dataset
+	 * @param iteration index of the iteration
+	 * @return the page
+	 */
+	abstract Slice<AccountDto> execute(AccountService service, int rows, int iteration);
+
+}
@@ -0,0 +1,31 @@
+package de.init.backend.scale;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements prepared by Hibernate. Registered with
+ * <tt>hibernate.session_factory.statement_inspector</tt> by the
+ * {@link ScaleBenchmark}.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final AtomicLong STATEMENTS = new AtomicLong();
+
+	@Override
+	public String inspect(String sql) {
+		STATEMENTS.incrementAndGet();
+		return sql;
+	}
+
+	/**
+	 * @return statements prepared since the start of the JVM
+	 */
+	static long get() {
+		return STATEMENTS.get();
+	}
+
+}
@@ -2,6 +2,7 @@ package de.init.backend;
 
 import java.io.IOException;
 
+import javax.persistence.OptimisticLockException;
 import javax.servlet.http.HttpServletResponse;
 import javax.validation.ConstraintViolationException;
 
@@ -11,6 +12,7 @@ import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -24,6 +26,8 @@ import de.init.backend.authentication.error.UserNotEnabledException;
 import de.init.backend.authentication.error.UserNotFoundException;
 import de.init.backend.authentication.error.UsernameAlreadyExistException;
 import de.init.backend.authentication.model.ErrorResponseDto;
+import de.init.backend.datatable.VersionConflictException;
+import de.init.backend.datatable.budget.QueryBudgetExceededException;
 import de.init.backend.datatable.search.SearchQueryParseException;
 import de.init.backend.error.EmailAlreadyExistException;
 
@@ -95,6 +99,36 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
 		return this.createResponse(ex, request, HttpStatus.BAD_REQUEST);
 	}
 
+	/**
+	 * Error handler for {@link QueryBudgetExceededException}, lists the exceeded
+	 * limits
+	 */
+	@ExceptionHandler(QueryBudgetExceededException.class)
+	public final ResponseEntity<ErrorResponseDto> handleQueryBudgetExceededException(
+			QueryBudgetExceededException ex, WebRequest request) {
+		HttpStatus status = HttpStatus.BAD_REQUEST;
+		ErrorResponseDto errorResponse = new ErrorResponseDto(status.value(), ex.getMessage(),
+				request.getParameterMap().toString(), ((ServletWebRequest) request).getRequest().getRequestURI());
+		ex.getViolations().forEach(errorResponse::addError);
+		return new ResponseEntity<>(errorResponse, status);
+	}
+
+	/**
+	 * Error handler for {@link OptimisticLockException} and
+	 * {@link ObjectOptimisticLockingFailureException}, the If-Match version of an
+	 * update is outdated or the entity was changed concurrently. The current
+	 * version of a {@link VersionConflictException} is returned as ETag.
+	 */
+	@ExceptionHandler({ OptimisticLockException.class, ObjectOptimisticLockingFailureException.class })
+	public final ResponseEntity<ErrorResponseDto> handleOptimisticLockException(RuntimeException ex,
+			WebRequest request) {
+		ResponseEntity<ErrorResponseDto> response = this.createResponse(ex, request, HttpStatus.PRECONDITION_FAILED);
+		if (!(ex instanceof VersionConflictException))
+			return response;
+		return ResponseEntity.status(response.getStatusCode())
+				.eTag(Long.toString(((VersionConflictException) ex).getCurrentVersion())).body(response.getBody());
+	}
+
 	/**
 	 * error handler for path variables validation for @Validated
 	 */
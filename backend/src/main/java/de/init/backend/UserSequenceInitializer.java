@@ -0,0 +1,83 @@
+package de.init.backend;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.StatelessSession;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import de.init.backend.authentication.model.User;
+
+/**
+ * Moves <tt>user_sequence</tt> past the ids of the existing users at startup.
+ *
+ * The users got their ids from <tt>hibernate_sequence</tt> before. On an
+ * existing database <tt>ddl-auto=update</tt> creates <tt>user_sequence</tt>
+ * starting with 1, so the ids of the pooled optimizer would collide with the
+ * existing users. The sequence is restarted after the highest id plus one
+ * block of {@link User#ID_ALLOCATION_SIZE} ids, because the pooled optimizer
+ * hands out the ids below the value it reads. A sequence which is already
+ * ahead is left alone.
+ *
+ * Runs before {@link SetupDataLoader} and before requests are accepted, since
+ * the context creates the singletons before it is refreshed. The restart uses
+ * <tt>ALTER SEQUENCE ... RESTART WITH</tt> (e.g. H2 and PostgreSQL), on
+ * other databases the sequence has to be moved manually.
+ */
+@Component
+class UserSequenceInitializer {
+	private static final Logger logger = LoggerFactory.getLogger(UserSequenceInitializer.class);
+
+	static final String SEQUENCE = "user_sequence";
+
+	private final SessionFactoryImplementor sessionFactory;
+
+	@Autowired
+	public UserSequenceInitializer(EntityManagerFactory entityManagerFactory) {
+		this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+	}
+
+	@PostConstruct
+	void synchronize() {
+		Dialect dialect = this.sessionFactory.getJdbcServices().getDialect();
+		try (StatelessSession session = this.sessionFactory.openStatelessSession()) {
+			session.doWork(connection -> {
+				try (Statement statement = connection.createStatement()) {
+					long maxId = queryLong(statement, "SELECT MAX(id) FROM auth_user");
+					if (maxId == 0)
+						return;
+					// reading the next value skips one value, the next block starts after it
+					long next = queryLong(statement, dialect.getSequenceNextValString(SEQUENCE));
+					long restart = maxId + User.ID_ALLOCATION_SIZE + 1;
+					if (next >= restart)
+						return;
+
+					statement.execute("ALTER SEQUENCE " + SEQUENCE + " RESTART WITH " + restart);
+					logger.info("Moved {} from {} to {}, past the highest user id {}", SEQUENCE, next, restart,
+							maxId);
+				} catch (SQLException e) {
+					logger.warn("Could not move " + SEQUENCE + " past the existing user ids, move it manually", e);
+				}
+			});
+		}
+	}
+
+	/**
+	 * @return the long of the first column of the single row, 0 for null
+	 */
+	private static long queryLong(Statement statement, String query) throws SQLException {
+		try (ResultSet result = statement.executeQuery(query)) {
+			return result.next() ? result.getLong(1) : 0;
+		}
+	}
+
+}
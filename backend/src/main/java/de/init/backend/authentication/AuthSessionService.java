@@ -7,10 +7,6 @@ import javax.transaction.Transactional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.lang.NonNull;
-import org.springframework.security.authentication.AnonymousAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
@@ -27,9 +23,12 @@ import de.init.backend.authentication.model.User;
 @Transactional
 public class AuthSessionService<T extends User> extends AuthService<T> implements AuthenticationSessionService<T> {
 
+	private final AuthenticatedUserContext<T> userContext;
+
 	public AuthSessionService(CustomUserDetailsService<T> userService, PasswordEncoder passwordEncoder,
 			AuthConfiguration authConfiguration) {
 		super(userService, passwordEncoder, authConfiguration);
+		this.userContext = new AuthenticatedUserContext<>(userService.getRepository());
 	}
 
 	@Override
@@ -50,21 +49,22 @@ public class AuthSessionService<T extends User> extends AuthService<T> implement
 		// update timestamp
 		T user = this.getAuthenticatedUser();
 		user.setLastLogin(new Date().getTime());
-		return this.getRepository().save(user);
+		return this.save(user);
 	}
 
 	@Override
 	public T getAuthenticatedUser() {
-		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-		if (authentication != null && !(authentication instanceof AnonymousAuthenticationToken)) {
-			UserDetails principal = (UserDetails) authentication.getPrincipal();
-			if (principal == null)
-				return null;
-			String username = principal.getUsername();
-			T user = this.getRepository().findByUsername(username).orElse(null);
-			return user;
-		} else
-			return null;
+		return this.userContext.getUser();
+	}
+
+	@Override
+	public boolean hasAuthenticatedRole(@NonNull String role) {
+		return this.userContext.getRoleNames().contains(role);
+	}
+
+	@Override
+	public void refreshAuthenticatedUser() {
+		this.userContext.clear();
 	}
 
 	@Override
@@ -79,7 +79,7 @@ public class AuthSessionService<T extends User> extends AuthService<T> implement
 		T dbUser = this.getAuthenticatedUser();
 		dbUser.setPassword(this.passwordEncoder.encode(password));
 		dbUser.setLastUpdated(new Date().getTime());
-		return this.getRepository().save(dbUser);
+		return this.save(dbUser);
 	}
 
 	@Override
@@ -100,7 +100,7 @@ public class AuthSessionService<T extends User> extends AuthService<T> implement
 		// update user without password and change updated timstamp
 		dbUser.setUsername(username);
 		dbUser.setLastUpdated(new Date().getTime());
-		return this.getRepository().save(dbUser);
+		return this.save(dbUser);
 	}
 
 	@Override
@@ -113,7 +113,7 @@ public class AuthSessionService<T extends User> extends AuthService<T> implement
 			T user = this.getAuthenticatedUser();
 			user.setEnabled(false);
 			user.setLastUpdated(new Date().getTime());
-			this.getRepository().save(user);
+			this.save(user);
 		}
 	}
 
@@ -124,6 +124,16 @@ public class AuthSessionService<T extends User> extends AuthService<T> implement
 		}
 	}
 
+	/**
+	 * Save the authenticated user and keep the saved state for the rest of the
+	 * request.
+	 */
+	private T save(T user) {
+		T saved = this.getRepository().save(user);
+		this.userContext.refresh(saved);
+		return saved;
+	}
+
 	/**
 	 * Check if an user is logged in
 	 * 
@@ -0,0 +1,121 @@
+package de.init.backend.authentication;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import de.init.backend.authentication.model.Role;
+import de.init.backend.authentication.model.User;
+import de.init.backend.authentication.repository.UserRepository;
+
+/**
+ * Resolves the authenticated user with its role names at most once per request.
+ * The result is kept as attribute of the current request, so it is dropped with
+ * the request. Outside of a request, e.g. in an async task, the user is loaded on
+ * every call.
+ *
+ * The cache is bound to the username of the authentication. Changes of the user
+ * in the request have to be announced with {@link #refresh(User)} or
+ * {@link #clear()}.
+ */
+final class AuthenticatedUserContext<T extends User> {
+
+	private static final String ATTRIBUTE = AuthenticatedUserContext.class.getName() + ".USER";
+
+	private final UserRepository<T> repository;
+
+	AuthenticatedUserContext(UserRepository<T> repository) {
+		this.repository = repository;
+	}
+
+	/**
+	 * @return authenticated user or null if no user is authenticated
+	 */
+	T getUser() {
+		Resolved<T> resolved = this.resolve();
+		return resolved != null ? resolved.user : null;
+	}
+
+	/**
+	 * @return role names of the authenticated user, empty if no user is
+	 *         authenticated
+	 */
+	Set<String> getRoleNames() {
+		Resolved<T> resolved = this.resolve();
+		return resolved != null ? resolved.roleNames : Collections.emptySet();
+	}
+
+	/**
+	 * Replace the user of the request after it was saved.
+	 *
+	 * @param user saved authenticated user
+	 */
+	void refresh(T user) {
+		String username = getUsername();
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		if (username != null && attributes != null)
+			attributes.setAttribute(ATTRIBUTE, new Resolved<>(username, user), RequestAttributes.SCOPE_REQUEST);
+	}
+
+	/**
+	 * Drop the user of the request, the next call loads it again.
+	 */
+	void clear() {
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		if (attributes != null)
+			attributes.removeAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+	}
+
+	@SuppressWarnings("unchecked")
+	private Resolved<T> resolve() {
+		String username = getUsername();
+		if (username == null)
+			return null;
+
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		if (attributes != null) {
+			Resolved<T> resolved = (Resolved<T>) attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+			// the authentication may change in a request, e.g. on login
+			if (resolved != null && resolved.username.equals(username))
+				return resolved;
+		}
+
+		T user = this.repository.findByUsername(username).orElse(null);
+		Resolved<T> resolved = new Resolved<>(username, user);
+		if (attributes != null)
+			attributes.setAttribute(ATTRIBUTE, resolved, RequestAttributes.SCOPE_REQUEST);
+		return resolved;
+	}
+
+	private static String getUsername() {
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		if (authentication == null || authentication instanceof AnonymousAuthenticationToken)
+			return null;
+		Object principal = authentication.getPrincipal();
+		return principal instanceof UserDetails ? ((UserDetails) principal).getUsername() : null;
+	}
+
+	private static final class Resolved<T extends User> {
+
+		private final String username;
+		private final T user;
+		/** resolved eagerly, the roles of the user are lazy */
+		private final Set<String> roleNames;
+
+		private Resolved(String username, T user) {
+			this.username = username;
+			this.user = user;
+			this.roleNames = user == null || user.getRoles() == null ? Collections.emptySet()
+					: user.getRoles().stream().map(Role::getName).collect(Collectors.toUnmodifiableSet());
+		}
+
+	}
+
+}
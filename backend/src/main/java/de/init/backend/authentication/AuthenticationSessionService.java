@@ -20,12 +20,28 @@ import javassist.NotFoundException;
 public interface AuthenticationSessionService<T extends User> extends AuthenticationService<T> {
 
 	/**
-	 * Returns the current authenticated user or null if no user is authenticated
+	 * Returns the current authenticated user or null if no user is authenticated.
+	 * The user is loaded once per request.
 	 * 
 	 * @return T user
 	 */
 	T getAuthenticatedUser();
 
+	/**
+	 * Check a role of the current authenticated user. Like the user itself, the
+	 * roles are resolved once per request.
+	 * 
+	 * @param role name of the role
+	 * @return true if a user is authenticated and has the role
+	 */
+	boolean hasAuthenticatedRole(@NonNull String role);
+
+	/**
+	 * Load the current authenticated user again on the next access, e.g. after it
+	 * was changed without this service.
+	 */
+	void refreshAuthenticatedUser();
+
 	/**
 	 * Check if the current authenticated user and update the login state.
 	 * 
@@ -132,8 +132,9 @@ public class JWTAuthenticationHandler extends UsernamePasswordAuthenticationFilt
 	@Override
 	public void onAuthenticationSuccess(HttpServletRequest request, HttpServletResponse response,
 			Authentication authentication) throws IOException, ServletException {
-		// create token
-		User user = this.userService.getAuthenticatedUser();
+		// create token of the principal, which was loaded in the transaction of the
+		// authentication, so no entity is touched outside of a transaction
+		UserPrinciple user = (UserPrinciple) authentication.getPrincipal();
 		String token = JWTUtils.generateToken(user);
 		// create UserDto
 		LoginResponseDto responseObject = new LoginResponseDto(HttpServletResponse.SC_OK, user, token);
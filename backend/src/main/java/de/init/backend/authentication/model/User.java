@@ -14,7 +14,13 @@ import javax.persistence.InheritanceType;
 import javax.persistence.JoinColumn;
 import javax.persistence.JoinTable;
 import javax.persistence.ManyToMany;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
+import javax.persistence.Version;
+
+import org.hibernate.annotations.OptimisticLock;
+
+import de.init.backend.datatable.annotation.EpochMillis;
 
 @Entity
 @Table(name = "auth_user")
@@ -23,8 +29,16 @@ public class User implements Serializable{
 
 	private static final long serialVersionUID = -8247718979733553537L;
 
+	public static final int ID_ALLOCATION_SIZE = 50;
+
+	/**
+	 * Ids are drawn from a sequence in blocks of {@link #ID_ALLOCATION_SIZE}
+	 * (Hibernate pooled optimizer), so bulk inserts don't need a sequence call per
+	 * user.
+	 */
 	@Id
-	@GeneratedValue(strategy = GenerationType.AUTO)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_sequence")
+	@SequenceGenerator(name = "user_sequence", sequenceName = "user_sequence", allocationSize = User.ID_ALLOCATION_SIZE)
 	@Column(name = "id", nullable = false)
 	protected Long id;
 
@@ -34,17 +48,30 @@ public class User implements Serializable{
 	@Column(name = "password", nullable = true, length = 100)
 	protected String password;
 
+	/** a login is no change of the user, it doesn't increment the version */
+	@OptimisticLock(excluded = true)
+	@EpochMillis
 	@Column(name = "last_login", nullable = true)
 	protected Long lastLogin;
 
+	@EpochMillis
 	@Column(name = "created", nullable = true)
 	protected Long created;
 
+	@EpochMillis
 	@Column(name = "last_updated", nullable = true)
 	protected Long lastUpdated;
 
 	protected boolean enabled;
 
+	/**
+	 * Incremented by every change, an update with an outdated version fails. The
+	 * version is the ETag of the user.
+	 */
+	@Version
+	@Column(name = "version", nullable = false)
+	protected long version;
+
 	@ManyToMany(fetch = FetchType.LAZY)
 	@JoinTable(name = "users_roles", joinColumns = @JoinColumn(name = "user_id", referencedColumnName = "id"), inverseJoinColumns = @JoinColumn(name = "role_id", referencedColumnName = "id"))
 	protected Collection<Role> roles;
@@ -85,7 +112,7 @@ public class User implements Serializable{
 	}
 
 	public Long getLastUpdated() {
-		return lastLogin;
+		return lastUpdated;
 	}
 
 	public void setLastUpdated(Long lastUpdated) {
@@ -108,6 +135,10 @@ public class User implements Serializable{
 		this.enabled = enabled;
 	}
 
+	public long getVersion() {
+		return version;
+	}
+
 	public Collection<Role> getRoles() {
 		return roles;
 	}
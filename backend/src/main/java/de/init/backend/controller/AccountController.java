@@ -1,12 +1,20 @@
 package de.init.backend.controller;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Map;
 
+import javax.persistence.OptimisticLockException;
 import javax.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
@@ -16,13 +24,18 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 
+import de.init.backend.datatable.DataTableRow;
 import de.init.backend.model.dto.AccountDto;
+import de.init.backend.model.dto.BulkResultDto;
 import de.init.backend.model.dto.NewAccountDto;
 import de.init.backend.model.dto.PasswordDto;
 import de.init.backend.services.AccountService;
+import de.init.backend.services.TestAccountGenerator;
 
 /**
  * Check auth by user roles for specific route with the @PreAuthorize annotation
@@ -50,10 +63,17 @@ import de.init.backend.services.AccountService;
 public class AccountController {
 
 	private final AccountService accountService;
+	private final TestAccountGenerator testAccountGenerator;
+	private final AsyncTaskExecutor taskExecutor;
+	private final long testAccountsTimeout;
 
 	@Autowired
-	public AccountController(AccountService accountService) {
+	public AccountController(AccountService accountService, TestAccountGenerator testAccountGenerator,
+			AsyncTaskExecutor taskExecutor, @Value("${app.test-accounts.timeout}") long testAccountsTimeout) {
 		this.accountService = accountService;
+		this.testAccountGenerator = testAccountGenerator;
+		this.taskExecutor = taskExecutor;
+		this.testAccountsTimeout = testAccountsTimeout;
 	}
 
 	@GetMapping("")
@@ -67,7 +87,7 @@ public class AccountController {
 	@PreAuthorize("hasPermission('READ_PERMISSION')")
 	public ResponseEntity<?> getAccountById(@PathVariable long id) {
 		AccountDto account = this.accountService.getAccountById(id);
-		return ResponseEntity.ok(account);
+		return ResponseEntity.ok().eTag(Long.toString(account.getVersion())).body(account);
 	}
 
 	@PutMapping("/")
@@ -78,11 +98,18 @@ public class AccountController {
 		return new ResponseEntity<>(account, HttpStatus.CREATED);
 	}
 
+	/**
+	 * With the ETag of the account as If-Match header, e.g. <tt>If-Match: "3"</tt>,
+	 * the update fails with 412 and the current version as ETag if the account
+	 * was changed meanwhile. Weak ETags never match. The new version is returned
+	 * as ETag.
+	 */
 	@PostMapping("/{id}/update")
 	@PreAuthorize("hasPermission('WRITE_PERMISSION')")
-	public ResponseEntity<?> updateAccount(@PathVariable long id, @RequestBody @Valid AccountDto accountDto) {
-		AccountDto account = this.accountService.updateAccount(id, accountDto);
-		return ResponseEntity.ok(account);
+	public ResponseEntity<?> updateAccount(@PathVariable long id, @RequestBody @Valid AccountDto accountDto,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+		AccountDto account = this.accountService.updateAccount(id, accountDto, parseVersion(ifMatch));
+		return ResponseEntity.ok().eTag(Long.toString(account.getVersion())).body(account);
 	}
 
 	@PostMapping("/{id}/password")
@@ -99,22 +126,121 @@ public class AccountController {
 		return new ResponseEntity<>(HttpStatus.NO_CONTENT);
 	}
 
+	/**
+	 * Apply the values of the body, e.g. <tt>{"enabled":false}</tt>, to all
+	 * accounts matching the RSQL filter. With dryRun the matching accounts are
+	 * only counted. The operation is rejected if more accounts than maxRows or the
+	 * configured max rows match.
+	 */
+	@PostMapping("/bulk/update")
+	@PreAuthorize("hasPermission('WRITE_PERMISSION')")
+	public ResponseEntity<?> bulkUpdate(@RequestParam String filter,
+			@RequestParam(defaultValue = "false") boolean dryRun, @RequestParam(required = false) Long maxRows,
+			@RequestBody Map<String, Object> values) {
+		long rows = this.accountService.bulkUpdate(filter, values, dryRun, maxRows);
+		return ResponseEntity.ok(new BulkResultDto(rows, dryRun));
+	}
+
+	/**
+	 * Delete all accounts matching the RSQL filter, like {@link #bulkUpdate}.
+	 */
+	@PostMapping("/bulk/delete")
+	@PreAuthorize("hasPermission('WRITE_PERMISSION')")
+	public ResponseEntity<?> bulkDelete(@RequestParam String filter,
+			@RequestParam(defaultValue = "false") boolean dryRun, @RequestParam(required = false) Long maxRows) {
+		long rows = this.accountService.bulkDelete(filter, dryRun, maxRows);
+		return ResponseEntity.ok(new BulkResultDto(rows, dryRun));
+	}
+
 	@GetMapping("/page")
 	@PreAuthorize("hasPermission('READ_PERMISSION')")
 	public ResponseEntity<?> getPage(@RequestParam(defaultValue = "3") Integer size,
 			@RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "id") String sort,
 			@RequestParam(defaultValue = "true") Boolean ascending, @RequestParam(required = false) String search,
-			@RequestParam(required = false) String filter) {
-		Page<AccountDto> pageDto = this.accountService.getPage(page, size, sort, ascending, search, filter);
+			@RequestParam(required = false) String filter, @RequestParam(required = false) String cursor,
+			@RequestParam(defaultValue = "true") boolean includeTotal,
+			@RequestParam(defaultValue = "false") boolean approximateTotal,
+			@RequestParam(required = false) List<String> fields) {
+		if (fields != null && !fields.isEmpty()) {
+			Slice<DataTableRow> rows = this.accountService.getPage(page, size, sort, ascending, search, filter,
+					cursor, includeTotal, approximateTotal, fields);
+			return ResponseEntity.ok(rows);
+		}
+		Slice<AccountDto> pageDto = this.accountService.getPage(page, size, sort, ascending, search, filter, cursor,
+				includeTotal, approximateTotal);
 		return ResponseEntity.ok(pageDto);
 	}
 
+	/**
+	 * Search in the searchable fields of all accounts. With fields, e.g.
+	 * <tt>fields=username,email</tt>, only these fields and the id are returned.
+	 */
+	@GetMapping("/search")
+	@PreAuthorize("hasPermission('READ_PERMISSION')")
+	public ResponseEntity<?> search(@RequestParam String query, @RequestParam(required = false) List<String> fields) {
+		if (fields != null && !fields.isEmpty())
+			return ResponseEntity.ok(this.accountService.search(query, fields));
+		return ResponseEntity.ok(this.accountService.search(query));
+	}
+
+	/**
+	 * Without count the fixed test accounts are created. With count the synthetic
+	 * accounts of {@link TestAccountGenerator} are inserted and the progress is
+	 * streamed as one JSON line per committed batch, e.g.
+	 * <tt>{"inserted":2000,"count":10000}</tt>. The generation runs longer than
+	 * the default async request timeout, so the emitter has its own timeout
+	 * <tt>app.test-accounts.timeout</tt>.
+	 */
 	@GetMapping("/create_test")
 	@PreAuthorize("hasPermission('WRITE_PERMISSION')")
-	public ResponseEntity<?> createTestAccounts() {
+	public ResponseEntity<ResponseBodyEmitter> createTestAccounts(@RequestParam(required = false) Integer count,
+			@RequestParam(defaultValue = "0") long seed, @RequestParam(defaultValue = "1") int parallelism) {
+		if (count == null) {
+			this.accountService.addTestAccounts();
+			return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+		}
+
+		this.testAccountGenerator.checkArguments(count, parallelism);
+		ResponseBodyEmitter emitter = new ResponseBodyEmitter(this.testAccountsTimeout);
+		this.taskExecutor.execute(() -> {
+			try {
+				this.testAccountGenerator.generate(count, seed, parallelism,
+						inserted -> sendProgress(emitter, inserted, count));
+				emitter.complete();
+			} catch (RuntimeException e) {
+				emitter.completeWithError(e);
+			}
+		});
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(emitter);
+	}
 
-		this.accountService.addTestAccounts();
-		return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+	/**
+	 * @return version of the ETag, null without If-Match header or for "*"
+	 * @throws IllegalArgumentException if the header is no single version ETag
+	 * @throws OptimisticLockException  for a weak ETag, If-Match compares strong
+	 *                                  (RFC 7232), so it never matches
+	 */
+	private static Long parseVersion(String ifMatch) {
+		if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*"))
+			return null;
+		String tag = ifMatch.trim();
+		if (tag.startsWith("W/"))
+			throw new OptimisticLockException("If-Match needs a strong ETag, the weak ETag " + tag + " never matches");
+		if (tag.length() > 1 && tag.startsWith("\"") && tag.endsWith("\""))
+			tag = tag.substring(1, tag.length() - 1);
+		try {
+			return Long.parseLong(tag);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("If-Match must be the ETag of the account, e.g. \"3\"");
+		}
+	}
+
+	private static void sendProgress(ResponseBodyEmitter emitter, long inserted, int count) {
+		try {
+			emitter.send("{\"inserted\":" + inserted + ",\"count\":" + count + "}\n");
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
 	}
 
 }
\ No newline at end of file
@@ -21,6 +21,7 @@ import de.init.backend.authentication.jwt.JWTUtils;
 import de.init.backend.model.dto.DetailedAccountDto;
 import de.init.backend.model.dto.PasswordDto;
 import de.init.backend.model.entity.Account;
+import de.init.backend.services.AccountService;
 
 /**
  * Controller with functions for current authenticated user. All endpoints are
@@ -32,16 +33,18 @@ import de.init.backend.model.entity.Account;
 public class UserController {
 
 	AuthenticationSessionService<Account> userService;
+	AccountService accountService;
 
 	@Autowired
-	public UserController(AuthenticationSessionService<Account> userService) {
+	public UserController(AuthenticationSessionService<Account> userService, AccountService accountService) {
 		this.userService = userService;
+		this.accountService = accountService;
 	}
 
 	@GetMapping("")
 	public ResponseEntity<?> getCurrentUser() {
-		Account user = this.userService.getAuthenticatedUser();
-		return ResponseEntity.ok(new DetailedAccountDto(user));
+		DetailedAccountDto account = this.accountService.getAuthenticatedAccount();
+		return ResponseEntity.ok(account);
 	}
 
 	@GetMapping("/check")
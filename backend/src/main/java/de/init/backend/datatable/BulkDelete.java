@@ -0,0 +1,80 @@
+package de.init.backend.datatable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaDelete;
+
+import org.hibernate.persister.collection.AbstractCollectionPersister;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.CollectionType;
+import org.hibernate.type.Type;
+
+/**
+ * Delete of entities by id without loading them. The rows of the join tables
+ * of owned many-to-many collections, e.g. <tt>users_roles</tt>, the subclass
+ * tables and the root table are deleted by one native statement per table in
+ * this order.
+ *
+ * A {@link CriteriaDelete} of the root entity of a joined hierarchy would be
+ * executed by Hibernate with a temporary id table for all tables of the
+ * hierarchy. Entities of subclasses are not deleted completely by a delete of
+ * their superclass, their tables are unknown to the persister of the
+ * superclass.
+ */
+final class BulkDelete {
+
+	private final EntityManager entityManager;
+
+	private final AbstractEntityPersister persister;
+
+	/** join tables of the owned collections with their key column */
+	private final List<String[]> joinTables = new ArrayList<>();
+
+	BulkDelete(EntityManager entityManager, Class<?> typeClass) {
+		this.entityManager = entityManager;
+		this.persister = PartialUpdate.persister(entityManager, typeClass);
+		for (Type type : this.persister.getPropertyTypes()) {
+			if (!type.isCollectionType())
+				continue;
+			AbstractCollectionPersister collection = (AbstractCollectionPersister) this.persister.getFactory()
+					.getMetamodel().collectionPersister(((CollectionType) type).getRole());
+			if (collection.isManyToMany() && !collection.isInverse())
+				this.joinTables.add(new String[] { collection.getTableName(), collection.getKeyColumnNames()[0] });
+		}
+	}
+
+	/**
+	 * Delete the entities of the ids.
+	 *
+	 * @param ids ids of the entities
+	 * @return amount of deleted entities
+	 */
+	int execute(Collection<?> ids) {
+		for (String[] joinTable : this.joinTables)
+			this.delete(joinTable[0], joinTable[1], ids);
+
+		// the subclass tables are ordered before the root table, which is last
+		String[] tableNames = this.persister.getConstraintOrderedTableNameClosure();
+		String[][] keyColumns = this.persister.getContraintOrderedTableKeyColumnClosure();
+		int deleted = 0;
+		for (int i = 0; i < tableNames.length; i++)
+			deleted = this.delete(tableNames[i], keyColumns[i][0], ids);
+
+		PartialUpdate.detach(this.entityManager, this.persister, ids);
+		return deleted;
+	}
+
+	private int delete(String table, String keyColumn, Collection<?> ids) {
+		NativeQuery<?> query = this.entityManager
+				.createNativeQuery("DELETE FROM " + table + " WHERE " + keyColumn + " IN (:ids)")
+				.unwrap(NativeQuery.class);
+		query.addSynchronizedEntityClass(this.persister.getMappedClass());
+		query.setParameterList("ids", ids, this.persister.getIdentifierType());
+		return query.executeUpdate();
+	}
+
+}
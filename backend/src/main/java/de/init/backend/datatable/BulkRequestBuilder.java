@@ -0,0 +1,132 @@
+package de.init.backend.datatable;
+
+import cz.jirutka.rsql.parser.ast.Node;
+import de.init.backend.datatable.annotation.Editable;
+import de.init.backend.datatable.budget.QueryBudget;
+import de.init.backend.datatable.budget.QueryBudgetExceededException;
+import de.init.backend.datatable.search.SearchService;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Builder of a bulk update or delete of all elements matching RSQL filters. The matching elements are counted
+ * first, more elements than the max rows reject the operation. Afterwards the ids are selected in chunks and each
+ * chunk is written with set-based statements, no element is loaded. Has to be executed in a transaction.
+ *
+ * <pre>
+ * long disabled = pageService.bulk().filter("lastLogin=lt=1600000000000").maxRows(500).update(Map.of("enabled", false));
+ * </pre>
+ *
+ * @param <T> Class type of repository
+ * @param <I> ID type of class
+ */
+public class BulkRequestBuilder<T, I> {
+
+    private final PageService<T, I> pageService;
+
+    private final List<String> filters = new ArrayList<>();
+
+    private QueryBudget budget = QueryBudget.NONE;
+
+    private long maxRows;
+
+    private boolean dryRun = false;
+
+    BulkRequestBuilder(PageService<T, I> pageService, long maxRows) {
+        this.pageService = pageService;
+        this.maxRows = maxRows;
+    }
+
+    /**
+     * Restricts the operation to the elements matching the RSQL expression. Multiple filters are combined with
+     * logical AND. A bulk operation needs at least one filter.
+     *
+     * @param rsqlExpression RSQL expression, blank expressions are ignored
+     */
+    public BulkRequestBuilder<T, I> filter(String rsqlExpression) {
+        if (rsqlExpression != null && !rsqlExpression.isBlank()) {
+            filters.add(rsqlExpression.trim());
+        }
+        return this;
+    }
+
+    /**
+     * Limits the cost of the filters, the page size of the budget is not used.
+     *
+     * @param budget the query budget, default is {@link QueryBudget#NONE}
+     */
+    public BulkRequestBuilder<T, I> budget(QueryBudget budget) {
+        this.budget = budget;
+        return this;
+    }
+
+    /**
+     * Rejects the operation if more elements match. The max rows of the {@link PageService} can only be lowered.
+     *
+     * @param maxRows max amount of changed elements, {@link QueryBudget#UNLIMITED} for the max rows of the service
+     */
+    public BulkRequestBuilder<T, I> maxRows(long maxRows) {
+        if (maxRows != QueryBudget.UNLIMITED && (this.maxRows == QueryBudget.UNLIMITED || maxRows < this.maxRows)) {
+            this.maxRows = maxRows;
+        }
+        return this;
+    }
+
+    /**
+     * Only counts the matching elements, nothing is changed.
+     *
+     * @param dryRun true - count only; false - execute, default
+     */
+    public BulkRequestBuilder<T, I> dryRun(boolean dryRun) {
+        this.dryRun = dryRun;
+        return this;
+    }
+
+    /**
+     * Shortcut for {@link #dryRun(boolean)} with true.
+     */
+    public BulkRequestBuilder<T, I> dryRun() {
+        return dryRun(true);
+    }
+
+    /**
+     * Applies the values to all matching elements and increments their versions.
+     *
+     * @param values values by name of the {@link Editable} field or of a bulk editable field of the service, see
+     *               {@link PageService#setBulkEditableFields(java.util.Set)}
+     * @return amount of matching elements for a dry run, otherwise of updated elements
+     * @throws IllegalArgumentException     if there is no filter, a field is not editable or a value doesn't fit
+     * @throws QueryBudgetExceededException if the filters are over budget or more elements than the max rows match
+     */
+    public long update(Map<String, Object> values) {
+        return pageService.updateAll(specification(), values, maxRows, dryRun);
+    }
+
+    /**
+     * Deletes all matching elements including the rows of their join tables.
+     *
+     * @return amount of matching elements for a dry run, otherwise of deleted elements
+     * @throws IllegalArgumentException     if there is no filter
+     * @throws QueryBudgetExceededException if the filters are over budget or more elements than the max rows match
+     */
+    public long delete() {
+        return pageService.deleteAll(specification(), maxRows, dryRun);
+    }
+
+    private Specification<T> specification() {
+        if (filters.isEmpty()) {
+            throw new IllegalArgumentException("A bulk operation needs a filter");
+        }
+        List<Node> nodes = filters.stream().map(SearchService::parseRSQL).collect(Collectors.toList());
+        pageService.checkBudget(budget, nodes, Pageable.unpaged());
+        String query = filters.size() == 1 ? filters.get(0)
+                : filters.stream().map(filter -> "(" + filter + ")").collect(Collectors.joining(";"));
+        return pageService.createSpecification(query);
+    }
+
+}
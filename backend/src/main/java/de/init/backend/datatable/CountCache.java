@@ -0,0 +1,92 @@
+package de.init.backend.datatable;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Cache of exact row counts for {@link CountMode#APPROXIMATE} pages. The
+ * counts are kept per entity type and normalized filter for a limited time.
+ * Every write on an entity type through the {@link CrudService} invalidates
+ * all counts of this type.
+ *
+ * The cache is shared by all {@link PageService} and {@link CrudService}
+ * instances it is passed to.
+ */
+@Component
+public class CountCache {
+
+	private final Cache<CountKey, Long> counts;
+
+	/**
+	 * @param ttl time in ms a count is kept
+	 */
+	public CountCache(@Value("${app.datatable.count-cache-ttl}") long ttl) {
+		this.counts = CacheBuilder.newBuilder().expireAfterWrite(ttl, TimeUnit.MILLISECONDS).maximumSize(10_000)
+				.build();
+	}
+
+	/**
+	 * Return the cached count.
+	 *
+	 * @param typeClass entity type
+	 * @param filterKey normalized filter, empty for unfiltered queries
+	 * @return count or null if not cached
+	 */
+	public Long get(Class<?> typeClass, String filterKey) {
+		return this.counts.getIfPresent(new CountKey(typeClass, filterKey));
+	}
+
+	/**
+	 * Cache a count.
+	 *
+	 * @param typeClass entity type
+	 * @param filterKey normalized filter, empty for unfiltered queries
+	 * @param count     amount of rows
+	 */
+	public void put(Class<?> typeClass, String filterKey, long count) {
+		this.counts.put(new CountKey(typeClass, filterKey), count);
+	}
+
+	/**
+	 * Remove all cached counts of the entity type, should be called after
+	 * elements got created, updated or deleted.
+	 *
+	 * @param typeClass entity type
+	 */
+	public void invalidate(Class<?> typeClass) {
+		this.counts.asMap().keySet().removeIf(key -> key.typeClass.equals(typeClass));
+	}
+
+	private static final class CountKey {
+
+		private final Class<?> typeClass;
+		private final String filterKey;
+
+		private CountKey(Class<?> typeClass, String filterKey) {
+			this.typeClass = typeClass;
+			this.filterKey = filterKey;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o)
+				return true;
+			if (!(o instanceof CountKey))
+				return false;
+			CountKey other = (CountKey) o;
+			return typeClass.equals(other.typeClass) && filterKey.equals(other.filterKey);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(typeClass, filterKey);
+		}
+	}
+
+}
@@ -0,0 +1,24 @@
+package de.init.backend.datatable;
+
+/**
+ * Defines how the total amount of elements is determined for a page request.
+ */
+public enum CountMode {
+	/**
+	 * Count the exact amount of matching elements. Results in a
+	 * {@link DataTablePage}.
+	 */
+	EXACT,
+	/**
+	 * Use a cached count of the same filter or the table statistics of the
+	 * database for unfiltered queries. Falls back to an exact count if there is
+	 * none. Results in a {@link DataTablePage}, which marks an estimated total by
+	 * {@link DataTablePage#isExactTotal()}.
+	 */
+	APPROXIMATE,
+	/**
+	 * Don't count at all. One additional row is fetched to find out whether a next
+	 * page exists. Results in a {@link DataTableSlice}.
+	 */
+	NONE
+}
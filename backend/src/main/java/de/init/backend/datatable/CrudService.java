@@ -1,15 +1,19 @@
 package de.init.backend.datatable;
 
-import java.lang.reflect.Field;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Supplier;
 
 import javax.annotation.Nullable;
+import javax.persistence.EntityManager;
 
 import org.springframework.data.repository.CrudRepository;
 
-import de.init.backend.datatable.annotation.AnnotationService;
 import de.init.backend.datatable.annotation.Editable;
+import de.init.backend.datatable.metadata.DatatableDescriptor;
+import de.init.backend.datatable.metadata.EntityMetadata;
+import de.init.backend.datatable.metadata.FieldDescriptor;
 
 /**
  * This class could not be annotated created to a bean, because the repository
@@ -22,6 +26,8 @@ public class CrudService<T, I> {
 
 	private final Class<T> typeClass;
 	private final CrudRepository<T, I> repository;
+	private final EntityManager entityManager;
+	private CountCache countCache;
 
 	/**
 	 * Create CrudService instance.
@@ -29,8 +35,30 @@ public class CrudService<T, I> {
 	 * @param repository The repository to work on
 	 */
 	public CrudService(CrudRepository<T, I> repository, Class<T> typeClass) {
+		this(repository, typeClass, null);
+	}
+
+	/**
+	 * Create CrudService instance, which supports read-only reads.
+	 *
+	 * @param repository    The repository to work on
+	 * @param typeClass     The entity class
+	 * @param entityManager EntityManager of the repository
+	 */
+	public CrudService(CrudRepository<T, I> repository, Class<T> typeClass, @Nullable EntityManager entityManager) {
 		this.repository = repository;
 		this.typeClass = typeClass;
+		this.entityManager = entityManager;
+	}
+
+	/**
+	 * Set the count cache which gets invalidated for this entity type on every
+	 * write.
+	 *
+	 * @param countCache shared count cache
+	 */
+	public void setCountCache(CountCache countCache) {
+		this.countCache = countCache;
 	}
 
 	/**
@@ -42,6 +70,17 @@ public class CrudService<T, I> {
 		return this.repository.findAll();
 	}
 
+	/**
+	 * Return all elements of this entity
+	 * 
+	 * @param readOnly Load the elements in {@link ReadOnlyMode}, the changes of
+	 *                 them are never written
+	 * @return List<T>
+	 */
+	public Iterable<T> getAll(boolean readOnly) {
+		return readOnly ? this.readOnly(this.repository::findAll) : this.getAll();
+	}
+
 	/**
 	 * Return one specifiy entity by id
 	 * 
@@ -53,8 +92,21 @@ public class CrudService<T, I> {
 		return entityOptional.orElse(null);
 	}
 
+	/**
+	 * Return one specifiy entity by id
+	 * 
+	 * @param id       Entity id
+	 * @param readOnly Load the entity in {@link ReadOnlyMode}, the changes of it
+	 *                 are never written
+	 * @return T
+	 */
+	public T get(I id, boolean readOnly) {
+		return readOnly ? this.readOnly(() -> this.get(id)) : this.get(id);
+	}
+
 	public T create(T entity) {
 		T result = this.repository.save(entity);
+		this.invalidateCounts();
 		return result;
 	}
 
@@ -63,23 +115,65 @@ public class CrudService<T, I> {
 		return this.update(id, updatedEntity, null);
 	}
 	
-	public T update(I id, T updatedEntity, @Nullable Set<Field> editableFields) {
+	public T update(I id, T updatedEntity, @Nullable Set<FieldDescriptor> editableFields) {
 		T oldEntity = this.get(id);
 		if (oldEntity != null) {
 			// merge editable fields from updatedEntity to oldEntity
 			T newEntity = this.merge(oldEntity, updatedEntity, editableFields);
-			return this.repository.save(newEntity);
+			T result = this.repository.save(newEntity);
+			this.invalidateCounts();
+			return result;
 		}
 		return null;
 	}
 
+	/**
+	 * Update only the given editable fields, without loading the entity. Each
+	 * table with a given field is written by one UPDATE statement, the statement
+	 * of the root table increments the version. Has to be called in a
+	 * transaction.
+	 *
+	 * @param id      Entity id
+	 * @param values  New values by name of the editable field
+	 * @param version Version the client has read, e.g. of the If-Match header.
+	 *                Can be <tt>null</tt> to update every version
+	 * @return false if no entity with the id exists
+	 * @throws IllegalArgumentException if a field is not editable
+	 * @throws VersionConflictException if the entity has another version
+	 */
+	public boolean update(I id, Map<String, Object> values, @Nullable Long version) {
+		if (this.entityManager == null)
+			throw new IllegalStateException("Partial updates need the EntityManager of the CrudService");
+		PartialUpdate update = new PartialUpdate(this.entityManager, this.typeClass);
+		if (!update.execute(id, values, version)) {
+			Long currentVersion = version != null ? update.version(id) : null;
+			if (currentVersion != null)
+				throw new VersionConflictException(id, version, currentVersion);
+			return false;
+		}
+		this.invalidateCounts();
+		return true;
+	}
+
 	public void delete(I id) {
 		T entity = this.get(id);
 		if (entity != null) {
 			this.repository.delete(entity);
+			this.invalidateCounts();
 		}
 	}
 
+	private <R> R readOnly(Supplier<R> read) {
+		if (this.entityManager == null)
+			throw new IllegalStateException("Read-only reads need the EntityManager of the CrudService");
+		return ReadOnlyMode.execute(this.entityManager, read);
+	}
+
+	private void invalidateCounts() {
+		if (this.countCache != null)
+			this.countCache.invalidate(this.typeClass);
+	}
+
 	/**
 	 * Merge all properties which are annotated with Editable from newEntity to
 	 * oldEntity
@@ -91,17 +185,20 @@ public class CrudService<T, I> {
 	 *                       annotated with {@link Editable})
 	 * @return oldEntity object
 	 */
-	private T merge(T oldEntity, T newEntity, @Nullable Set<Field> editableFields) {
+	private T merge(T oldEntity, T newEntity, @Nullable Set<FieldDescriptor> editableFields) {
 		if (editableFields == null) {
-			AnnotationService annotationService = new AnnotationService(this.typeClass);
-			editableFields = annotationService.getFieldsWithAnnotation(Editable.class);
+			EntityMetadata metadata = EntityMetadata.of(this.typeClass);
+			// the generated descriptor merges without reflection
+			Optional<DatatableDescriptor<T>> descriptor = metadata.getDescriptor();
+			if (descriptor.isPresent())
+				return descriptor.get().merge(oldEntity, newEntity);
+			editableFields = metadata.getEditableFields();
 		}
-		for (Field field : editableFields) {
-			field.setAccessible(true);
+		for (FieldDescriptor field : editableFields) {
 			try {
 				field.set(oldEntity, field.get(newEntity));
-			} catch (IllegalArgumentException | IllegalAccessException e) {
-				throw new RuntimeException("Field " + field + " not found on class " + this.typeClass, e);
+			} catch (ClassCastException e) {
+				throw new RuntimeException("Field " + field + " could not be merged on class " + this.typeClass, e);
 			}
 		}
 		return oldEntity;
@@ -0,0 +1,67 @@
+package de.init.backend.datatable;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.lang.Nullable;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * {@link PageImpl} which carries additionally a cursor for the next page. The
+ * cursor can be passed to {@link PageRequestBuilder#cursor(String)} to select
+ * the next page via keyset pagination. For {@link CountMode#APPROXIMATE} the
+ * total can be an estimate, which is marked by {@link #isExactTotal()}.
+ *
+ * @param <T> Class type of the content
+ */
+public class DataTablePage<T> extends PageImpl<T> {
+
+	private static final long serialVersionUID = 1L;
+
+	private final boolean exactTotal;
+
+	private final String nextCursor;
+
+	public DataTablePage(List<T> content, Pageable pageable, long total, @Nullable String nextCursor) {
+		this(content, pageable, total, true, nextCursor);
+	}
+
+	public DataTablePage(List<T> content, Pageable pageable, long total, boolean exactTotal,
+			@Nullable String nextCursor) {
+		super(content, pageable, total);
+		this.exactTotal = exactTotal;
+		this.nextCursor = nextCursor;
+	}
+
+	/**
+	 * Whether the total amount of elements is exact or an estimate.
+	 *
+	 * @return boolean
+	 */
+	public boolean isExactTotal() {
+		return exactTotal;
+	}
+
+	/**
+	 * Opaque cursor for the next page or null if there is no next page or the
+	 * sorting does not support keyset pagination.
+	 *
+	 * @return String
+	 */
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	public String getNextCursor() {
+		return nextCursor;
+	}
+
+	@Override
+	public <U> DataTablePage<U> map(Function<? super T, ? extends U> converter) {
+		List<U> content = this.getContent().stream().map(converter).collect(Collectors.toList());
+		return new DataTablePage<>(content, this.getPageable(), this.getTotalElements(), this.exactTotal,
+				this.nextCursor);
+	}
+
+}
@@ -0,0 +1,43 @@
+package de.init.backend.datatable;
+
+import java.util.Collections;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+
+/**
+ * One row of a {@link Projection}, the values of the selected fields by name.
+ * It is serialized as flat object of the values, e.g.
+ * <tt>{"id":1,"username":"adam"}</tt>.
+ */
+public final class DataTableRow {
+
+	private final Map<String, Object> values;
+
+	DataTableRow(Map<String, Object> values) {
+		this.values = Collections.unmodifiableMap(values);
+	}
+
+	/**
+	 * @param field name of the field
+	 * @return value of the field, null if the value is null or the field is not
+	 *         selected
+	 */
+	public Object get(String field) {
+		return this.values.get(field);
+	}
+
+	/**
+	 * @return values by field name in the order of the projection
+	 */
+	@JsonAnyGetter
+	public Map<String, Object> getValues() {
+		return this.values;
+	}
+
+	@Override
+	public String toString() {
+		return "DataTableRow" + this.values;
+	}
+
+}
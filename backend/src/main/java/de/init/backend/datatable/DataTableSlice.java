@@ -0,0 +1,55 @@
+package de.init.backend.datatable;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.lang.Nullable;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * {@link SliceImpl} without total amount of elements, which carries
+ * additionally a cursor for the next slice. Created by {@link PageService} for
+ * {@link CountMode#NONE}.
+ *
+ * @param <T> Class type of the content
+ */
+public class DataTableSlice<T> extends SliceImpl<T> {
+
+	private static final long serialVersionUID = 1L;
+
+	private final String nextCursor;
+
+	public DataTableSlice(List<T> content, Pageable pageable, boolean hasNext, @Nullable String nextCursor) {
+		super(content, pageable, hasNext);
+		this.nextCursor = nextCursor;
+	}
+
+	@Override
+	@JsonProperty("hasNext")
+	public boolean hasNext() {
+		return super.hasNext();
+	}
+
+	/**
+	 * Opaque cursor for the next slice or null if there is no next slice or the
+	 * sorting does not support keyset pagination.
+	 *
+	 * @return String
+	 */
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	public String getNextCursor() {
+		return nextCursor;
+	}
+
+	@Override
+	public <U> DataTableSlice<U> map(Function<? super T, ? extends U> converter) {
+		List<U> content = this.getContent().stream().map(converter).collect(Collectors.toList());
+		return new DataTableSlice<>(content, this.getPageable(), this.hasNext(), this.nextCursor);
+	}
+
+}
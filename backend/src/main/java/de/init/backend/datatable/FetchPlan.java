@@ -0,0 +1,110 @@
+package de.init.backend.datatable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceUnitUtil;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.EntityType;
+
+/**
+ * Lazy associations which are loaded for all elements of a page at once. After
+ * the content query, every association of the plan is initialized with one
+ * <tt>JOIN FETCH</tt> query over the ids of the page. This avoids a query per
+ * element as well as the in memory pagination of a collection fetch join in the
+ * paged query. The count query is not affected.
+ *
+ * The fetched associations are attached to the elements of the page in the
+ * current persistence context, so the page has to be loaded and used in one
+ * transaction.
+ */
+public final class FetchPlan {
+
+	/** plan without associations */
+	public static final FetchPlan NONE = new FetchPlan(Collections.emptyList());
+
+	/** max amount of ids in one IN list, Oracle supports up to 1000 */
+	private static final int MAX_IDS = 1000;
+
+	private final List<String> attributes;
+
+	private FetchPlan(List<String> attributes) {
+		this.attributes = attributes;
+	}
+
+	/**
+	 * @param attributes names of the associations of the entity
+	 * @return plan fetching the associations
+	 */
+	public static FetchPlan of(String... attributes) {
+		return new FetchPlan(Collections.unmodifiableList(Arrays.asList(attributes)));
+	}
+
+	/**
+	 * @return names of the fetched associations
+	 */
+	public List<String> getAttributes() {
+		return this.attributes;
+	}
+
+	/**
+	 * @return true if the plan fetches nothing
+	 */
+	public boolean isEmpty() {
+		return this.attributes.isEmpty();
+	}
+
+	/**
+	 * Initialize the associations of the plan for the given elements, e.g. of a
+	 * list which isn't loaded by the {@link PageService}. Elements which aren't
+	 * managed or have the association loaded already are skipped.
+	 *
+	 * @param entityManager EntityManager the elements were loaded with
+	 * @param typeClass     entity class
+	 * @param elements      elements of a page
+	 * @throws IllegalArgumentException if an attribute is no association of the
+	 *                                  entity
+	 */
+	public <T> void load(EntityManager entityManager, Class<T> typeClass, List<T> elements) {
+		if (this.isEmpty() || elements.isEmpty())
+			return;
+
+		EntityType<T> entityType = entityManager.getMetamodel().entity(typeClass);
+		String idName = entityType.getId(entityType.getIdType().getJavaType()).getName();
+		PersistenceUnitUtil util = entityManager.getEntityManagerFactory().getPersistenceUnitUtil();
+
+		for (String attributeName : this.attributes) {
+			Attribute<? super T, ?> attribute = entityType.getAttribute(attributeName);
+			if (!attribute.isAssociation() && !attribute.isCollection())
+				throw new IllegalArgumentException("Attribute '" + attributeName + "' of "
+						+ entityType.getName() + " is no association");
+
+			List<Object> ids = elements.stream()
+					.filter(element -> entityManager.contains(element) && !util.isLoaded(element, attributeName))
+					.map(util::getIdentifier).filter(Objects::nonNull).distinct().collect(Collectors.toList());
+			if (ids.isEmpty())
+				continue;
+
+			// the result is not needed, the fetched associations are attached to the managed
+			// elements of the persistence context
+			String query = "SELECT DISTINCT e FROM " + entityType.getName() + " e LEFT JOIN FETCH e." + attributeName
+					+ " WHERE e." + idName + " IN :ids";
+			for (int from = 0; from < ids.size(); from += MAX_IDS) {
+				List<Object> chunk = new ArrayList<>(ids.subList(from, Math.min(from + MAX_IDS, ids.size())));
+				entityManager.createQuery(query, typeClass).setParameter("ids", chunk)
+						.setHint("hibernate.query.passDistinctThrough", false).getResultList();
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "FetchPlan" + this.attributes;
+	}
+
+}
@@ -0,0 +1,121 @@
+package de.init.backend.datatable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.springframework.lang.NonNull;
+
+import com.google.common.hash.Hashing;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+/**
+ * Opaque cursor for keyset (seek) pagination. It remembers the sort value and
+ * the id of the last row of a page, so the next page can be selected with a
+ * <tt>WHERE (sortCol, id) > (?, ?)</tt> seek instead of an <tt>OFFSET</tt>.
+ *
+ * The cursor is serialized as url safe Base64 encoded JSON, the client has to
+ * treat it as an opaque string. It is bound to the page size and to a hash of
+ * the normalized filter key of the page it was created for, a cursor of
+ * another size or filter is not used.
+ */
+class KeysetCursor {
+
+	private static final Gson GSON = new Gson();
+
+	/** sort column the cursor was created for */
+	private String sortBy;
+	/** sort direction the cursor was created for */
+	private boolean ascending;
+	/** page index of the page the cursor was created from */
+	private int page;
+	/** page size of the page the cursor was created from */
+	private int size;
+	/** hash of the filter key of the page the cursor was created from */
+	private String filter;
+	/** sort value of the last row */
+	private String value;
+	/** id of the last row as tiebreaker */
+	private String id;
+
+	KeysetCursor(String sortBy, boolean ascending, int page, int size, @NonNull String filterKey, String value,
+			String id) {
+		this.sortBy = sortBy;
+		this.ascending = ascending;
+		this.page = page;
+		this.size = size;
+		this.filter = hash(filterKey);
+		this.value = value;
+		this.id = id;
+	}
+
+	/**
+	 * Decode a cursor string created by {@link #encode()}.
+	 *
+	 * @param cursor encoded cursor
+	 * @return KeysetCursor
+	 * @throws IllegalArgumentException if the cursor could not be decoded
+	 */
+	static KeysetCursor decode(@NonNull String cursor) {
+		try {
+			String json = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+			KeysetCursor keysetCursor = GSON.fromJson(json, KeysetCursor.class);
+			if (keysetCursor == null || keysetCursor.sortBy == null || keysetCursor.id == null)
+				throw new IllegalArgumentException("Invalid page cursor");
+			return keysetCursor;
+		} catch (JsonParseException e) {
+			throw new IllegalArgumentException("Invalid page cursor", e);
+		}
+	}
+
+	/**
+	 * Encode this cursor to an url safe string.
+	 *
+	 * @return String
+	 */
+	String encode() {
+		byte[] json = GSON.toJson(this).getBytes(StandardCharsets.UTF_8);
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+	}
+
+	/**
+	 * Check if this cursor points to the page before the requested one with the
+	 * same ordering, page size and filters.
+	 *
+	 * @param sortBy    requested sort column
+	 * @param ascending requested sort direction
+	 * @param page      requested page index
+	 * @param size      requested page size
+	 * @param filterKey normalized filters of the requested page
+	 * @return true if the cursor can be used to seek the requested page
+	 */
+	boolean isFollowedBy(String sortBy, boolean ascending, int page, int size, @NonNull String filterKey) {
+		return this.sortBy.equals(sortBy) && this.ascending == ascending && this.page + 1 == page
+				&& this.size == size && hash(filterKey).equals(this.filter);
+	}
+
+	private static String hash(String filterKey) {
+		return Hashing.murmur3_128().hashString(filterKey, StandardCharsets.UTF_8).toString();
+	}
+
+	String getSortBy() {
+		return sortBy;
+	}
+
+	boolean isAscending() {
+		return ascending;
+	}
+
+	int getPage() {
+		return page;
+	}
+
+	String getValue() {
+		return value;
+	}
+
+	String getId() {
+		return id;
+	}
+
+}
@@ -1,13 +1,21 @@
 package de.init.backend.datatable;
 
+import cz.jirutka.rsql.parser.ast.AndNode;
+import cz.jirutka.rsql.parser.ast.Node;
+import cz.jirutka.rsql.parser.ast.OrNode;
+import de.init.backend.datatable.budget.QueryBudget;
+import de.init.backend.datatable.budget.QueryBudgetExceededException;
+import de.init.backend.datatable.metadata.FieldDescriptor;
 import de.init.backend.datatable.search.SearchService;
-import org.springframework.data.domain.Page;
+import de.init.backend.datatable.search.rsql.RsqlFormatter;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
 
 import javax.annotation.Nullable;
-import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -22,10 +30,36 @@ public class PageRequestBuilder<T, I> {
 
     private Pageable pageable = PageRequest.of(0, 10);
 
-    private Specification<T> specification;
+    /**
+     * Normalized RSQL form of the combined filters, used as key for cached counts. Is <tt>null</tt> as soon as a
+     * {@link Specification} of unknown origin is added.
+     */
+    private String filterKey = "";
+
+    /** parsed filters combined like the specifications, the filter key is formatted of it */
+    private Node filterNode;
 
     private Combiner combiner = Combiner.AND;
 
+    private String cursor;
+
+    private CountMode countMode = CountMode.EXACT;
+
+    private QueryBudget budget = QueryBudget.NONE;
+
+    private FetchPlan fetchPlan = FetchPlan.NONE;
+
+    private boolean readOnly = false;
+
+    /** parsed RSQL filters, scored against the budget */
+    private final List<Node> filters = new ArrayList<>();
+
+    /**
+     * all filters in the order they were added, the specifications of RSQL filters are only created after the budget
+     * check on {@link #execute()}
+     */
+    private final List<FilterPart<T>> parts = new ArrayList<>();
+
     PageRequestBuilder(PageService<T, I> pageService) {
         this.pageService = pageService;
     }
@@ -51,6 +85,96 @@ public class PageRequestBuilder<T, I> {
         return this;
     }
 
+    /**
+     * Uses the given cursor of the previous page to select the page via keyset pagination. The cursor is only used
+     * for the directly following page with the same sorting, page size and RSQL filters and if the page offset passed
+     * the keyset threshold of the {@link PageService}, otherwise the page is selected by offset. With a
+     * {@link Specification} filter the cursor is never used.
+     *
+     * @param cursor cursor returned with the previous {@link DataTablePage}, can be <tt>null</tt>
+     */
+    public PageRequestBuilder<T, I> cursor(@Nullable String cursor) {
+        this.cursor = cursor;
+        return this;
+    }
+
+    /**
+     * Defines how the total amount of elements is determined.
+     *
+     * @param countMode the count mode, default is {@link CountMode#EXACT}
+     */
+    public PageRequestBuilder<T, I> count(CountMode countMode) {
+        this.countMode = countMode;
+        return this;
+    }
+
+    /**
+     * Uses approximate totals for the page, see {@link CountMode#APPROXIMATE}.
+     */
+    public PageRequestBuilder<T, I> approximateTotal() {
+        return count(CountMode.APPROXIMATE);
+    }
+
+    /**
+     * Shortcut for {@link #count(CountMode)}. Without total the result is a {@link DataTableSlice}, which saves the
+     * count query.
+     *
+     * @param includeTotal true - {@link CountMode#EXACT}; false - {@link CountMode#NONE}
+     */
+    public PageRequestBuilder<T, I> includeTotal(boolean includeTotal) {
+        return count(includeTotal ? CountMode.EXACT : CountMode.NONE);
+    }
+
+    /**
+     * Limits the cost of the query. The RSQL filters and the page are scored on {@link #execute()}, before a query is
+     * created. Filters over budget are rejected, larger pages are downgraded to the max page size.
+     *
+     * @param budget the query budget, default is {@link QueryBudget#NONE}
+     */
+    public PageRequestBuilder<T, I> budget(QueryBudget budget) {
+        this.budget = budget;
+        return this;
+    }
+
+    /**
+     * Loads the given lazy associations for the whole page with one query per association, after the content and
+     * count queries. See {@link FetchPlan}.
+     *
+     * @param attributes names of the associations of the entity
+     */
+    public PageRequestBuilder<T, I> fetch(String... attributes) {
+        return fetch(FetchPlan.of(attributes));
+    }
+
+    /**
+     * Loads the associations of the given {@link FetchPlan} for the whole page.
+     *
+     * @param fetchPlan the fetch plan, default is {@link FetchPlan#NONE}
+     */
+    public PageRequestBuilder<T, I> fetch(FetchPlan fetchPlan) {
+        this.fetchPlan = fetchPlan;
+        return this;
+    }
+
+    /**
+     * Loads the page read-only: the entities get no dirty checking snapshot and changes of them are never written. In
+     * a read-only transaction the session is not flushed before the queries. Use it if the page is only mapped to
+     * DTOs. See {@link ReadOnlyMode}.
+     *
+     * @param readOnly true - read-only; false - managed entities, default
+     */
+    public PageRequestBuilder<T, I> readOnly(boolean readOnly) {
+        this.readOnly = readOnly;
+        return this;
+    }
+
+    /**
+     * Shortcut for {@link #readOnly(boolean)} with true.
+     */
+    public PageRequestBuilder<T, I> readOnly() {
+        return readOnly(true);
+    }
+
     /**
      * Combines the upcoming {@link Specification}s with logical AND
      */
@@ -73,18 +197,30 @@ public class PageRequestBuilder<T, I> {
      * @param newSpecification the specification to be added
      */
     public PageRequestBuilder<T, I> filter(Specification<T> newSpecification) {
+        // the origin of the specification is unknown, so the page can't be identified for cached counts
+        filterKey = null;
+        parts.add(new FilterPart<>(combiner, newSpecification, null));
+        return this;
+    }
 
-        if (specification == null) {
-            specification = newSpecification;
-        } else {
-
-            if (combiner == Combiner.AND) {
-                specification = specification.and(newSpecification);
+    /**
+     * Adds the given RSQL query depending on the chosen {@link Combiner} and remembers the query for the filter key.
+     * The query is only parsed, its {@link Specification} is created on {@link #execute()}.
+     */
+    private PageRequestBuilder<T, I> addRsql(String rsqlExpression) {
+        Node node = SearchService.parseRSQL(rsqlExpression);
+        filters.add(node);
+        if (filterKey != null) {
+            // the same filters in another order or notation get the same key
+            if (filterNode == null) {
+                filterNode = node;
             } else {
-                specification = specification.or(newSpecification);
+                filterNode = combiner == Combiner.AND ? new AndNode(List.of(filterNode, node))
+                        : new OrNode(List.of(filterNode, node));
             }
+            filterKey = RsqlFormatter.format(filterNode);
         }
-
+        parts.add(new FilterPart<>(combiner, null, rsqlExpression));
         return this;
     }
 
@@ -92,14 +228,11 @@ public class PageRequestBuilder<T, I> {
      * Creates a {@link Specification} that matches given string <i>search</i> on given fields <i>searchableFields</i>.
      *
      * @param search           Search string
-     * @param searchableFields Set of Field to search in
+     * @param searchableFields Set of fields to search in
      */
-    public PageRequestBuilder<T, I> filter(String search, @Nullable Set<Field> searchableFields) {
-        // create Specification on search value
+    public PageRequestBuilder<T, I> filter(String search, @Nullable Set<FieldDescriptor> searchableFields) {
         if (search != null && !search.isBlank()) {
-            String searchQuery = pageService.buildEntitySearchQuery(search, searchableFields);
-            return filter(SearchService.createSpecificationWithRSQL(searchQuery));
-
+            return addRsql(pageService.buildEntitySearchQuery(search, searchableFields));
         }
         return this;
     }
@@ -110,9 +243,8 @@ public class PageRequestBuilder<T, I> {
      * @param rsqlExpression RSQL expression used to create the {@link Specification}
      */
     public PageRequestBuilder<T, I> filter(String rsqlExpression) {
-        // create Specification on filter value
         if (rsqlExpression != null && !rsqlExpression.isBlank()) {
-            return filter(SearchService.createSpecificationWithRSQL(rsqlExpression));
+            return addRsql(rsqlExpression);
         }
         return this;
     }
@@ -120,10 +252,70 @@ public class PageRequestBuilder<T, I> {
     /**
      * Executes the configured query of page and specification on the repository.
      *
-     * @return the selected page
+     * @return the selected page, a {@link DataTablePage} or a {@link DataTableSlice} for {@link CountMode#NONE}
+     * @throws QueryBudgetExceededException if the filters are over the budget
      */
-    public Page<T> execute() {
-        return pageService.getPage(specification, pageable);
+    public Slice<T> execute() {
+        Pageable checked = pageService.checkBudget(budget, filters, pageable);
+        return pageService.getPage(combinedSpecification(), filterKey, checked, cursor, countMode, fetchPlan, readOnly);
+    }
+
+    /**
+     * Executes the configured query like {@link #execute()}, but selects only the fields of the {@link Projection}.
+     * The fetch plan is not used, no entity is loaded.
+     *
+     * @param projection the selected fields
+     * @return the selected page of rows, a {@link DataTablePage} or a {@link DataTableSlice} for
+     * {@link CountMode#NONE}
+     * @throws QueryBudgetExceededException if the filters are over the budget
+     */
+    public Slice<DataTableRow> execute(Projection projection) {
+        Pageable checked = pageService.checkBudget(budget, filters, pageable);
+        return pageService.getPage(combinedSpecification(), filterKey, checked, cursor, countMode, projection,
+                readOnly);
+    }
+
+    /**
+     * Creates the specifications of the filters, after the budget was checked.
+     */
+    private Specification<T> combinedSpecification() {
+        // filters of RSQL only are combined in one query, so the optimizer can flatten them into one predicate
+        if (filters.size() > 1 && filterKey != null) {
+            return pageService.createSpecification(filterKey);
+        }
+
+        Specification<T> specification = null;
+        for (FilterPart<T> part : parts) {
+            Specification<T> next = part.specification != null ? part.specification
+                    : pageService.createSpecification(part.rsqlExpression);
+            if (specification == null) {
+                specification = next;
+            } else if (part.combiner == Combiner.AND) {
+                specification = specification.and(next);
+            } else {
+                specification = specification.or(next);
+            }
+        }
+        return specification;
+    }
+
+    /**
+     * A filter with the combiner chosen when it was added, either a {@link Specification} or a RSQL query.
+     */
+    private static final class FilterPart<T> {
+
+        private final Combiner combiner;
+
+        private final Specification<T> specification;
+
+        private final String rsqlExpression;
+
+        private FilterPart(Combiner combiner, @Nullable Specification<T> specification,
+                @Nullable String rsqlExpression) {
+            this.combiner = combiner;
+            this.specification = specification;
+            this.rsqlExpression = rsqlExpression;
+        }
     }
 
     /**
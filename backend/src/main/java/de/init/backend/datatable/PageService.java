@@ -1,24 +1,50 @@
 package de.init.backend.datatable;
 
 import java.lang.reflect.Field;
+import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.Set;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
 
 import javax.annotation.Nullable;
-import javax.persistence.Id;
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.lang.NonNull;
 
-import de.init.backend.datatable.annotation.AnnotationService;
-import de.init.backend.datatable.annotation.Searchable;
+import cz.jirutka.rsql.parser.ast.Node;
+import de.init.backend.datatable.annotation.Editable;
+import de.init.backend.datatable.budget.QueryBudget;
+import de.init.backend.datatable.budget.QueryBudgetExceededException;
+import de.init.backend.datatable.metadata.EntityMetadata;
+import de.init.backend.datatable.metadata.FieldDescriptor;
 import de.init.backend.datatable.search.SearchParser;
 import de.init.backend.datatable.search.SearchService;
+import de.init.backend.datatable.search.rsql.InListStrategy;
 
 /**
  * This class could not be annotated created to a bean, because the repository
@@ -30,24 +56,149 @@ public class PageService<T, I> {
 
 	private final DataTableRepository<T, I> repository;
 
-	private final String idField;
+	private final Class<T> typeClass;
 
-	private final AnnotationService annotationService;
+	private final EntityManager entityManager;
+
+	private final FieldDescriptor idField;
+
+	private final EntityMetadata metadata;
+
+	/**
+	 * Offset from which on a given page cursor is used to seek the page instead of
+	 * skipping the rows.
+	 */
+	private long keysetThreshold = 0;
+
+	/**
+	 * Select the total with <tt>COUNT(*) OVER ()</tt> in the content query instead
+	 * of a separate count query.
+	 */
+	private boolean windowCount = false;
+
+	/** cache of counts for {@link CountMode#APPROXIMATE}, can be null */
+	private CountCache countCache;
+
+	/** lazy created statistics reader of the entity table */
+	private TableStatistics tableStatistics;
+
+	/** max amount of ids written by one statement of a bulk operation */
+	private int bulkChunkSize = 1000;
+
+	/** max amount of elements a bulk operation may change, -1 is unlimited */
+	private long bulkMaxRows = QueryBudget.UNLIMITED;
+
+	/** fields which only a bulk update can change, besides the editable ones */
+	private Set<String> bulkEditableFields = Set.of();
+
+	/** creates the predicates of RSQL IN lists */
+	private InListStrategy inListStrategy = InListStrategy.DEFAULT;
 
 	/**
 	 * Create PageService instance.
 	 *
-	 * @param repository The repository to work on
+	 * @param repository    The repository to work on
+	 * @param typeClass     The entity class
+	 * @param entityManager EntityManager to create custom queries with
 	 */
-	public PageService(DataTableRepository<T, I> repository, Class<T> typeClass) {
+	public PageService(DataTableRepository<T, I> repository, Class<T> typeClass, EntityManager entityManager) {
 		this.repository = repository;
-		this.annotationService = new AnnotationService(typeClass);
+		this.typeClass = typeClass;
+		this.entityManager = entityManager;
+		this.metadata = EntityMetadata.of(typeClass);
+		this.idField = this.metadata.getIdField();
+	}
 
-		Set<Field> idFields = annotationService.getFieldsWithAnnotation(Id.class);
-		if (idFields.size() != 1) {
-			throw new IllegalArgumentException("Entity must have one ID field");
-		}
-		idField = idFields.iterator().next().getName();
+	/**
+	 * Set the offset from which on a page cursor is used to seek the next page
+	 * (keyset pagination) instead of an OFFSET query. Smaller offsets are cheap
+	 * enough and stay on offset pagination.
+	 *
+	 * @param keysetThreshold row offset, 0 uses the cursor always if given
+	 */
+	public void setKeysetThreshold(long keysetThreshold) {
+		this.keysetThreshold = keysetThreshold;
+	}
+
+	/**
+	 * Select the total amount of elements with the window function
+	 * <tt>COUNT(*) OVER ()</tt> together with the content in one round trip. The
+	 * function has to be registered by {@link WindowCountFunctionContributor} and
+	 * supported by the database.
+	 *
+	 * @param windowCount true - one query with window count; false - separate
+	 *                    count query
+	 */
+	public void setWindowCount(boolean windowCount) {
+		this.windowCount = windowCount;
+	}
+
+	/**
+	 * Set the cache for counts of {@link CountMode#APPROXIMATE} pages. Without a
+	 * cache approximate pages are counted exactly.
+	 *
+	 * @param countCache shared count cache
+	 */
+	public void setCountCache(CountCache countCache) {
+		this.countCache = countCache;
+	}
+
+	/**
+	 * Set the strategy for the IN lists of RSQL filters, e.g. the configured bean
+	 * which joins long lists through a temp table.
+	 *
+	 * @param inListStrategy IN list strategy, default is
+	 *                       {@link InListStrategy#DEFAULT}
+	 */
+	public void setInListStrategy(InListStrategy inListStrategy) {
+		this.inListStrategy = inListStrategy;
+	}
+
+	/**
+	 * Set the max amount of ids of one chunk of a bulk operation. Each chunk is
+	 * selected and written by its own statements.
+	 *
+	 * @param bulkChunkSize ids per chunk
+	 */
+	public void setBulkChunkSize(int bulkChunkSize) {
+		if (bulkChunkSize < 1)
+			throw new IllegalArgumentException("Bulk chunk size must be positive");
+		this.bulkChunkSize = bulkChunkSize;
+	}
+
+	/**
+	 * Set the max amount of elements a bulk operation may change. Operations with
+	 * more matching elements are rejected.
+	 *
+	 * @param bulkMaxRows max rows, {@link QueryBudget#UNLIMITED} for no limit
+	 */
+	public void setBulkMaxRows(long bulkMaxRows) {
+		this.bulkMaxRows = bulkMaxRows;
+	}
+
+	/**
+	 * Set the fields a bulk update can change in addition to the {@link Editable}
+	 * fields. Unlike {@link Editable} fields, they are not merged by
+	 * {@link CrudService#update(Object, Object)}, so an entity with a default
+	 * value doesn't overwrite them.
+	 *
+	 * @param bulkEditableFields names of the fields, default is none
+	 */
+	public void setBulkEditableFields(Set<String> bulkEditableFields) {
+		this.bulkEditableFields = Set.copyOf(bulkEditableFields);
+	}
+
+	/**
+	 * Score the parsed filters and the page request against the budget.
+	 *
+	 * @param budget   the query budget
+	 * @param filters  parsed RSQL filters
+	 * @param pageable requested page
+	 * @return the page request, downgraded to the max page size of the budget
+	 * @throws QueryBudgetExceededException if the filters are over budget
+	 */
+	Pageable checkBudget(QueryBudget budget, Collection<Node> filters, Pageable pageable) {
+		return budget.check(this.entityManager.getMetamodel(), this.typeClass, filters, pageable);
 	}
 
 	/**
@@ -59,6 +210,87 @@ public class PageService<T, I> {
 		return new PageRequestBuilder<>(this);
 	}
 
+	/**
+	 * Creates a new {@link BulkRequestBuilder} to update or delete all elements
+	 * matching a filter.
+	 *
+	 * @return a new instance of bulk request builder
+	 */
+	public BulkRequestBuilder<T, I> bulk() {
+		return new BulkRequestBuilder<>(this, this.bulkMaxRows);
+	}
+
+	/**
+	 * Apply the values to all elements matching the specification, see
+	 * {@link BulkRequestBuilder#update(Map)}.
+	 */
+	long updateAll(Specification<T> specification, Map<String, Object> values, long maxRows, boolean dryRun) {
+		PartialUpdate update = new PartialUpdate(this.entityManager, this.typeClass, this.bulkEditableFields);
+		Map<String, Object> checked = update.check(values);
+		return this.bulk(specification, maxRows, dryRun, ids -> update.execute(ids, checked, null));
+	}
+
+	/**
+	 * Delete all elements matching the specification, see
+	 * {@link BulkRequestBuilder#delete()}.
+	 */
+	long deleteAll(Specification<T> specification, long maxRows, boolean dryRun) {
+		BulkDelete delete = new BulkDelete(this.entityManager, this.typeClass);
+		return this.bulk(specification, maxRows, dryRun, delete::execute);
+	}
+
+	private long bulk(Specification<T> specification, long maxRows, boolean dryRun,
+			ToIntFunction<List<Object>> statements) {
+		long count = this.repository.count(specification);
+		if (maxRows != QueryBudget.UNLIMITED && count > maxRows)
+			throw new QueryBudgetExceededException(List.of("rows: " + count + " > " + maxRows));
+		if (dryRun)
+			return count;
+
+		// the chunks are seeked by id, so a written chunk doesn't shift the next one.
+		// Elements matching after the count are changed up to the max rows.
+		long limit = maxRows == QueryBudget.UNLIMITED ? Long.MAX_VALUE : maxRows;
+		long selected = 0;
+		long affected = 0;
+		List<Object> ids;
+		int size;
+		Object last = null;
+		do {
+			size = (int) Math.min(this.bulkChunkSize, limit - selected);
+			ids = this.findIds(specification, last, size);
+			if (ids.isEmpty())
+				break;
+			affected += statements.applyAsInt(ids);
+			selected += ids.size();
+			last = ids.get(ids.size() - 1);
+		} while (ids.size() == size && selected < limit);
+
+		if (this.countCache != null)
+			this.countCache.invalidate(this.typeClass);
+		return affected;
+	}
+
+	/**
+	 * Select the next chunk of ids of the matching elements in ascending order.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private List<Object> findIds(Specification<T> specification, @Nullable Object after, int limit) {
+		CriteriaBuilder builder = this.entityManager.getCriteriaBuilder();
+		CriteriaQuery<Object> query = builder.createQuery(Object.class);
+		Root<T> root = query.from(this.typeClass);
+		Path<Comparable> id = root.get(this.idField.getName());
+
+		List<Predicate> predicates = new ArrayList<>();
+		Predicate predicate = specification.toPredicate(root, query, builder);
+		if (predicate != null)
+			predicates.add(predicate);
+		if (after != null)
+			predicates.add(builder.greaterThan(id, (Comparable) after));
+		// joined collections of the filter would repeat the ids
+		query.select(id).distinct(true).where(predicates.toArray(new Predicate[0])).orderBy(builder.asc(id));
+		return this.entityManager.createQuery(query).setMaxResults(limit).getResultList();
+	}
+
 	/**
 	 * Return a simple page object on T.
 	 *
@@ -91,7 +323,159 @@ public class PageService<T, I> {
 	}
 
 	Page<T> getPage(Specification<T> specification, Pageable pageable) {
-		return this.repository.findAll(specification, pageable);
+		return (Page<T>) this.getPage(specification, null, pageable, null, CountMode.EXACT, FetchPlan.NONE, false);
+	}
+
+	/**
+	 * Return a page object on T. Depending on the {@link CountMode} the result is
+	 * a {@link DataTablePage} with total amount of elements or a
+	 * {@link DataTableSlice} which knows only if there is a next slice. The
+	 * {@link CountMode#NONE} saves the count query completely by fetching one more
+	 * row than requested. The {@link CountMode#APPROXIMATE} uses counts of the
+	 * {@link CountCache} for the filter key or the table statistics for unfiltered
+	 * queries.
+	 *
+	 * @param specification Filter specification, can be <tt>null</tt>
+	 * @param filterKey     Normalized filter the specification was created of,
+	 *                      empty for no filter or <tt>null</tt> if unknown
+	 * @param pageable      Page request
+	 * @param cursor        Cursor of the previous page, can be <tt>null</tt>
+	 * @param countMode     Defines how the total is determined
+	 * @param fetchPlan     Associations loaded for the whole page
+	 * @param readOnly      Load the page in {@link ReadOnlyMode}
+	 * @return DataTablePage<T> or DataTableSlice<T>
+	 */
+	Slice<T> getPage(@Nullable Specification<T> specification, @Nullable String filterKey, Pageable pageable,
+			@Nullable String cursor, CountMode countMode, FetchPlan fetchPlan, boolean readOnly) {
+		return this.getRows(specification, filterKey, pageable, cursor, countMode,
+				new EntityRows(fetchPlan, readOnly));
+	}
+
+	/**
+	 * Return a page of the sparse fieldset of the projection. Like
+	 * {@link #getPage(Specification, String, Pageable, String, CountMode, FetchPlan, boolean)}
+	 * but only the columns of the selected fields are queried, no entity is
+	 * loaded. The next cursor is only created if the sort field is selected.
+	 *
+	 * @param specification Filter specification, can be <tt>null</tt>
+	 * @param filterKey     Normalized filter the specification was created of,
+	 *                      empty for no filter or <tt>null</tt> if unknown
+	 * @param pageable      Page request
+	 * @param cursor        Cursor of the previous page, can be <tt>null</tt>
+	 * @param countMode     Defines how the total is determined
+	 * @param projection    Selected fields
+	 * @param readOnly      Load the page in {@link ReadOnlyMode}
+	 * @return DataTablePage<DataTableRow> or DataTableSlice<DataTableRow>
+	 */
+	Slice<DataTableRow> getPage(@Nullable Specification<T> specification, @Nullable String filterKey,
+			Pageable pageable, @Nullable String cursor, CountMode countMode, Projection projection,
+			boolean readOnly) {
+		return this.getRows(specification, filterKey, pageable, cursor, countMode,
+				new ProjectionRows(projection, readOnly));
+	}
+
+	private <R> Slice<R> getRows(@Nullable Specification<T> specification, @Nullable String filterKey,
+			Pageable pageable, @Nullable String cursor, CountMode countMode, RowSelection<R> selection) {
+		if (selection.readOnly)
+			return ReadOnlyMode.execute(this.entityManager, () -> this.findRows(specification, filterKey, pageable,
+					cursor, countMode, selection));
+		return this.findRows(specification, filterKey, pageable, cursor, countMode, selection);
+	}
+
+	private <R> Slice<R> findRows(@Nullable Specification<T> specification, @Nullable String filterKey,
+			Pageable pageable, @Nullable String cursor, CountMode countMode, RowSelection<R> selection) {
+		Optional<FieldDescriptor> keysetField = this.getKeysetField(pageable);
+		KeysetCursor keysetCursor = keysetField.map(field -> this.resolveCursor(cursor, field, pageable, filterKey))
+				.orElse(null);
+
+		// select the content by seeking behind the last row of the previous page or by
+		// offset
+		Specification<T> contentSpecification = specification;
+		long offset = pageable.getOffset();
+		if (keysetCursor != null) {
+			Specification<T> seek = this.createSeekSpecification(keysetField.get(), keysetCursor);
+			contentSpecification = Specification.where(specification).and(seek);
+			offset = 0;
+		}
+
+		if (countMode == CountMode.NONE) {
+			// fetch one more row to find out if there is a next slice
+			List<R> rows = this.findContent(selection, contentSpecification, pageable.getSort(), offset,
+					pageable.getPageSize() + 1);
+			boolean hasNext = rows.size() > pageable.getPageSize();
+			List<R> content = hasNext ? new ArrayList<>(rows.subList(0, pageable.getPageSize())) : rows;
+			selection.load(content);
+			String nextCursor = this.createCursor(selection, keysetField, pageable, filterKey, content, hasNext);
+			return new DataTableSlice<>(content, pageable, hasNext, nextCursor);
+		}
+
+		List<R> content;
+		long total;
+		boolean exactTotal = true;
+		if (countMode == CountMode.APPROXIMATE) {
+			content = this.findContent(selection, contentSpecification, pageable.getSort(), offset,
+					pageable.getPageSize());
+			if (content.size() < pageable.getPageSize() && (!content.isEmpty() || pageable.getOffset() == 0)) {
+				// the last page knows the exact total on its own
+				total = pageable.getOffset() + content.size();
+			} else {
+				Long approximateTotal = this.getApproximateCount(filterKey);
+				exactTotal = approximateTotal == null;
+				total = exactTotal ? this.count(specification, filterKey) : approximateTotal;
+				// a cached count could be outdated and smaller than the rows seen so far
+				total = Math.max(total, pageable.getOffset() + content.size());
+			}
+		} else if (keysetCursor != null) {
+			content = this.findContent(selection, contentSpecification, pageable.getSort(), offset,
+					pageable.getPageSize());
+			total = this.count(specification, filterKey);
+		} else {
+			Page<R> page = this.windowCount ? this.findPageWithWindowCount(selection, specification, pageable)
+					: selection.findPage(specification, pageable);
+			content = page.getContent();
+			total = page.getTotalElements();
+			if (this.countCache != null && filterKey != null)
+				this.countCache.put(this.typeClass, filterKey, total);
+		}
+
+		selection.load(content);
+		boolean hasNext = pageable.getOffset() + content.size() < total;
+		String nextCursor = this.createCursor(selection, keysetField, pageable, filterKey, content, hasNext);
+		return new DataTablePage<>(content, pageable, total, exactTotal, nextCursor);
+	}
+
+	/**
+	 * Count the matching elements exactly and remember the count for approximate
+	 * pages.
+	 */
+	private long count(@Nullable Specification<T> specification, @Nullable String filterKey) {
+		long count = this.repository.count(specification);
+		if (this.countCache != null && filterKey != null)
+			this.countCache.put(this.typeClass, filterKey, count);
+		return count;
+	}
+
+	/**
+	 * Return the cached count for the filter or the estimate of the database
+	 * statistics for unfiltered queries.
+	 *
+	 * @return approximate count or null if there is none
+	 */
+	private Long getApproximateCount(@Nullable String filterKey) {
+		if (this.countCache == null || filterKey == null)
+			return null;
+
+		Long count = this.countCache.get(this.typeClass, filterKey);
+		if (count == null && filterKey.isEmpty()) {
+			if (this.tableStatistics == null)
+				this.tableStatistics = new TableStatistics(this.entityManager, this.typeClass);
+			OptionalLong estimate = this.tableStatistics.estimateRowCount();
+			if (estimate.isPresent()) {
+				count = estimate.getAsLong();
+				this.countCache.put(this.typeClass, filterKey, count);
+			}
+		}
+		return count;
 	}
 
 	/**
@@ -104,11 +488,11 @@ public class PageService<T, I> {
 	 * @param ascending        ASC - true or DESC - false
 	 * @param search           Search query string
 	 * @param filter           RSQL query string
-	 * @param searchableFields Set of Field to search in
+	 * @param searchableFields Set of fields to search in
 	 * @return Page<T>
 	 */
 	public Page<T> getPage(int page, int size, String sortBy, Boolean ascending, String search, String filter,
-			@Nullable Set<Field> searchableFields) {
+			@Nullable Set<FieldDescriptor> searchableFields) {
 		// create pageable object by page properties
 		PageRequest pageable = this.buildPageRequest(page, size, sortBy, ascending);
 
@@ -116,13 +500,13 @@ public class PageService<T, I> {
 		// create Specification on serach value
 		if (search != null && !search.isBlank()) {
 			String searchQuery = this.buildEntitySearchQuery(search, searchableFields);
-			searchSpecification = SearchService.createSpecificationWithRSQL(searchQuery);
+			searchSpecification = this.createSpecification(searchQuery);
 		}
 
 		Specification<T> filterSpecification = null;
 		// create Specification on filter value
 		if (filter != null && !filter.isBlank()) {
-			filterSpecification = SearchService.createSpecificationWithRSQL(filter);
+			filterSpecification = this.createSpecification(filter);
 		}
 
 		Specification<T> spec = Specification.where(searchSpecification).and(filterSpecification);
@@ -143,13 +527,53 @@ public class PageService<T, I> {
 	 * Return a list of elements which fits to the query.
 	 *
 	 * @param search           Search query string for search service
-	 * @param searchableFields Set of Field to search in
+	 * @param searchableFields Set of fields to search in
+	 * @return List of T
+	 */
+	public List<T> search(String search, @Nullable Set<FieldDescriptor> searchableFields) {
+		return this.search(search, searchableFields, false);
+	}
+
+	/**
+	 * Return a list of elements which fits to the query.
+	 *
+	 * @param search           Search query string for search service
+	 * @param searchableFields Set of fields to search in
+	 * @param readOnly         Load the elements in {@link ReadOnlyMode}
 	 * @return List of T
 	 */
-	public List<T> search(String search, @Nullable Set<Field> searchableFields) {
+	public List<T> search(String search, @Nullable Set<FieldDescriptor> searchableFields, boolean readOnly) {
+		String searchQuery = this.buildEntitySearchQuery(search, searchableFields);
+		Specification<T> spec = this.createSpecification(searchQuery);
+		return readOnly ? ReadOnlyMode.execute(this.entityManager, () -> this.repository.findAll(spec))
+				: this.repository.findAll(spec);
+	}
+
+	/**
+	 * Return the sparse fieldset of all elements which fit to the query.
+	 *
+	 * @param search           Search query string for search service
+	 * @param searchableFields Set of fields to search in
+	 * @param projection       Selected fields
+	 * @return List of DataTableRow
+	 */
+	public List<DataTableRow> search(String search, @Nullable Set<FieldDescriptor> searchableFields,
+			Projection projection) {
 		String searchQuery = this.buildEntitySearchQuery(search, searchableFields);
-		Specification<T> spec = SearchService.createSpecificationWithRSQL(searchQuery);
-		return this.repository.findAll(spec);
+		Specification<T> spec = this.createSpecification(searchQuery);
+		return this.createContentQuery(new ProjectionRows(projection, false), spec, Sort.unsorted()).getResultList()
+				.stream().map(row -> this.toRow(projection, row)).collect(Collectors.toList());
+	}
+
+	/**
+	 * Create the specification of the RSQL query with the IN list strategy of
+	 * this service.
+	 *
+	 * @param query RSQL expression
+	 * @return Specification
+	 */
+	Specification<T> createSpecification(String query) {
+		return SearchService.createSpecificationWithRSQL(query, this.inListStrategy, this.typeClass);
 	}
 
 	/**
@@ -164,12 +588,12 @@ public class PageService<T, I> {
 	PageRequest buildPageRequest(int page, int size, String sortBy, Boolean ascending) {
 		Sort sort = null;
 		// check if sortby field exists 
-		if (!sortBy.isEmpty() && this.annotationService.getFieldWithName(sortBy).isPresent()) {
+		if (!sortBy.isEmpty() && this.metadata.getSortableField(sortBy).isPresent()) {
 			// create sort if set
 			// NOTE: For OracleDB a unique field needs to be specified when sorting
 			// otherwise paging via Spring Pagable does not work in all cases. So we add the
 			// id field here:
-			sort = Sort.by(sortBy, idField);
+			sort = Sort.by(sortBy, idField.getName());
 			// add ordering
 			sort = Boolean.TRUE.equals(ascending) ? sort.ascending() : sort.descending();
 		}
@@ -177,6 +601,210 @@ public class PageService<T, I> {
 		return sort != null ? PageRequest.of(page, size, sort) : PageRequest.of(page, size);
 	}
 
+	/**
+	 * Execute a content query without count query.
+	 *
+	 * @param selection     Selected rows
+	 * @param specification Filter specification
+	 * @param sort          Sort of the query
+	 * @param offset        First row
+	 * @param limit         Max amount of rows
+	 * @return List of rows
+	 */
+	private <R> List<R> findContent(RowSelection<R> selection, @Nullable Specification<T> specification, Sort sort,
+			long offset, int limit) {
+		TypedQuery<Tuple> typedQuery = this.createContentQuery(selection, specification, sort);
+		typedQuery.setFirstResult(Math.toIntExact(offset));
+		typedQuery.setMaxResults(limit);
+		return typedQuery.getResultList().stream().map(selection::map).collect(Collectors.toList());
+	}
+
+	private TypedQuery<Tuple> createContentQuery(RowSelection<?> selection, @Nullable Specification<T> specification,
+			Sort sort) {
+		CriteriaBuilder builder = this.entityManager.getCriteriaBuilder();
+		CriteriaQuery<Tuple> query = builder.createTupleQuery();
+		Root<T> root = query.from(this.typeClass);
+		Predicate predicate = specification != null ? specification.toPredicate(root, query, builder) : null;
+		if (predicate != null)
+			query.where(predicate);
+		query.multiselect(selection.select(root));
+		if (sort.isSorted())
+			query.orderBy(QueryUtils.toOrders(sort, root, builder));
+		TypedQuery<Tuple> typedQuery = this.entityManager.createQuery(query);
+		if (selection.readOnly)
+			ReadOnlyMode.hint(typedQuery);
+		return typedQuery;
+	}
+
+	/**
+	 * Execute a content query which selects the total amount of matching rows with
+	 * <tt>COUNT(*) OVER ()</tt> in every row. Only if the page is behind the last
+	 * row, a separate count query is needed.
+	 *
+	 * @param selection     Selected rows
+	 * @param specification Filter specification
+	 * @param pageable      Page request
+	 * @return Page of rows
+	 */
+	private <R> Page<R> findPageWithWindowCount(RowSelection<R> selection, @Nullable Specification<T> specification,
+			Pageable pageable) {
+		CriteriaBuilder builder = this.entityManager.getCriteriaBuilder();
+		CriteriaQuery<Tuple> query = builder.createTupleQuery();
+		Root<T> root = query.from(this.typeClass);
+		Predicate predicate = specification != null ? specification.toPredicate(root, query, builder) : null;
+		if (predicate != null)
+			query.where(predicate);
+		// the window function is evaluated before DISTINCT and would count duplicates
+		if (query.isDistinct())
+			return selection.findPage(specification, pageable);
+
+		List<Selection<?>> selections = new ArrayList<>(selection.select(root));
+		int countIndex = selections.size();
+		selections.add(builder.function(WindowCountFunctionContributor.COUNT_OVER, Long.class));
+		query.multiselect(selections);
+		if (pageable.getSort().isSorted())
+			query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, builder));
+
+		TypedQuery<Tuple> typedQuery = this.entityManager.createQuery(query);
+		if (selection.readOnly)
+			ReadOnlyMode.hint(typedQuery);
+		typedQuery.setFirstResult(Math.toIntExact(pageable.getOffset()));
+		typedQuery.setMaxResults(pageable.getPageSize());
+		List<Tuple> rows = typedQuery.getResultList();
+
+		List<R> content = rows.stream().map(selection::map).collect(Collectors.toList());
+		long total;
+		if (!rows.isEmpty())
+			total = ((Number) rows.get(0).get(countIndex)).longValue();
+		else if (pageable.getOffset() == 0)
+			total = 0;
+		else
+			// no row carries the total if the page is behind the last row
+			total = this.repository.count(specification);
+		return new PageImpl<>(content, pageable, total);
+	}
+
+	/**
+	 * Return the sort field if the page is sorted in a way which supports keyset
+	 * pagination. This is the case if the page is sorted by one not nullable field
+	 * and the id as tiebreaker like it is created by {@link #buildPageRequest}.
+	 *
+	 * @param pageable Page request
+	 * @return the sort field if keyset pagination is possible
+	 */
+	private Optional<FieldDescriptor> getKeysetField(Pageable pageable) {
+		Iterator<Sort.Order> orders = pageable.getSort().iterator();
+		if (!orders.hasNext())
+			return Optional.empty();
+		Sort.Order sortOrder = orders.next();
+		Sort.Order tiebreaker = orders.hasNext() ? orders.next() : sortOrder;
+		if (orders.hasNext() || !tiebreaker.getProperty().equals(this.idField.getName())
+				|| tiebreaker.getDirection() != sortOrder.getDirection())
+			return Optional.empty();
+
+		// NULL values have no defined position between the databases, so only not
+		// nullable fields can be used to seek
+		return this.metadata.getSortableField(sortOrder.getProperty())
+				.filter(field -> field.isNotNull() && this.isKeysetType(field.getType()));
+	}
+
+	private boolean isAscending(Pageable pageable) {
+		return pageable.getSort().iterator().next().isAscending();
+	}
+
+	/**
+	 * Decode the given cursor if it should be used to seek the requested page.
+	 * Without filter key the filters are unknown, so a cursor is never used.
+	 *
+	 * @return KeysetCursor or null if the page should be selected by offset
+	 */
+	private KeysetCursor resolveCursor(@Nullable String cursor, FieldDescriptor sortField, Pageable pageable,
+			@Nullable String filterKey) {
+		if (cursor == null || cursor.isBlank() || filterKey == null || pageable.getOffset() < this.keysetThreshold)
+			return null;
+
+		KeysetCursor keysetCursor = KeysetCursor.decode(cursor);
+		// the cursor is only usable for the directly following page of the same size
+		// and filters, a stale cursor would seek from the wrong row
+		return keysetCursor.isFollowedBy(sortField.getName(), this.isAscending(pageable), pageable.getPageNumber(),
+				pageable.getPageSize(), filterKey) ? keysetCursor : null;
+	}
+
+	/**
+	 * Create the cursor pointing behind the last row of the given content.
+	 *
+	 * @return encoded cursor or null if there is no next page or the filters are
+	 *         unknown
+	 */
+	private <R> String createCursor(RowSelection<R> selection, Optional<FieldDescriptor> keysetField,
+			Pageable pageable, @Nullable String filterKey, List<R> content, boolean hasNext) {
+		if (keysetField.isEmpty() || filterKey == null || content.isEmpty() || !hasNext
+				|| !selection.contains(keysetField.get()))
+			return null;
+
+		FieldDescriptor sortField = keysetField.get();
+		R last = content.get(content.size() - 1);
+		Object value = selection.get(last, sortField);
+		Object id = selection.get(last, this.idField);
+		return new KeysetCursor(sortField.getName(), this.isAscending(pageable), pageable.getPageNumber(),
+				pageable.getPageSize(), filterKey, String.valueOf(value), String.valueOf(id)).encode();
+	}
+
+	/**
+	 * Create a specification for the seek predicate
+	 * <tt>sortCol > value OR (sortCol = value AND id > lastId)</tt>, which is the
+	 * portable form of <tt>(sortCol, id) > (value, lastId)</tt>.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private Specification<T> createSeekSpecification(FieldDescriptor sortField, KeysetCursor cursor) {
+		Comparable value = this.parseKeysetValue(cursor.getValue(), sortField.getType());
+		Comparable id = this.parseKeysetValue(cursor.getId(), this.idField.getType());
+		boolean ascending = cursor.isAscending();
+
+		return (root, query, builder) -> {
+			Path<Comparable> idPath = root.get(this.idField.getName());
+			Predicate afterId = ascending ? builder.greaterThan(idPath, id) : builder.lessThan(idPath, id);
+			if (sortField.equals(this.idField))
+				return afterId;
+
+			Path<Comparable> sortPath = root.get(sortField.getName());
+			Predicate afterValue = ascending ? builder.greaterThan(sortPath, value)
+					: builder.lessThan(sortPath, value);
+			return builder.or(afterValue, builder.and(builder.equal(sortPath, value), afterId));
+		};
+	}
+
+	private boolean isKeysetType(Class<?> type) {
+		return type.isPrimitive() || String.class.equals(type) || Number.class.isAssignableFrom(type)
+				|| Boolean.class.equals(type);
+	}
+
+	private Comparable<?> parseKeysetValue(String value, Class<?> type) {
+		try {
+			if (String.class.equals(type))
+				return value;
+			if (Long.class.equals(type) || long.class.equals(type))
+				return Long.valueOf(value);
+			if (Integer.class.equals(type) || int.class.equals(type))
+				return Integer.valueOf(value);
+			if (Short.class.equals(type) || short.class.equals(type))
+				return Short.valueOf(value);
+			if (Byte.class.equals(type) || byte.class.equals(type))
+				return Byte.valueOf(value);
+			if (Double.class.equals(type) || double.class.equals(type))
+				return Double.valueOf(value);
+			if (Float.class.equals(type) || float.class.equals(type))
+				return Float.valueOf(value);
+			if (Boolean.class.equals(type) || boolean.class.equals(type))
+				return Boolean.valueOf(value);
+			if (BigDecimal.class.equals(type))
+				return new BigDecimal(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid page cursor", e);
+		}
+		throw new IllegalArgumentException("Sort field type " + type + " does not support a page cursor");
+	}
+
 	/**
 	 * Create a RSQL query term containing a like query for each {@link @Searchable}
 	 * property for T.
@@ -184,17 +812,150 @@ public class PageService<T, I> {
 	 * @param term Search term
 	 * @return RSQL term
 	 */
-	String buildEntitySearchQuery(@NonNull String term, @Nullable Set<Field> searchableFields) {
+	String buildEntitySearchQuery(@NonNull String term, @Nullable Set<FieldDescriptor> searchableFields) {
 		if (term.isEmpty()) {
 			return "";
 		}
 
 		if (searchableFields == null)
 			// get all @Searchable annotated properties
-			searchableFields = this.annotationService.getFieldsWithAnnotation(Searchable.class);
+			searchableFields = this.metadata.getSearchableFields();
 
 		// create equal likes statements for each @Searchable annotated property
-		return new SearchParser(new ArrayList<>(searchableFields)).parse(term);
+		List<Field> fields = searchableFields.stream().map(FieldDescriptor::getField).collect(Collectors.toList());
+		return new SearchParser(fields).parse(term);
+	}
+
+	private DataTableRow toRow(Projection projection, Tuple tuple) {
+		List<FieldDescriptor> fields = projection.getFields();
+		Map<String, Object> values = new LinkedHashMap<>(fields.size() * 2);
+		for (int i = 0; i < fields.size(); i++)
+			values.put(fields.get(i).getName(), tuple.get(i));
+		return new DataTableRow(values);
+	}
+
+	/**
+	 * What the content queries select per row and how a row is read.
+	 *
+	 * @param <R> Class type of a row
+	 */
+	private abstract class RowSelection<R> {
+
+		/** hint the queries of the page as read-only */
+		final boolean readOnly;
+
+		RowSelection(boolean readOnly) {
+			this.readOnly = readOnly;
+		}
+
+		/** selections of the content query */
+		abstract List<Selection<?>> select(Root<T> root);
+
+		/** read a row of the content query */
+		abstract R map(Tuple tuple);
+
+		abstract boolean contains(FieldDescriptor field);
+
+		/** value of a selected field */
+		abstract Object get(R row, FieldDescriptor field);
+
+		/** content and total without window count */
+		abstract Page<R> findPage(@Nullable Specification<T> specification, Pageable pageable);
+
+		/** called once with the content of the page */
+		void load(List<R> content) {
+		}
+
+	}
+
+	/**
+	 * The managed entities, the associations of the fetch plan are loaded for the
+	 * page.
+	 */
+	private final class EntityRows extends RowSelection<T> {
+
+		private final FetchPlan fetchPlan;
+
+		private EntityRows(FetchPlan fetchPlan, boolean readOnly) {
+			super(readOnly);
+			this.fetchPlan = fetchPlan;
+		}
+
+		@Override
+		List<Selection<?>> select(Root<T> root) {
+			return List.of(root);
+		}
+
+		@Override
+		T map(Tuple tuple) {
+			return tuple.get(0, typeClass);
+		}
+
+		@Override
+		boolean contains(FieldDescriptor field) {
+			return true;
+		}
+
+		@Override
+		Object get(T row, FieldDescriptor field) {
+			return field.get(row);
+		}
+
+		@Override
+		Page<T> findPage(@Nullable Specification<T> specification, Pageable pageable) {
+			return repository.findAll(specification, pageable);
+		}
+
+		@Override
+		void load(List<T> content) {
+			this.fetchPlan.load(entityManager, typeClass, content);
+		}
+
+	}
+
+	/**
+	 * The columns of the projection, no entity is loaded.
+	 */
+	private final class ProjectionRows extends RowSelection<DataTableRow> {
+
+		private final Projection projection;
+
+		private ProjectionRows(Projection projection, boolean readOnly) {
+			super(readOnly);
+			if (!projection.getTypeClass().equals(typeClass))
+				throw new IllegalArgumentException(projection + " is no projection of " + typeClass.getSimpleName());
+			this.projection = projection;
+		}
+
+		@Override
+		List<Selection<?>> select(Root<T> root) {
+			return this.projection.getFields().stream().<Selection<?>>map(field -> root.get(field.getName()))
+					.collect(Collectors.toList());
+		}
+
+		@Override
+		DataTableRow map(Tuple tuple) {
+			return toRow(this.projection, tuple);
+		}
+
+		@Override
+		boolean contains(FieldDescriptor field) {
+			return this.projection.contains(field);
+		}
+
+		@Override
+		Object get(DataTableRow row, FieldDescriptor field) {
+			return row.get(field.getName());
+		}
+
+		@Override
+		Page<DataTableRow> findPage(@Nullable Specification<T> specification, Pageable pageable) {
+			List<DataTableRow> content = findContent(this, specification, pageable.getSort(), pageable.getOffset(),
+					pageable.getPageSize());
+			// like the repository the count is saved if the first page is not full
+			return PageableExecutionUtils.getPage(content, pageable, () -> repository.count(specification));
+		}
+
 	}
 
 }
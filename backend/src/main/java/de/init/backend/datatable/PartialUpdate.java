@@ -0,0 +1,256 @@
+package de.init.backend.datatable;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.annotation.Nullable;
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import org.hibernate.engine.spi.EntityKey;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.jpa.TypedParameterValue;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.query.NativeQuery;
+
+import de.init.backend.datatable.annotation.Editable;
+import de.init.backend.datatable.metadata.EntityMetadata;
+import de.init.backend.datatable.metadata.FieldDescriptor;
+
+/**
+ * Update of single fields without loading the entities. Only fields annotated
+ * with {@link Editable} can be updated. The entities are written with one
+ * UPDATE statement per table which has a changed column. The statement of the
+ * root table, which holds the version, increments the version and is guarded
+ * by the expected version, so a concurrent change is detected without SELECT.
+ *
+ * The root table is updated by a {@link CriteriaUpdate} of the root entity.
+ * A bulk update of a joined subclass would be executed by Hibernate with
+ * temporary id tables, so the tables of the subclasses are updated by native
+ * statements with the column names of the mapping.
+ */
+final class PartialUpdate {
+
+	private final EntityManager entityManager;
+
+	private final AbstractEntityPersister persister;
+
+	private final Class<?> rootClass;
+
+	private final Set<String> editableFields;
+
+	PartialUpdate(EntityManager entityManager, Class<?> typeClass) {
+		this(entityManager, typeClass, Set.of());
+	}
+
+	/**
+	 * @param extraFields names of fields which this update can change in addition
+	 *                    to the {@link Editable} fields, e.g. for a bulk update.
+	 *                    They are not merged by every update of an entity.
+	 */
+	PartialUpdate(EntityManager entityManager, Class<?> typeClass, Set<String> extraFields) {
+		this.entityManager = entityManager;
+		this.persister = persister(entityManager, typeClass);
+		if (!this.persister.isVersioned() || !Long.class.equals(this.persister.getVersionType().getReturnedClass()))
+			throw new IllegalStateException("Entity " + typeClass + " needs a long @Version for partial updates");
+		this.rootClass = this.persister.getFactory().getMetamodel().entityPersister(this.persister.getRootEntityName())
+				.getMappedClass();
+		this.editableFields = Stream.concat(
+				EntityMetadata.of(typeClass).getEditableFields().stream().map(FieldDescriptor::getName),
+				extraFields.stream()).collect(Collectors.toSet());
+	}
+
+	/**
+	 * @return the persister of the entity, which knows the tables and columns
+	 */
+	static AbstractEntityPersister persister(EntityManager entityManager, Class<?> typeClass) {
+		SessionFactoryImplementor sessionFactory = entityManager.getEntityManagerFactory()
+				.unwrap(SessionFactoryImplementor.class);
+		EntityPersister persister = sessionFactory.getMetamodel().entityPersister(typeClass);
+		if (!(persister instanceof AbstractEntityPersister))
+			throw new IllegalStateException("Entity " + typeClass + " has no table mapping");
+		return (AbstractEntityPersister) persister;
+	}
+
+	/**
+	 * The bulk statements bypass the persistence context, a managed instance
+	 * would keep the old state, so it is detached.
+	 */
+	static void detach(EntityManager entityManager, AbstractEntityPersister persister, Collection<?> ids) {
+		SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+		for (Object id : ids) {
+			EntityKey key = session.generateEntityKey((Serializable) id, persister);
+			Object managed = session.getPersistenceContext().getEntity(key);
+			if (managed != null)
+				entityManager.detach(managed);
+		}
+	}
+
+	/**
+	 * Check the fields and values, before any statement is executed.
+	 *
+	 * @param values values by field name
+	 * @return the values converted to the types of the fields
+	 * @throws IllegalArgumentException if a field is not editable or a value
+	 *                                  doesn't fit the field
+	 */
+	Map<String, Object> check(Map<String, Object> values) {
+		Map<String, Object> checked = new LinkedHashMap<>();
+		values.forEach((name, value) -> {
+			if (!this.editableFields.contains(name))
+				throw new IllegalArgumentException("Field '" + name + "' is not editable");
+			checked.put(name, this.convert(name, value));
+		});
+		return checked;
+	}
+
+	/**
+	 * Write the values to one entity and increment the version.
+	 *
+	 * @param id      id of the entity
+	 * @param values  values by field name
+	 * @param version expected version, null to update any version
+	 * @return true if the entity was updated, false if no entity with the id and
+	 *         version exists
+	 * @throws IllegalArgumentException see {@link #check(Map)}
+	 */
+	boolean execute(Object id, Map<String, Object> values, @Nullable Long version) {
+		return this.execute(List.of(id), values, version) > 0;
+	}
+
+	/**
+	 * Write the values to all entities of the ids and increment their versions.
+	 *
+	 * @param ids     ids of the entities
+	 * @param values  values by field name
+	 * @param version expected version, null to update any version
+	 * @return amount of updated entities
+	 * @throws IllegalArgumentException see {@link #check(Map)}
+	 */
+	int execute(Collection<?> ids, Map<String, Object> values, @Nullable Long version) {
+		// values by field name grouped by table, the values can be null
+		Map<String, Map<String, Object>> tables = new LinkedHashMap<>();
+		this.check(values).forEach((name, value) -> tables
+				.computeIfAbsent(this.persister.getPropertyTableName(name), table -> new LinkedHashMap<>())
+				.put(name, value));
+
+		Map<String, Object> rootValues = tables.remove(this.persister.getRootTableName());
+		int updated = this.updateRoot(ids, rootValues != null ? rootValues : Map.of(), version);
+		if (updated == 0)
+			return 0;
+
+		String[] tableNames = this.persister.getConstraintOrderedTableNameClosure();
+		String[][] keyColumns = this.persister.getContraintOrderedTableKeyColumnClosure();
+		for (int i = 0; i < tableNames.length; i++) {
+			Map<String, Object> tableValues = tables.get(tableNames[i]);
+			if (tableValues != null)
+				this.updateTable(tableNames[i], keyColumns[i], ids, tableValues);
+		}
+		detach(this.entityManager, this.persister, ids);
+		return updated;
+	}
+
+	/**
+	 * Select the current version of an entity, e.g. after a failed update.
+	 *
+	 * @param id id of the entity
+	 * @return version, null if no entity with the id exists
+	 */
+	@SuppressWarnings("unchecked")
+	@Nullable
+	Long version(Object id) {
+		CriteriaBuilder builder = this.entityManager.getCriteriaBuilder();
+		CriteriaQuery<Long> query = builder.createQuery(Long.class);
+		Root<Object> root = query.from((Class<Object>) this.rootClass);
+		query.select(root.get(this.persister.getPropertyNames()[this.persister.getVersionProperty()]))
+				.where(builder.equal(root.get(this.persister.getIdentifierPropertyName()), id));
+		List<Long> versions = this.entityManager.createQuery(query).getResultList();
+		return versions.isEmpty() ? null : versions.get(0);
+	}
+
+	@SuppressWarnings("unchecked")
+	private int updateRoot(Collection<?> ids, Map<String, Object> values, @Nullable Long version) {
+		CriteriaBuilder builder = this.entityManager.getCriteriaBuilder();
+		CriteriaUpdate<Object> update = builder.createCriteriaUpdate((Class<Object>) this.rootClass);
+		Root<Object> root = update.from((Class<Object>) this.rootClass);
+
+		Path<Long> versionPath = root.get(this.persister.getPropertyNames()[this.persister.getVersionProperty()]);
+		update.set(versionPath, builder.sum(versionPath, 1L));
+		values.forEach(update::set);
+
+		Path<Object> idPath = root.get(this.persister.getIdentifierPropertyName());
+		Predicate idIn = ids.size() == 1 ? builder.equal(idPath, ids.iterator().next()) : idPath.in(ids);
+		update.where(version == null ? idIn : builder.and(idIn, builder.equal(versionPath, version)));
+		return this.entityManager.createQuery(update).executeUpdate();
+	}
+
+	private void updateTable(String table, String[] keyColumns, Collection<?> ids, Map<String, Object> values) {
+		List<String> names = List.copyOf(values.keySet());
+		StringBuilder sql = new StringBuilder("UPDATE ").append(table).append(" SET ");
+		for (int i = 0; i < names.size(); i++)
+			sql.append(i > 0 ? ", " : "").append(this.persister.getPropertyColumnNames(names.get(i))[0])
+					.append(" = :v").append(i);
+		sql.append(" WHERE ").append(keyColumns[0]).append(" IN (:ids)");
+
+		NativeQuery<?> query = this.entityManager.createNativeQuery(sql.toString()).unwrap(NativeQuery.class);
+		query.addSynchronizedEntityClass(this.persister.getMappedClass());
+		for (int i = 0; i < names.size(); i++)
+			query.setParameter("v" + i,
+					new TypedParameterValue(this.persister.getPropertyType(names.get(i)), values.get(names.get(i))));
+		query.setParameterList("ids", ids, this.persister.getIdentifierType());
+		query.executeUpdate();
+	}
+
+	/**
+	 * Convert numbers, e.g. of JSON, to the number type of the field.
+	 */
+	private Object convert(String name, @Nullable Object value) {
+		int index = this.propertyIndex(name);
+		if (!this.persister.getPropertyUpdateability()[index] || this.persister.getPropertyColumnNames(name).length != 1
+				|| index == this.persister.getVersionProperty())
+			throw new IllegalArgumentException("Field '" + name + "' can't be updated");
+		if (value == null) {
+			if (!this.persister.getPropertyNullability()[index])
+				throw new IllegalArgumentException("Field '" + name + "' can't be null");
+			return null;
+		}
+
+		Class<?> type = this.persister.getPropertyTypes()[index].getReturnedClass();
+		if (type.isInstance(value))
+			return value;
+		if (value instanceof Number) {
+			Number number = (Number) value;
+			if (Long.class.equals(type))
+				return number.longValue();
+			if (Integer.class.equals(type))
+				return number.intValue();
+			if (Double.class.equals(type))
+				return number.doubleValue();
+		}
+		throw new IllegalArgumentException(
+				"Field '" + name + "' needs a value of type " + type.getSimpleName() + ", not " + value);
+	}
+
+	private int propertyIndex(String name) {
+		String[] names = this.persister.getPropertyNames();
+		for (int i = 0; i < names.length; i++) {
+			if (names[i].equals(name))
+				return i;
+		}
+		throw new IllegalArgumentException("Field '" + name + "' can't be updated");
+	}
+
+}
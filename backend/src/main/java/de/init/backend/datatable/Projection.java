@@ -0,0 +1,88 @@
+package de.init.backend.datatable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import de.init.backend.datatable.metadata.EntityMetadata;
+import de.init.backend.datatable.metadata.FieldDescriptor;
+
+/**
+ * Sparse fieldset of a page. Instead of the entities only the columns of the
+ * selected fields are queried and returned as {@link DataTableRow}, so no
+ * entity is loaded into the persistence context and no lazy association can be
+ * touched.
+ *
+ * Only persistent single valued fields, which the caller allows explicitly, can
+ * be selected. The id is always selected as first field, it identifies the row
+ * and is the tiebreaker of the keyset cursor.
+ */
+public final class Projection {
+
+	private final Class<?> typeClass;
+
+	private final List<FieldDescriptor> fields;
+
+	private Projection(Class<?> typeClass, List<FieldDescriptor> fields) {
+		this.typeClass = typeClass;
+		this.fields = fields;
+	}
+
+	/**
+	 * @param typeClass entity class
+	 * @param names     names of the requested fields, duplicates are ignored
+	 * @param allowed   names of the fields which can be selected
+	 * @return projection of the id and the requested fields
+	 * @throws IllegalArgumentException if a field is unknown, not allowed or no
+	 *                                  single valued field
+	 */
+	public static Projection of(Class<?> typeClass, Collection<String> names, Set<String> allowed) {
+		EntityMetadata metadata = EntityMetadata.of(typeClass);
+		FieldDescriptor idField = metadata.getIdField();
+
+		Set<FieldDescriptor> fields = new LinkedHashSet<>();
+		fields.add(idField);
+		for (String name : names) {
+			String trimmed = name.trim();
+			if (trimmed.isEmpty())
+				continue;
+			FieldDescriptor field = metadata.getSortableField(trimmed)
+					.filter(descriptor -> descriptor.equals(idField) || allowed.contains(trimmed))
+					.orElseThrow(() -> new IllegalArgumentException("Field '" + trimmed + "' can't be selected"));
+			fields.add(field);
+		}
+		return new Projection(typeClass, Collections.unmodifiableList(new ArrayList<>(fields)));
+	}
+
+	/**
+	 * @return entity class of the projection
+	 */
+	public Class<?> getTypeClass() {
+		return this.typeClass;
+	}
+
+	/**
+	 * @return selected fields, the id first
+	 */
+	public List<FieldDescriptor> getFields() {
+		return this.fields;
+	}
+
+	/**
+	 * @param field field of the entity
+	 * @return true if the field is selected
+	 */
+	public boolean contains(FieldDescriptor field) {
+		return this.fields.contains(field);
+	}
+
+	@Override
+	public String toString() {
+		return "Projection" + this.fields.stream().map(FieldDescriptor::getName).collect(Collectors.toList());
+	}
+
+}
@@ -0,0 +1,70 @@
+package de.init.backend.datatable;
+
+import java.util.function.Supplier;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Read-only execution of datatable reads. Entities loaded read-only have no
+ * dirty checking snapshot and changes of them are never written.
+ *
+ * In a transaction the session loads read-only for the duration of the read,
+ * afterwards the previous mode is restored. In a read-only transaction the
+ * session is additionally not flushed before the queries
+ * ({@link FlushMode#MANUAL}). A writable transaction keeps its flush mode, so
+ * the read sees the changes of the transaction which were not flushed yet.
+ * Without transaction every query runs in its own session, which is closed
+ * with the query, so only the query hints apply.
+ *
+ * A read-only Spring transaction sets the same mode for the whole transaction.
+ */
+final class ReadOnlyMode {
+
+	private ReadOnlyMode() {
+	}
+
+	/**
+	 * Run the read in read-only mode.
+	 *
+	 * @param entityManager shared EntityManager of the read
+	 * @param read          the read
+	 * @return result of the read
+	 */
+	static <R> R execute(EntityManager entityManager, Supplier<R> read) {
+		if (!TransactionSynchronizationManager.isActualTransactionActive())
+			return read.get();
+
+		Session session = entityManager.unwrap(Session.class);
+		boolean defaultReadOnly = session.isDefaultReadOnly();
+		FlushMode flushMode = session.getHibernateFlushMode();
+		session.setDefaultReadOnly(true);
+		if (TransactionSynchronizationManager.isCurrentTransactionReadOnly())
+			session.setHibernateFlushMode(FlushMode.MANUAL);
+		try {
+			return read.get();
+		} finally {
+			session.setHibernateFlushMode(flushMode);
+			session.setDefaultReadOnly(defaultReadOnly);
+		}
+	}
+
+	/**
+	 * Add the read-only hint to the query and, unless a writable transaction is
+	 * active, the manual flush mode hint.
+	 *
+	 * @param query query of a read
+	 */
+	static void hint(Query query) {
+		query.setHint(QueryHints.HINT_READONLY, true);
+		if (!TransactionSynchronizationManager.isActualTransactionActive()
+				|| TransactionSynchronizationManager.isCurrentTransactionReadOnly())
+			query.setHint(QueryHints.HINT_FLUSH_MODE, FlushMode.MANUAL);
+	}
+
+}
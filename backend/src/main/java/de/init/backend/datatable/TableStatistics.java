@@ -0,0 +1,100 @@
+package de.init.backend.datatable;
+
+import java.util.List;
+import java.util.OptionalLong;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceException;
+
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.Oracle8iDialect;
+import org.hibernate.dialect.PostgreSQL81Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads the row count estimate of an entity table from the statistics of the
+ * database. This is much cheaper than a <tt>COUNT(*)</tt> on big tables, but
+ * only as accurate as the last statistics update.
+ *
+ * The statistics are read by an own EntityManager without transaction. A
+ * failing query, e.g. without access to the catalog, can't mark the
+ * transaction of the caller as rollback-only.
+ */
+class TableStatistics {
+
+	private static final Logger LOG = LoggerFactory.getLogger(TableStatistics.class);
+
+	private static final String H2_QUERY = "SELECT ROW_COUNT_ESTIMATE FROM INFORMATION_SCHEMA.TABLES WHERE UPPER(TABLE_NAME) = UPPER(?1)";
+	private static final String POSTGRES_QUERY = "SELECT CAST(reltuples AS BIGINT) FROM pg_class WHERE relname = LOWER(?1) AND relkind = 'r'";
+	private static final String ORACLE_QUERY = "SELECT NUM_ROWS FROM USER_TABLES WHERE TABLE_NAME = UPPER(?1)";
+
+	private final EntityManagerFactory entityManagerFactory;
+
+	private final String tableName;
+
+	private final String query;
+
+	/**
+	 * @param entityManager EntityManager of the entity, its factory creates the
+	 *                      EntityManager to query the statistics with
+	 * @param typeClass     entity class
+	 */
+	TableStatistics(EntityManager entityManager, Class<?> typeClass) {
+		this.entityManagerFactory = entityManager.getEntityManagerFactory();
+
+		SessionFactoryImplementor factory = this.entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+		EntityPersister persister = factory.getMetamodel().entityPersister(typeClass);
+		Dialect dialect = factory.getJdbcServices().getDialect();
+
+		if (persister instanceof AbstractEntityPersister) {
+			// the table of the entity itself, for joined inheritance this is the subclass
+			// table which has one row per entity
+			String table = ((AbstractEntityPersister) persister).getTableName();
+			this.tableName = table.substring(table.lastIndexOf('.') + 1).replace("\"", "");
+		} else {
+			this.tableName = null;
+		}
+
+		if (dialect instanceof H2Dialect)
+			this.query = H2_QUERY;
+		else if (dialect instanceof PostgreSQL81Dialect)
+			this.query = POSTGRES_QUERY;
+		else if (dialect instanceof Oracle8iDialect)
+			this.query = ORACLE_QUERY;
+		else
+			this.query = null;
+	}
+
+	/**
+	 * Return the estimated amount of rows of the entity table.
+	 *
+	 * @return estimate or empty if the database has no statistics for the table
+	 */
+	OptionalLong estimateRowCount() {
+		if (this.query == null || this.tableName == null)
+			return OptionalLong.empty();
+
+		EntityManager entityManager = this.entityManagerFactory.createEntityManager();
+		try {
+			List<?> result = entityManager.createNativeQuery(this.query).setParameter(1, this.tableName)
+					.getResultList();
+			if (result.isEmpty() || !(result.get(0) instanceof Number))
+				return OptionalLong.empty();
+			long estimate = ((Number) result.get(0)).longValue();
+			// postgres uses -1 for tables which were never analyzed
+			return estimate >= 0 ? OptionalLong.of(estimate) : OptionalLong.empty();
+		} catch (PersistenceException e) {
+			LOG.debug("Could not read table statistics for {}", this.tableName, e);
+			return OptionalLong.empty();
+		} finally {
+			entityManager.close();
+		}
+	}
+
+}
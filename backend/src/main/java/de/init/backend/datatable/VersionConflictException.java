@@ -0,0 +1,26 @@
+package de.init.backend.datatable;
+
+import javax.persistence.OptimisticLockException;
+
+/**
+ * The expected version of an update is outdated, the entity was changed in the
+ * meantime. Knows the current version, e.g. for the ETag of the response.
+ */
+public class VersionConflictException extends OptimisticLockException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final long currentVersion;
+
+	public VersionConflictException(Object id, long expectedVersion, long currentVersion) {
+		super("The entity " + id + " was changed, the version " + expectedVersion + " is outdated");
+		this.currentVersion = currentVersion;
+	}
+
+	/**
+	 * @return the version of the entity in the database
+	 */
+	public long getCurrentVersion() {
+		return currentVersion;
+	}
+}
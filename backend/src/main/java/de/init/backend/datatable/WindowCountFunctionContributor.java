@@ -0,0 +1,58 @@
+package de.init.backend.datatable;
+
+import java.util.List;
+
+import org.hibernate.QueryException;
+import org.hibernate.boot.MetadataBuilder;
+import org.hibernate.boot.spi.MetadataBuilderContributor;
+import org.hibernate.dialect.function.SQLFunction;
+import org.hibernate.engine.spi.Mapping;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.type.StandardBasicTypes;
+import org.hibernate.type.Type;
+
+/**
+ * Registers the HQL function <tt>count_over()</tt>, which is rendered as the
+ * window function <tt>COUNT(*) OVER ()</tt>. Selected next to the entity, every
+ * row carries the total amount of matching rows, so the {@link PageService}
+ * gets content and total in one round trip.
+ *
+ * The contributor is registered by the property
+ * <tt>spring.jpa.properties.hibernate.metadata_builder_contributor</tt>.
+ */
+public class WindowCountFunctionContributor implements MetadataBuilderContributor {
+
+	/** name of the registered function to be used with CriteriaBuilder#function */
+	public static final String COUNT_OVER = "count_over";
+
+	@Override
+	public void contribute(MetadataBuilder metadataBuilder) {
+		metadataBuilder.applySqlFunction(COUNT_OVER, new CountOverFunction());
+	}
+
+	private static class CountOverFunction implements SQLFunction {
+
+		@Override
+		public boolean hasArguments() {
+			return false;
+		}
+
+		@Override
+		public boolean hasParenthesesIfNoArguments() {
+			return true;
+		}
+
+		@Override
+		public Type getReturnType(Type firstArgumentType, Mapping mapping) throws QueryException {
+			return StandardBasicTypes.LONG;
+		}
+
+		@SuppressWarnings("rawtypes")
+		@Override
+		public String render(Type firstArgumentType, List arguments, SessionFactoryImplementor factory)
+				throws QueryException {
+			return "count(*) over ()";
+		}
+	}
+
+}
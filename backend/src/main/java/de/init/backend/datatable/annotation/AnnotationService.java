@@ -2,8 +2,10 @@ package de.init.backend.datatable.annotation;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -11,6 +13,12 @@ import java.util.stream.Collectors;
 import org.springframework.lang.NonNull;
 import org.springframework.lang.Nullable;
 
+import de.init.backend.datatable.metadata.EntityMetadata;
+
+/**
+ * Annotation based field lookups on a class. The entity services use the
+ * cached {@link EntityMetadata} directly.
+ */
 public class AnnotationService {
 
 	private final Class<? extends Object> typeClass;
@@ -70,7 +78,7 @@ public class AnnotationService {
 	 * @return Set of Field
 	 */
 	public Set<Field> getFieldsWithName(@NonNull Set<String> names) {
-		Set<Field> fields = this.getFieldsUpTo(typeClass, Object.class);
+		List<Field> fields = this.getFieldsUpTo(typeClass, Object.class);
 		return fields.stream().filter(field -> names.contains(field.getName())).collect(Collectors.toSet());
 	}
 
@@ -81,7 +89,7 @@ public class AnnotationService {
 	 * @return Field
 	 */
 	public Optional<Field> getFieldWithName(@NonNull String name) {
-		Set<Field> fields = this.getFieldsUpTo(typeClass, Object.class);
+		List<Field> fields = this.getFieldsUpTo(typeClass, Object.class);
 		return fields.stream() //
 				.filter(field -> name.equals(field.getName()))//
 				.findFirst();
@@ -92,12 +100,16 @@ public class AnnotationService {
 		return annotationClasses.stream().anyMatch(field::isAnnotationPresent);
 	}
 
-	private Set<Field> getFieldsUpTo(@NonNull Class<?> startClass, @Nullable Class<?> exclusiveParent) {
-		Set<Field> currentClassFields = new HashSet<>(Arrays.asList(startClass.getDeclaredFields()));
+	private List<Field> getFieldsUpTo(@NonNull Class<?> startClass, @Nullable Class<?> exclusiveParent) {
+		// the fields of the whole hierarchy are scanned once per class
+		if (Object.class.equals(exclusiveParent))
+			return EntityMetadata.of(startClass).getDeclaredFields();
+
+		List<Field> currentClassFields = new ArrayList<>(Arrays.asList(startClass.getDeclaredFields()));
 		Class<?> parentClass = startClass.getSuperclass();
 
 		if (parentClass != null && !parentClass.equals(exclusiveParent)) {
-			Set<Field> parentClassFields = this.getFieldsUpTo(parentClass, exclusiveParent);
+			List<Field> parentClassFields = this.getFieldsUpTo(parentClass, exclusiveParent);
 			currentClassFields.addAll(parentClassFields);
 		}
 
@@ -5,7 +5,14 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
+/**
+ * Marks a field as editable. On a class the value names additional editable
+ * fields, e.g. fields of a superclass.
+ */
 @Target({ElementType.FIELD, ElementType.METHOD, ElementType.TYPE})
 @Retention(RetentionPolicy.RUNTIME)
 public @interface Editable {
+
+	/** names of editable fields, only used on classes */
+	String[] value() default {};
 }
@@ -0,0 +1,16 @@
+package de.init.backend.datatable.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a long field as point in time in epoch milliseconds. RSQL arguments of
+ * the field can be given as ISO-8601 instant or date too, e.g.
+ * <tt>lastLogin=ge=2021-01-01</tt>.
+ */
+@Target({ElementType.FIELD, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface EpochMillis {
+}
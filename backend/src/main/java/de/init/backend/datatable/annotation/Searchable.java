@@ -5,8 +5,14 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
+/**
+ * Marks a field as searchable. On a class the value names additional searchable
+ * fields, e.g. fields of a superclass.
+ */
 @Target({ElementType.FIELD, ElementType.METHOD, ElementType.TYPE})
 @Retention(RetentionPolicy.RUNTIME)
 public @interface Searchable {
 
+	/** names of searchable fields, only used on classes */
+	String[] value() default {};
 }
@@ -0,0 +1,113 @@
+package de.init.backend.datatable.budget;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import javax.persistence.metamodel.Metamodel;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import cz.jirutka.rsql.parser.ast.Node;
+
+/**
+ * Limits of the cost a page request may cause. A limit of -1 is unlimited.
+ * <ul>
+ * <li>comparisons - amount of RSQL comparisons of all filters</li>
+ * <li>in list arguments - amount of values of all <tt>=in=</tt> /
+ * <tt>=out=</tt> comparisons</li>
+ * <li>join depth - max amount of joined associations of one selector</li>
+ * <li>collection joins - amount of joined collections</li>
+ * <li>page size - max page size, larger pages are downgraded to this size</li>
+ * </ul>
+ */
+public final class QueryBudget {
+
+	public static final int UNLIMITED = -1;
+
+	/** budget without limits */
+	public static final QueryBudget NONE = new QueryBudget(UNLIMITED, UNLIMITED, UNLIMITED, UNLIMITED, UNLIMITED);
+
+	private final int maxComparisons;
+
+	private final int maxInListArguments;
+
+	private final int maxJoinDepth;
+
+	private final int maxCollectionJoins;
+
+	private final int maxPageSize;
+
+	public QueryBudget(int maxComparisons, int maxInListArguments, int maxJoinDepth, int maxCollectionJoins,
+			int maxPageSize) {
+		this.maxComparisons = maxComparisons;
+		this.maxInListArguments = maxInListArguments;
+		this.maxJoinDepth = maxJoinDepth;
+		this.maxCollectionJoins = maxCollectionJoins;
+		this.maxPageSize = maxPageSize;
+	}
+
+	public int getMaxComparisons() {
+		return maxComparisons;
+	}
+
+	public int getMaxInListArguments() {
+		return maxInListArguments;
+	}
+
+	public int getMaxJoinDepth() {
+		return maxJoinDepth;
+	}
+
+	public int getMaxCollectionJoins() {
+		return maxCollectionJoins;
+	}
+
+	public int getMaxPageSize() {
+		return maxPageSize;
+	}
+
+	/**
+	 * Score the filters and the page request. Filters over budget are rejected,
+	 * pages over budget are downgraded to the max page size.
+	 *
+	 * @param metamodel JPA metamodel to resolve the joins of the selectors
+	 * @param typeClass queried entity class
+	 * @param filters   parsed RSQL filters
+	 * @param pageable  requested page
+	 * @return the page request within budget
+	 * @throws QueryBudgetExceededException if the filters are over budget
+	 */
+	public Pageable check(Metamodel metamodel, Class<?> typeClass, Collection<Node> filters, Pageable pageable) {
+		QueryCost cost = QueryCost.of(metamodel, typeClass, filters);
+
+		List<String> violations = new ArrayList<>();
+		if (exceeds(cost.getComparisons(), maxComparisons))
+			violations.add("comparisons: " + cost.getComparisons() + " > " + maxComparisons);
+		if (exceeds(cost.getInListArguments(), maxInListArguments))
+			violations.add("in list arguments: " + cost.getInListArguments() + " > " + maxInListArguments);
+		if (exceeds(cost.getJoinDepth(), maxJoinDepth))
+			violations.add("join depth: " + cost.getJoinDepth() + " > " + maxJoinDepth);
+		if (exceeds(cost.getCollectionJoins(), maxCollectionJoins))
+			violations.add("collection joins: " + cost.getCollectionJoins() + " > " + maxCollectionJoins);
+		if (!violations.isEmpty())
+			throw new QueryBudgetExceededException(violations);
+
+		if (pageable.isPaged() && exceeds(pageable.getPageSize(), maxPageSize))
+			return PageRequest.of(pageable.getPageNumber(), maxPageSize, pageable.getSort());
+		return pageable;
+	}
+
+	private static boolean exceeds(int value, int limit) {
+		return limit != UNLIMITED && value > limit;
+	}
+
+	@Override
+	public String toString() {
+		return "QueryBudget [maxComparisons=" + maxComparisons + ", maxInListArguments=" + maxInListArguments
+				+ ", maxJoinDepth=" + maxJoinDepth
+				+ ", maxCollectionJoins=" + maxCollectionJoins + ", maxPageSize=" + maxPageSize + "]";
+	}
+
+}
@@ -0,0 +1,27 @@
+package de.init.backend.datatable.budget;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.BAD_REQUEST)
+public class QueryBudgetExceededException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final List<String> violations;
+
+	public QueryBudgetExceededException(List<String> violations) {
+		super("Query budget exceeded.");
+		this.violations = Collections.unmodifiableList(violations);
+	}
+
+	/**
+	 * @return the exceeded limits, like "comparisons: 30 &gt; 25"
+	 */
+	public List<String> getViolations() {
+		return violations;
+	}
+}
@@ -0,0 +1,193 @@
+package de.init.backend.datatable.budget;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import de.init.backend.authentication.UserPrinciple;
+import de.init.backend.authentication.model.Role;
+
+/**
+ * Configured query budgets. The budget of a request is resolved from
+ * <ol>
+ * <li>the default limits (<tt>app.datatable.budget.defaults.*</tt>),</li>
+ * <li>overwritten by the limits of the endpoint
+ * (<tt>app.datatable.budget.endpoints.[name].*</tt>),</li>
+ * <li>overwritten by the limits of the roles of the authenticated user
+ * (<tt>app.datatable.budget.roles.[ROLE_NAME].*</tt>). If multiple roles
+ * define a limit, the most generous one is used.</li>
+ * </ol>
+ * Limits which are not set are inherited, -1 is unlimited.
+ */
+@Component
+@ConfigurationProperties(prefix = "app.datatable.budget")
+public class QueryBudgets {
+
+	private Limits defaults = new Limits();
+
+	private Map<String, Limits> endpoints = new HashMap<>();
+
+	private Map<String, Limits> roles = new HashMap<>();
+
+	/**
+	 * Resolve the budget of the endpoint for the authenticated user.
+	 *
+	 * @param endpoint endpoint name, like "accounts"
+	 * @return QueryBudget
+	 */
+	public QueryBudget forEndpoint(String endpoint) {
+		List<Limits> layers = new ArrayList<>();
+		layers.add(this.defaults);
+		layers.add(this.endpoints.get(endpoint));
+		layers.add(this.getRoleLimits());
+
+		return new QueryBudget(resolve(layers, Limits::getMaxComparisons),
+				resolve(layers, Limits::getMaxInListArguments), resolve(layers, Limits::getMaxJoinDepth),
+				resolve(layers, Limits::getMaxCollectionJoins), resolve(layers, Limits::getMaxPageSize));
+	}
+
+	/**
+	 * Combine the limits of all roles of the authenticated user to the most
+	 * generous ones.
+	 */
+	private Limits getRoleLimits() {
+		Limits combined = new Limits();
+		for (String role : getRoleNames()) {
+			Limits limits = this.roles.get(role);
+			if (limits != null) {
+				combined.maxComparisons = max(combined.maxComparisons, limits.maxComparisons);
+				combined.maxInListArguments = max(combined.maxInListArguments, limits.maxInListArguments);
+				combined.maxJoinDepth = max(combined.maxJoinDepth, limits.maxJoinDepth);
+				combined.maxCollectionJoins = max(combined.maxCollectionJoins, limits.maxCollectionJoins);
+				combined.maxPageSize = max(combined.maxPageSize, limits.maxPageSize);
+			}
+		}
+		return combined;
+	}
+
+	private static Collection<String> getRoleNames() {
+		List<String> names = new ArrayList<>();
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		if (authentication == null || authentication instanceof AnonymousAuthenticationToken)
+			return names;
+
+		if (authentication.getPrincipal() instanceof UserPrinciple) {
+			for (Role role : ((UserPrinciple) authentication.getPrincipal()).getRoles())
+				names.add(role.getName());
+		}
+		for (GrantedAuthority authority : authentication.getAuthorities())
+			names.add(authority.getAuthority());
+		return names;
+	}
+
+	private static int resolve(List<Limits> layers, Function<Limits, Integer> limit) {
+		int value = QueryBudget.UNLIMITED;
+		for (Limits layer : layers) {
+			if (layer != null && limit.apply(layer) != null)
+				value = limit.apply(layer);
+		}
+		return value;
+	}
+
+	private static Integer max(Integer a, Integer b) {
+		if (a == null)
+			return b;
+		if (b == null)
+			return a;
+		if (a == QueryBudget.UNLIMITED || b == QueryBudget.UNLIMITED)
+			return QueryBudget.UNLIMITED;
+		return Math.max(a, b);
+	}
+
+	public Limits getDefaults() {
+		return defaults;
+	}
+
+	public void setDefaults(Limits defaults) {
+		this.defaults = defaults;
+	}
+
+	public Map<String, Limits> getEndpoints() {
+		return endpoints;
+	}
+
+	public void setEndpoints(Map<String, Limits> endpoints) {
+		this.endpoints = endpoints;
+	}
+
+	public Map<String, Limits> getRoles() {
+		return roles;
+	}
+
+	public void setRoles(Map<String, Limits> roles) {
+		this.roles = roles;
+	}
+
+	/**
+	 * Configured limits, <tt>null</tt> if not set.
+	 */
+	public static class Limits {
+
+		private Integer maxComparisons;
+
+		private Integer maxInListArguments;
+
+		private Integer maxJoinDepth;
+
+		private Integer maxCollectionJoins;
+
+		private Integer maxPageSize;
+
+		public Integer getMaxComparisons() {
+			return maxComparisons;
+		}
+
+		public void setMaxComparisons(Integer maxComparisons) {
+			this.maxComparisons = maxComparisons;
+		}
+
+		public Integer getMaxInListArguments() {
+			return maxInListArguments;
+		}
+
+		public void setMaxInListArguments(Integer maxInListArguments) {
+			this.maxInListArguments = maxInListArguments;
+		}
+
+		public Integer getMaxJoinDepth() {
+			return maxJoinDepth;
+		}
+
+		public void setMaxJoinDepth(Integer maxJoinDepth) {
+			this.maxJoinDepth = maxJoinDepth;
+		}
+
+		public Integer getMaxCollectionJoins() {
+			return maxCollectionJoins;
+		}
+
+		public void setMaxCollectionJoins(Integer maxCollectionJoins) {
+			this.maxCollectionJoins = maxCollectionJoins;
+		}
+
+		public Integer getMaxPageSize() {
+			return maxPageSize;
+		}
+
+		public void setMaxPageSize(Integer maxPageSize) {
+			this.maxPageSize = maxPageSize;
+		}
+
+	}
+
+}
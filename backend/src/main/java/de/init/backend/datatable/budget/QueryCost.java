@@ -0,0 +1,118 @@
+package de.init.backend.datatable.budget;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.Attribute.PersistentAttributeType;
+import javax.persistence.metamodel.ManagedType;
+import javax.persistence.metamodel.Metamodel;
+import javax.persistence.metamodel.PluralAttribute;
+
+import cz.jirutka.rsql.parser.ast.ComparisonNode;
+import cz.jirutka.rsql.parser.ast.LogicalNode;
+import cz.jirutka.rsql.parser.ast.Node;
+
+/**
+ * Cost of RSQL filters on an entity. The joins are counted the way
+ * {@link de.init.backend.datatable.search.rsql.RsqlSpecification} creates
+ * them: every association before the compared attribute of a selector is
+ * joined, joins of the same collection are reused.
+ */
+final class QueryCost {
+
+	private final Metamodel metamodel;
+
+	private int comparisons;
+
+	private int inListArguments;
+
+	private int joinDepth;
+
+	/** selector prefixes of the joined collections */
+	private final Set<String> collectionJoins = new HashSet<>();
+
+	private QueryCost(Metamodel metamodel) {
+		this.metamodel = metamodel;
+	}
+
+	static QueryCost of(Metamodel metamodel, Class<?> typeClass, Collection<Node> filters) {
+		QueryCost cost = new QueryCost(metamodel);
+		ManagedType<?> root = metamodel.managedType(typeClass);
+		filters.forEach(filter -> cost.add(root, filter));
+		return cost;
+	}
+
+	private void add(ManagedType<?> root, Node node) {
+		if (node instanceof LogicalNode) {
+			((LogicalNode) node).getChildren().forEach(child -> this.add(root, child));
+		} else if (node instanceof ComparisonNode) {
+			ComparisonNode comparison = (ComparisonNode) node;
+			this.comparisons++;
+			// a long =in= list is split into OR'ed IN lists, it is scored by its values
+			if (comparison.getOperator().isMultiValue())
+				this.inListArguments += comparison.getArguments().size();
+			this.addSelector(root, comparison.getSelector());
+		}
+	}
+
+	private void addSelector(ManagedType<?> root, String selector) {
+		String[] steps = selector.split("\\.");
+		ManagedType<?> type = root;
+		StringBuilder prefix = new StringBuilder();
+		int depth = 0;
+		for (int i = 0; i < steps.length - 1 && type != null; i++) {
+			Attribute<?, ?> attribute = getAttribute(type, steps[i]);
+			if (attribute == null)
+				break;
+			prefix.append('.').append(steps[i]);
+
+			Class<?> next = attribute.getJavaType();
+			if (attribute.isCollection()) {
+				depth++;
+				this.collectionJoins.add(prefix.toString());
+				next = ((PluralAttribute<?, ?, ?>) attribute).getElementType().getJavaType();
+			} else if (attribute.isAssociation()) {
+				depth++;
+			}
+			type = attribute.getPersistentAttributeType() == PersistentAttributeType.BASIC ? null
+					: this.managedType(next);
+		}
+		this.joinDepth = Math.max(this.joinDepth, depth);
+	}
+
+	private static Attribute<?, ?> getAttribute(ManagedType<?> type, String name) {
+		try {
+			return type.getAttribute(name);
+		} catch (IllegalArgumentException ex) {
+			// unknown attributes are reported when the query is created
+			return null;
+		}
+	}
+
+	private ManagedType<?> managedType(Class<?> javaType) {
+		try {
+			return this.metamodel.managedType(javaType);
+		} catch (IllegalArgumentException ex) {
+			return null;
+		}
+	}
+
+	int getComparisons() {
+		return comparisons;
+	}
+
+	int getInListArguments() {
+		return inListArguments;
+	}
+
+	int getJoinDepth() {
+		return joinDepth;
+	}
+
+	int getCollectionJoins() {
+		return collectionJoins.size();
+	}
+
+}
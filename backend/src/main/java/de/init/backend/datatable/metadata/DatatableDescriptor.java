@@ -0,0 +1,50 @@
+package de.init.backend.datatable.metadata;
+
+import java.util.Set;
+
+/**
+ * Compile time generated datatable metadata of an entity. The implementation
+ * <tt>&lt;Entity&gt;_Datatable</tt> is generated by the datatable annotation
+ * processor for every entity using {@link de.init.backend.datatable.annotation.Searchable}
+ * or {@link de.init.backend.datatable.annotation.Editable}.
+ *
+ * @param <T> entity type
+ */
+public interface DatatableDescriptor<T> {
+
+	/** suffix of the generated class name */
+	String SUFFIX = "_Datatable";
+
+	Class<T> getEntityClass();
+
+	/**
+	 * @return names of the fields to search in
+	 */
+	Set<String> getSearchableFields();
+
+	/**
+	 * @return names of the fields which are merged on update
+	 */
+	Set<String> getEditableFields();
+
+	/**
+	 * @return names of the persistent single valued fields
+	 */
+	Set<String> getSortableFields();
+
+	/**
+	 * @param field field name
+	 * @return true if the page can be sorted by the field
+	 */
+	boolean isSortable(String field);
+
+	/**
+	 * Copy all editable fields from source to target.
+	 *
+	 * @param target entity to merge to
+	 * @param source entity to merge from
+	 * @return target
+	 */
+	T merge(T target, T source);
+
+}
@@ -0,0 +1,251 @@
+package de.init.backend.datatable.metadata;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import javax.persistence.Embedded;
+import javax.persistence.Id;
+import javax.persistence.ManyToMany;
+import javax.persistence.ManyToOne;
+import javax.persistence.OneToMany;
+import javax.persistence.OneToOne;
+import javax.persistence.Transient;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import de.init.backend.datatable.annotation.Editable;
+import de.init.backend.datatable.annotation.Searchable;
+
+/**
+ * Field metadata of an entity class which is needed by the datatable services.
+ * The metadata is computed once per class and kept in a {@link ClassValue}, so
+ * no service has to scan the class hierarchy per request.
+ *
+ * If the annotation processor generated a {@link DatatableDescriptor} for the
+ * class, the field lists are taken from it. Otherwise the annotations are read
+ * by reflection.
+ */
+public final class EntityMetadata {
+
+	private static final ClassValue<EntityMetadata> REGISTRY = new ClassValue<>() {
+		@Override
+		protected EntityMetadata computeValue(Class<?> type) {
+			return new EntityMetadata(type);
+		}
+	};
+
+	private final Class<?> typeClass;
+
+	/** all declared fields of the class hierarchy including static ones */
+	private final List<Field> declaredFields;
+
+	/** instance fields by name, fields of subclasses hide the ones of superclasses */
+	private final Map<String, FieldDescriptor> fields;
+
+	private final DatatableDescriptor<?> descriptor;
+
+	private final FieldDescriptor idField;
+
+	private final Set<FieldDescriptor> searchableFields;
+
+	private final Set<FieldDescriptor> editableFields;
+
+	private final Set<FieldDescriptor> sortableFields;
+
+	private EntityMetadata(Class<?> typeClass) {
+		this.typeClass = typeClass;
+
+		List<Field> declared = new ArrayList<>();
+		for (Class<?> c = typeClass; c != null && !c.equals(Object.class); c = c.getSuperclass())
+			declared.addAll(Arrays.asList(c.getDeclaredFields()));
+		this.declaredFields = Collections.unmodifiableList(declared);
+
+		Map<String, FieldDescriptor> fieldMap = new LinkedHashMap<>();
+		for (Field field : declared) {
+			if (!Modifier.isStatic(field.getModifiers()))
+				fieldMap.putIfAbsent(field.getName(), new FieldDescriptor(field));
+		}
+		this.fields = Collections.unmodifiableMap(fieldMap);
+
+		List<FieldDescriptor> ids = this.filter(field -> field.isAnnotationPresent(Id.class));
+		this.idField = ids.size() == 1 ? ids.get(0) : null;
+
+		this.descriptor = loadDescriptor(typeClass);
+		if (this.descriptor != null) {
+			this.searchableFields = this.getFields(this.descriptor.getSearchableFields());
+			this.editableFields = this.getFields(this.descriptor.getEditableFields());
+			this.sortableFields = this.getFields(this.descriptor.getSortableFields());
+		} else {
+			this.searchableFields = this.getAnnotatedFields(Searchable.class, Searchable::value);
+			this.editableFields = this.getAnnotatedFields(Editable.class, Editable::value);
+			this.sortableFields = this.toSet(this.filter(EntityMetadata::isSortable));
+		}
+	}
+
+	/**
+	 * Return the metadata of the given class.
+	 *
+	 * @param typeClass entity class
+	 * @return EntityMetadata
+	 */
+	public static EntityMetadata of(@NonNull Class<?> typeClass) {
+		return REGISTRY.get(typeClass);
+	}
+
+	public Class<?> getTypeClass() {
+		return this.typeClass;
+	}
+
+	/**
+	 * The generated descriptor of the class.
+	 *
+	 * @param <T> entity type
+	 * @return descriptor or empty if none was generated
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> Optional<DatatableDescriptor<T>> getDescriptor() {
+		return Optional.ofNullable((DatatableDescriptor<T>) this.descriptor);
+	}
+
+	/**
+	 * All declared fields of the class and its superclasses, including static
+	 * fields.
+	 *
+	 * @return unmodifiable List of Field
+	 */
+	public List<Field> getDeclaredFields() {
+		return this.declaredFields;
+	}
+
+	/**
+	 * The one field annotated with {@link Id}.
+	 *
+	 * @return FieldDescriptor
+	 * @throws IllegalArgumentException if the entity has none or multiple id
+	 *                                  fields
+	 */
+	public FieldDescriptor getIdField() {
+		if (this.idField == null)
+			throw new IllegalArgumentException("Entity must have one ID field");
+		return this.idField;
+	}
+
+	/**
+	 * Get the instance field with the given name.
+	 *
+	 * @param name field name
+	 * @return FieldDescriptor
+	 */
+	public Optional<FieldDescriptor> getField(@Nullable String name) {
+		return Optional.ofNullable(name != null ? this.fields.get(name) : null);
+	}
+
+	/**
+	 * Get the instance fields with the given names.
+	 *
+	 * @param names field names
+	 * @return unmodifiable Set of FieldDescriptor
+	 */
+	public Set<FieldDescriptor> getFields(@NonNull Collection<String> names) {
+		return this.toSet(names.stream().map(this.fields::get).filter(field -> field != null)
+				.collect(Collectors.toList()));
+	}
+
+	/**
+	 * Fields annotated with {@link Searchable}.
+	 *
+	 * @return unmodifiable Set of FieldDescriptor
+	 */
+	public Set<FieldDescriptor> getSearchableFields() {
+		return this.searchableFields;
+	}
+
+	/**
+	 * Fields annotated with {@link Editable}.
+	 *
+	 * @return unmodifiable Set of FieldDescriptor
+	 */
+	public Set<FieldDescriptor> getEditableFields() {
+		return this.editableFields;
+	}
+
+	/**
+	 * Persistent single valued fields, which can be used to sort by.
+	 *
+	 * @return unmodifiable Set of FieldDescriptor
+	 */
+	public Set<FieldDescriptor> getSortableFields() {
+		return this.sortableFields;
+	}
+
+	/**
+	 * Get the sortable field with the given name.
+	 *
+	 * @param name field name
+	 * @return FieldDescriptor
+	 */
+	public Optional<FieldDescriptor> getSortableField(@Nullable String name) {
+		return this.getField(name).filter(this.sortableFields::contains);
+	}
+
+	private static DatatableDescriptor<?> loadDescriptor(Class<?> typeClass) {
+		try {
+			Class<?> descriptorClass = Class.forName(typeClass.getName() + DatatableDescriptor.SUFFIX, true,
+					typeClass.getClassLoader());
+			return (DatatableDescriptor<?>) descriptorClass.getDeclaredConstructor().newInstance();
+		} catch (ClassNotFoundException e) {
+			return null;
+		} catch (ReflectiveOperationException | ClassCastException e) {
+			throw new IllegalStateException("Invalid datatable descriptor for " + typeClass, e);
+		}
+	}
+
+	/**
+	 * Fields annotated with the annotation and the fields named by the annotation
+	 * value on the class or its superclasses.
+	 */
+	private <A extends Annotation> Set<FieldDescriptor> getAnnotatedFields(Class<A> annotationClass,
+			Function<A, String[]> names) {
+		Set<FieldDescriptor> annotated = new LinkedHashSet<>(
+				this.filter(field -> field.isAnnotationPresent(annotationClass)));
+		for (Class<?> c = this.typeClass; c != null && !c.equals(Object.class); c = c.getSuperclass()) {
+			A annotation = c.getDeclaredAnnotation(annotationClass);
+			if (annotation != null)
+				annotated.addAll(this.getFields(Arrays.asList(names.apply(annotation))));
+		}
+		return Collections.unmodifiableSet(annotated);
+	}
+
+	private static boolean isSortable(FieldDescriptor descriptor) {
+		Field field = descriptor.getField();
+		return !Modifier.isTransient(field.getModifiers()) && !field.isAnnotationPresent(Transient.class)
+				&& !Collection.class.isAssignableFrom(field.getType()) && !Map.class.isAssignableFrom(field.getType())
+				&& !field.isAnnotationPresent(OneToMany.class) && !field.isAnnotationPresent(ManyToMany.class)
+				&& !field.isAnnotationPresent(ManyToOne.class) && !field.isAnnotationPresent(OneToOne.class)
+				&& !field.isAnnotationPresent(Embedded.class);
+	}
+
+	private List<FieldDescriptor> filter(Predicate<FieldDescriptor> predicate) {
+		return this.fields.values().stream().filter(predicate).collect(Collectors.toList());
+	}
+
+	private Set<FieldDescriptor> toSet(List<FieldDescriptor> list) {
+		return Collections.unmodifiableSet(new LinkedHashSet<>(list));
+	}
+
+}
@@ -0,0 +1,120 @@
+package de.init.backend.datatable.metadata;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Field;
+
+import javax.persistence.Column;
+import javax.persistence.Id;
+
+import org.springframework.lang.NonNull;
+
+/**
+ * Describes one field of an entity with its accessors. The accessors are
+ * resolved once as {@link VarHandle} and {@link MethodHandle}, so reading and
+ * writing the field needs no reflection and no access checks per call.
+ */
+public final class FieldDescriptor {
+
+	private final Field field;
+
+	private final VarHandle varHandle;
+
+	/** getter with erased signature (Object)Object */
+	private final MethodHandle getter;
+
+	/** setter with erased signature (Object,Object)void */
+	private final MethodHandle setter;
+
+	private final boolean notNull;
+
+	FieldDescriptor(@NonNull Field field) {
+		this.field = field;
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(field.getDeclaringClass(),
+					MethodHandles.lookup());
+			this.varHandle = lookup.unreflectVarHandle(field);
+			this.getter = lookup.unreflectGetter(field)
+					.asType(MethodType.methodType(Object.class, Object.class));
+			this.setter = lookup.unreflectSetter(field)
+					.asType(MethodType.methodType(void.class, Object.class, Object.class));
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException("Field " + field + " not accessible", e);
+		}
+
+		Column column = field.getAnnotation(Column.class);
+		this.notNull = field.getType().isPrimitive() || field.isAnnotationPresent(Id.class)
+				|| (column != null && !column.nullable());
+	}
+
+	/**
+	 * Read the field value of the given entity.
+	 *
+	 * @param entity instance of the declaring class
+	 * @return field value
+	 */
+	public Object get(Object entity) {
+		try {
+			return (Object) this.getter.invokeExact(entity);
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new IllegalStateException("Could not read field " + this.field, e);
+		}
+	}
+
+	/**
+	 * Write the field value of the given entity.
+	 *
+	 * @param entity instance of the declaring class
+	 * @param value  new field value
+	 */
+	public void set(Object entity, Object value) {
+		try {
+			this.setter.invokeExact(entity, value);
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new IllegalStateException("Could not write field " + this.field, e);
+		}
+	}
+
+	public String getName() {
+		return this.field.getName();
+	}
+
+	public Class<?> getType() {
+		return this.field.getType();
+	}
+
+	public Field getField() {
+		return this.field;
+	}
+
+	public VarHandle getVarHandle() {
+		return this.varHandle;
+	}
+
+	public boolean isAnnotationPresent(Class<? extends Annotation> annotationClass) {
+		return this.field.isAnnotationPresent(annotationClass);
+	}
+
+	/**
+	 * Whether the column of the field can't contain NULL, because it is a
+	 * primitive, the id or a not nullable column.
+	 *
+	 * @return boolean
+	 */
+	public boolean isNotNull() {
+		return this.notNull;
+	}
+
+	@Override
+	public String toString() {
+		return this.field.toString();
+	}
+
+}
@@ -8,11 +8,27 @@ public class SearchQueryParseException extends RuntimeException {
 
 	private static final long serialVersionUID = 1L;
 
+	/** position of the error in the query, -1 if unknown */
+	private final int position;
+
 	public SearchQueryParseException(String message) {
+		this(message, -1);
+	}
+
+	public SearchQueryParseException(String message, int position) {
 		super(message);
+		this.position = position;
 	}
 
 	public SearchQueryParseException() {
 		super("Could not parse search query.");
+		this.position = -1;
+	}
+
+	/**
+	 * @return zero based position of the error in the query, -1 if unknown
+	 */
+	public int getPosition() {
+		return position;
 	}
 }
@@ -1,14 +1,17 @@
 package de.init.backend.datatable.search;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 
-import com.google.common.base.Joiner;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
 
 import cz.jirutka.rsql.parser.RSQLParser;
 import cz.jirutka.rsql.parser.RSQLParserException;
@@ -17,7 +20,10 @@ import de.init.backend.datatable.search.jpa.CriteriaParser;
 import de.init.backend.datatable.search.jpa.SearchOperation;
 import de.init.backend.datatable.search.jpa.SearchSpecification;
 import de.init.backend.datatable.search.jpa.SearchSpecificationBuilder;
+import de.init.backend.datatable.search.jpa.SimpleCriteriaParser;
 import de.init.backend.datatable.search.rsql.CustomRsqlVisitor;
+import de.init.backend.datatable.search.rsql.InListStrategy;
+import de.init.backend.datatable.search.rsql.RsqlOptimizer;
 
 /**
  * Provide functions to create Specifications from a string. Can used as search api. Throws
@@ -29,6 +35,18 @@ public class SearchService {
 
 	private static final Logger LOG = LoggerFactory.getLogger(SearchService.class);
 
+	/** max summed up length of the cached RSQL queries */
+	private static final long RSQL_CACHE_MAX_WEIGHT = 1_000_000;
+
+	/**
+	 * Parsed RSQL queries and their specifications by normalized query string.
+	 * Queries which could not be parsed are cached as negative entries.
+	 */
+	private static final Cache<String, CompiledRsql> RSQL_CACHE = CacheBuilder.newBuilder()
+			.maximumWeight(RSQL_CACHE_MAX_WEIGHT)
+			.weigher((Weigher<String, CompiledRsql>) (query, compiled) -> query.length() + 1)
+			.build();
+
 	/**
 	 * Using simple search expressions. Like: "firstName:john,'lastName:do*" Different operations can be found in
 	 * {@link SearchOperation}.
@@ -40,18 +58,10 @@ public class SearchService {
 	 */
 	public static <T> Specification<T> createSpecification(String query) {
 		try {
-			SearchSpecificationBuilder<T> builder = new SearchSpecificationBuilder<>();
-			String operationSetExper = Joiner.on("|").join(SearchOperation.SIMPLE_OPERATION_SET);
-			Pattern pattern = Pattern.compile(
-					"(\\p{Punct}?)(\\w+?\\.?\\w+?)(" + operationSetExper + ")(\\p{Punct}?)(\\w+?)(\\p{Punct}?),");
-
-			Matcher matcher = pattern.matcher(query + ",");
-			while (matcher.find()) {
-				builder.with(matcher.group(1), matcher.group(2), matcher.group(3), matcher.group(5), matcher.group(4),
-						matcher.group(6));
-			}
-
-			return builder.build();
+			return new SearchSpecificationBuilder<T>(new SimpleCriteriaParser().parse(query)).build();
+		} catch (SearchQueryParseException ex) {
+			LOG.debug("SearchService: invalid query {}: {}", query, ex.getMessage());
+			throw ex;
 		} catch (RuntimeException ex) {
 			LOG.error("Error creating Specification width query: " + query, ex);
 			throw new SearchQueryParseException();
@@ -59,8 +69,8 @@ public class SearchService {
 	}
 
 	/**
-	 * Using valid infix expression. Like: "( firstName:john OR firstName:tom ) AND age>22" Individual criteria,
-	 * operators & grouping parenthesis are separated with a space. Different operations can be found in
+	 * Using valid infix expression. Like: "( firstName:john OR firstName:tom ) AND age>22" Individual criteria and
+	 * operators are separated with whitespace, grouping parenthesis need none. Different operations can be found in
 	 * {@link SearchOperation}.
 	 *
 	 * @param <T> type of applicable data class
@@ -73,6 +83,9 @@ public class SearchService {
 			CriteriaParser parser = new CriteriaParser();
 			SearchSpecificationBuilder<T> builder = new SearchSpecificationBuilder<>();
 			return builder.build(parser.parse(query), SearchSpecification::new);
+		} catch (SearchQueryParseException ex) {
+			LOG.debug("SearchService: invalid query {}: {}", query, ex.getMessage());
+			throw ex;
 		} catch (RuntimeException ex) {
 			LOG.error("Error creating Specification width query: " + query, ex);
 			throw new SearchQueryParseException();
@@ -89,12 +102,112 @@ public class SearchService {
 	 * @return Specification can be used to perform a JPA query with {@link JpaSpecificationExecutor}.
 	 */
 	public static <T> Specification<T> createSpecificationWithRSQL(String query) {
-		try {
-			Node rootNode = new RSQLParser().parse(query);
-			return rootNode.accept(new CustomRsqlVisitor<>());
-		} catch (RSQLParserException ex) {
-			LOG.error("SearchService Error: creating Specification width query: " + query, ex);
+		return compileRSQL(query).specification(InListStrategy.DEFAULT);
+	}
+
+	/**
+	 * Like {@link #createSpecificationWithRSQL(String)}, but the IN lists are
+	 * created by the given strategy. Long integral lists are bound to its temp
+	 * table before, so this has to be called in the transaction of the query.
+	 *
+	 * @param <T> type of applicable data class
+	 * @param query RSQL expression
+	 * @param inListStrategy creates the predicates of the IN lists
+	 * @param typeClass entity the specification is applied to
+	 * @return Specification can be used to perform a JPA query with {@link JpaSpecificationExecutor}.
+	 */
+	public static <T> Specification<T> createSpecificationWithRSQL(String query, InListStrategy inListStrategy,
+			Class<T> typeClass) {
+		CompiledRsql compiled = compileRSQL(query);
+		InListStrategy bound = inListStrategy.bind(compiled.optimized, typeClass);
+		// lists bound to the current transaction, the specification can't be shared
+		if (bound != inListStrategy)
+			return compiled.optimized.accept(new CustomRsqlVisitor<>(bound));
+		return compiled.specification(inListStrategy);
+	}
+
+	/**
+	 * Parse a RSQL expression. The result is cached, so the returned node must not
+	 * be modified. The specification is created from the AST optimized by
+	 * {@link RsqlOptimizer}, this method returns the AST as parsed.
+	 *
+	 * @param query RSQL expression
+	 * @return root node of the RSQL AST
+	 */
+	public static Node parseRSQL(String query) {
+		return compileRSQL(query).ast;
+	}
+
+	/**
+	 * Hit and miss statistics of the RSQL cache used by
+	 * {@link #createSpecificationWithRSQL(String)}.
+	 *
+	 * @return CacheStats
+	 */
+	public static CacheStats getRSQLCacheStats() {
+		return RSQL_CACHE.stats();
+	}
+
+	private static CompiledRsql compileRSQL(String query) {
+		String key = normalizeRSQL(query);
+		CompiledRsql compiled = RSQL_CACHE.getIfPresent(key);
+		if (compiled == null) {
+			compiled = CompiledRsql.compile(key);
+			RSQL_CACHE.put(key, compiled);
+			if (compiled.error != null)
+				LOG.error("SearchService Error: creating Specification width query: " + query, compiled.error);
+		} else if (compiled.error != null) {
+			LOG.debug("SearchService: rejected cached invalid query: {}", query);
+		}
+
+		if (compiled.error != null)
 			throw new SearchQueryParseException();
+		return compiled;
+	}
+
+	/**
+	 * Normalize the query string for the cache key. Whitespaces are only relevant
+	 * inside of quoted arguments, so only the outer ones are removed.
+	 */
+	private static String normalizeRSQL(String query) {
+		return query.trim();
+	}
+
+	/**
+	 * Cache entry of a parsed RSQL query with its specifications or the parse
+	 * error.
+	 */
+	private static final class CompiledRsql {
+
+		private final Node ast;
+		private final Node optimized;
+		private final RSQLParserException error;
+
+		/**
+		 * specifications by unbound IN list strategy, they don't depend on the entity
+		 * type, so they can be shared
+		 */
+		private final Map<InListStrategy, Specification<?>> specifications = new ConcurrentHashMap<>();
+
+		private CompiledRsql(Node ast, Node optimized, RSQLParserException error) {
+			this.ast = ast;
+			this.optimized = optimized;
+			this.error = error;
+		}
+
+		private static CompiledRsql compile(String query) {
+			try {
+				Node rootNode = new RSQLParser().parse(query);
+				return new CompiledRsql(rootNode, RsqlOptimizer.optimize(rootNode), null);
+			} catch (RSQLParserException ex) {
+				return new CompiledRsql(null, null, ex);
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		private <T> Specification<T> specification(InListStrategy inListStrategy) {
+			return (Specification<T>) this.specifications.computeIfAbsent(inListStrategy,
+					strategy -> this.optimized.accept(new CustomRsqlVisitor<>(strategy)));
 		}
 	}
 
@@ -0,0 +1,177 @@
+package de.init.backend.datatable.search.jpa;
+
+import de.init.backend.datatable.search.SearchQueryParseException;
+
+/**
+ * Single pass scanner over a search query, shared by the parsers of the simple
+ * and the infix syntax. A criterion is scanned as
+ * <tt>key operation [prefix] value [suffix]</tt>, like <tt>lastName:do*</tt>:
+ * <ul>
+ * <li>key and value consist of word characters (<tt>[a-zA-Z0-9_]</tt>),</li>
+ * <li>the operation is one of {@link SearchOperation#SIMPLE_OPERATION_SET},</li>
+ * <li>prefix and suffix are optional punctuation characters, a <tt>*</tt>
+ * turns an equality into a like.</li>
+ * </ul>
+ */
+final class CriteriaLexer {
+
+	private final String input;
+
+	private int position;
+
+	CriteriaLexer(String input) {
+		this.input = input;
+	}
+
+	int position() {
+		return position;
+	}
+
+	void position(int position) {
+		this.position = position;
+	}
+
+	int length() {
+		return input.length();
+	}
+
+	char charAt(int index) {
+		return input.charAt(index);
+	}
+
+	boolean atEnd() {
+		return position >= input.length();
+	}
+
+	/**
+	 * @return current character, 0 at the end of the input
+	 */
+	char peek() {
+		return atEnd() ? 0 : input.charAt(position);
+	}
+
+	void skip() {
+		position++;
+	}
+
+	void skipWhitespace() {
+		while (!atEnd() && Character.isWhitespace(input.charAt(position)))
+			position++;
+	}
+
+	/**
+	 * Scan a word at the current position without consuming it.
+	 *
+	 * @return end of the word, the current position if there is none
+	 */
+	int wordEnd() {
+		int end = position;
+		while (end < input.length() && isWordChar(input.charAt(end)))
+			end++;
+		return end;
+	}
+
+	/**
+	 * @return true if the characters from the current position to the end are
+	 *         equal to the keyword
+	 */
+	boolean isKeyword(String keyword, int end) {
+		return end - position == keyword.length() && input.startsWith(keyword, position);
+	}
+
+	/**
+	 * @return true if the character is one of
+	 *         {@link SearchOperation#SIMPLE_OPERATION_SET}
+	 */
+	static boolean isOperation(char c) {
+		return operationIndex(c) >= 0;
+	}
+
+	/**
+	 * Scan a criterion at the current position.
+	 *
+	 * @param orPredicate {@link SearchOperation#OR_PREDICATE_FLAG} or null
+	 * @param nestedKey   if the key may contain one dot, like
+	 *                    <tt>address.city</tt>
+	 * @return SearchCriteria
+	 */
+	SearchCriteria criterion(String orPredicate, boolean nestedKey) {
+		int keyStart = position;
+		position = wordEnd();
+		if (position == keyStart)
+			throw error("attribute name");
+		if (nestedKey && peek() == '.') {
+			position++;
+			int end = wordEnd();
+			if (end == position)
+				throw error("attribute name");
+			position = end;
+		}
+		String key = input.substring(keyStart, position);
+
+		int operationIndex = operationIndex(peek());
+		if (operationIndex < 0)
+			throw error("operation " + String.join(" ", SearchOperation.SIMPLE_OPERATION_SET));
+		String operation = SearchOperation.SIMPLE_OPERATION_SET[operationIndex];
+		position++;
+
+		String prefix = affix();
+		int valueStart = position;
+		position = wordEnd();
+		if (position == valueStart)
+			throw error("value");
+		String value = input.substring(valueStart, position);
+		String suffix = affix();
+
+		return new SearchCriteria(orPredicate, key, operation, prefix, value, suffix);
+	}
+
+	/**
+	 * Consume an optional prefix or suffix of the value.
+	 *
+	 * @return {@link SearchOperation#ZERO_OR_MORE_REGEX} for a <tt>*</tt>, null
+	 *         otherwise
+	 */
+	private String affix() {
+		char c = peek();
+		if (!isPunct(c) || c == ',' || c == '(' || c == ')')
+			return null;
+		position++;
+		return c == '*' ? SearchOperation.ZERO_OR_MORE_REGEX : null;
+	}
+
+	/**
+	 * Error at the current position.
+	 *
+	 * @param expected description of the expected input
+	 * @return SearchQueryParseException
+	 */
+	SearchQueryParseException error(String expected) {
+		String found = atEnd() ? "end of query" : "'" + input.charAt(position) + "'";
+		return new SearchQueryParseException(
+				"Expected " + expected + " but found " + found + " at column " + (position + 1), position);
+	}
+
+	private static int operationIndex(char c) {
+		for (int i = 0; i < SearchOperation.SIMPLE_OPERATION_SET.length; i++) {
+			if (SearchOperation.SIMPLE_OPERATION_SET[i].charAt(0) == c)
+				return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * ASCII word character, like <tt>\w</tt>
+	 */
+	private static boolean isWordChar(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+	}
+
+	/**
+	 * ASCII punctuation character, like <tt>\p{Punct}</tt>
+	 */
+	private static boolean isPunct(char c) {
+		return (c >= '!' && c <= '/') || (c >= ':' && c <= '@') || (c >= '[' && c <= '`') || (c >= '{' && c <= '~');
+	}
+
+}
@@ -0,0 +1,57 @@
+package de.init.backend.datatable.search.jpa;
+
+/**
+ * Node of a parsed infix search expression. A node is either a leaf with a
+ * {@link SearchCriteria} or an operator ({@link SearchOperation#AND_OPERATOR},
+ * {@link SearchOperation#OR_OPERATOR}) with a left and a right operand.
+ */
+public final class CriteriaNode {
+
+	private final SearchCriteria criteria;
+	private final String operator;
+	private final CriteriaNode left;
+	private final CriteriaNode right;
+
+	private CriteriaNode(SearchCriteria criteria, String operator, CriteriaNode left, CriteriaNode right) {
+		this.criteria = criteria;
+		this.operator = operator;
+		this.left = left;
+		this.right = right;
+	}
+
+	public static CriteriaNode leaf(SearchCriteria criteria) {
+		return new CriteriaNode(criteria, null, null, null);
+	}
+
+	public static CriteriaNode of(String operator, CriteriaNode left, CriteriaNode right) {
+		return new CriteriaNode(null, operator, left, right);
+	}
+
+	public boolean isLeaf() {
+		return criteria != null;
+	}
+
+	public SearchCriteria getCriteria() {
+		return criteria;
+	}
+
+	public String getOperator() {
+		return operator;
+	}
+
+	public CriteriaNode getLeft() {
+		return left;
+	}
+
+	public CriteriaNode getRight() {
+		return right;
+	}
+
+	@Override
+	public String toString() {
+		if (isLeaf())
+			return criteria.getKey() + " " + criteria.getOperation() + " " + criteria.getValue();
+		return "(" + left + " " + operator + " " + right + ")";
+	}
+
+}
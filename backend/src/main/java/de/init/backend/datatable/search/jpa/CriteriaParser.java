@@ -1,80 +1,107 @@
 package de.init.backend.datatable.search.jpa;
 
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.Deque;
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import com.google.common.base.Joiner;
+import de.init.backend.datatable.search.SearchQueryParseException;
 
+/**
+ * Parser of infix search expressions, like
+ * <tt>( firstName:john OR firstName:tom ) AND age&gt;22</tt>. The operators
+ * are <tt>AND</tt> / <tt>and</tt> and <tt>OR</tt> / <tt>or</tt>, AND binds
+ * stronger than OR. The query is scanned in one pass and the tree is built by
+ * precedence climbing.
+ */
 public class CriteriaParser {
 
-	private static final Map<String, Operator> ops;
-
-	private static final Pattern SpecCriteraRegex = Pattern.compile("^(\\w+?)("
-			+ Joiner.on("|").join(SearchOperation.SIMPLE_OPERATION_SET) + ")(\\p{Punct}?)(\\w+?)(\\p{Punct}?)$");
-
 	private enum Operator {
-		OR(1), AND(2);
+		OR(1, SearchOperation.OR_OPERATOR), AND(2, SearchOperation.AND_OPERATOR);
 
 		final int precedence;
+		final String name;
 
-		Operator(int p) {
+		Operator(int p, String name) {
 			precedence = p;
+			this.name = name;
 		}
 	}
 
-	static {
-		Map<String, Operator> tempMap = new HashMap<>();
-		tempMap.put("AND", Operator.AND);
-		tempMap.put("OR", Operator.OR);
-		tempMap.put("or", Operator.OR);
-		tempMap.put("and", Operator.AND);
-
-		ops = Collections.unmodifiableMap(tempMap);
+	/**
+	 * Parse the infix expression.
+	 *
+	 * @param searchParam infix expression
+	 * @return root of the expression tree
+	 * @throws SearchQueryParseException with the position of the error
+	 */
+	public CriteriaNode parse(String searchParam) {
+		Parser parser = new Parser(new CriteriaLexer(searchParam));
+		CriteriaNode root = parser.expression(Operator.OR.precedence);
+		if (!parser.lexer.atEnd())
+			throw parser.lexer.error("AND, OR or end of query");
+		return root;
 	}
 
-	private static boolean isHigerPrecedenceOperator(String currOp, String prevOp) {
-		return (ops.containsKey(prevOp) && ops.get(prevOp).precedence >= ops.get(currOp).precedence);
-	}
+	/**
+	 * State of one parse run.
+	 */
+	private static final class Parser {
+
+		private final CriteriaLexer lexer;
+
+		private Parser(CriteriaLexer lexer) {
+			this.lexer = lexer;
+		}
 
-	public Deque<?> parse(String searchParam) {
+		private CriteriaNode expression(int minPrecedence) {
+			CriteriaNode left = primary();
+			Operator operator = operator();
+			while (operator != null && operator.precedence >= minPrecedence) {
+				lexer.position(lexer.wordEnd());
+				CriteriaNode right = expression(operator.precedence + 1);
+				left = CriteriaNode.of(operator.name, left, right);
+				operator = operator();
+			}
+			return left;
+		}
 
-        Deque<Object> output = new LinkedList<>();
-        Deque<String> stack = new LinkedList<>();
-        Arrays.stream(searchParam.split("\\s+")).forEach(token -> {
-            if (ops.containsKey(token)) {
-                while (!stack.isEmpty() && isHigerPrecedenceOperator(token, stack.peek()))
-                    output.push(stack.pop()
-                        .equalsIgnoreCase(SearchOperation.OR_OPERATOR) ? SearchOperation.OR_OPERATOR : SearchOperation.AND_OPERATOR);
-                stack.push(token.equalsIgnoreCase(SearchOperation.OR_OPERATOR) ? SearchOperation.OR_OPERATOR : SearchOperation.AND_OPERATOR);
-            } else if (token.equals(SearchOperation.LEFT_PARANTHESIS)) {
-                stack.push(SearchOperation.LEFT_PARANTHESIS);
-            } else if (token.equals(SearchOperation.RIGHT_PARANTHESIS)) {
-                while (!stack.peek()
-                    .equals(SearchOperation.LEFT_PARANTHESIS))
-                    output.push(stack.pop());
-                stack.pop();
-            } else {
-				String prevOp = stack.peek();
-				String orPredicate = 
-						(prevOp != null && prevOp.equalsIgnoreCase(SearchOperation.OR_OPERATOR))
-						? SearchOperation.OR_OPERATOR : SearchOperation.AND_OPERATOR;
-				
-                Matcher matcher = SpecCriteraRegex.matcher(token);
-                while (matcher.find()) {
-                    output.push(new SearchCriteria(orPredicate, matcher.group(1), matcher.group(2), matcher.group(3), matcher.group(4), matcher.group(5)));
-                }
-            }
-        });
+		private CriteriaNode primary() {
+			lexer.skipWhitespace();
+			if (lexer.peek() == '(') {
+				lexer.skip();
+				CriteriaNode node = expression(Operator.OR.precedence);
+				lexer.skipWhitespace();
+				if (lexer.peek() != ')')
+					throw lexer.error("')'");
+				lexer.skip();
+				return node;
+			}
+			if (operatorAt(lexer.wordEnd()) != null)
+				throw lexer.error("search criterion or '('");
+			return CriteriaNode.leaf(lexer.criterion(null, false));
+		}
 
-        while (!stack.isEmpty())
-            output.push(stack.pop());
+		/**
+		 * Peek the operator after the current operand without consuming it.
+		 *
+		 * @return the operator, null before a ')' or at the end of the query
+		 */
+		private Operator operator() {
+			lexer.skipWhitespace();
+			if (lexer.atEnd() || lexer.peek() == ')')
+				return null;
+			Operator operator = operatorAt(lexer.wordEnd());
+			if (operator == null)
+				throw lexer.error("AND, OR, ')' or end of query");
+			return operator;
+		}
 
-        return output;
-    }
+		private Operator operatorAt(int end) {
+			// a keyword followed by an operation is an attribute name, like "or:x"
+			if (end < lexer.length() && CriteriaLexer.isOperation(lexer.charAt(end)))
+				return null;
+			if (lexer.isKeyword("AND", end) || lexer.isKeyword("and", end))
+				return Operator.AND;
+			if (lexer.isKeyword("OR", end) || lexer.isKeyword("or", end))
+				return Operator.OR;
+			return null;
+		}
+	}
 
-}
\ No newline at end of file
+}
@@ -1,9 +1,6 @@
 package de.init.backend.datatable.search.jpa;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Deque;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -80,27 +77,20 @@ public class SearchSpecificationBuilder<T> {
 		return result;
 	}
 
-	public Specification<T> build(Deque<?> postFixedExprStack, Function<SearchCriteria, Specification<T>> converter) {
-		Deque<Specification<T>> specStack = new LinkedList<>();
-
-		Collections.reverse((List<?>) postFixedExprStack);
-
-		while (!postFixedExprStack.isEmpty()) {
-			Object mayBeOperand = postFixedExprStack.pop();
-
-			if (!(mayBeOperand instanceof String)) {
-				specStack.push(converter.apply((SearchCriteria) mayBeOperand));
-			} else {
-				Specification<T> operand1 = specStack.pop();
-				Specification<T> operand2 = specStack.pop();
-				if (mayBeOperand.equals(SearchOperation.AND_OPERATOR))
-					specStack.push(Specification.where(operand1).and(operand2));
-				else if (mayBeOperand.equals(SearchOperation.OR_OPERATOR))
-					specStack.push(Specification.where(operand1).or(operand2));
-			}
-
-		}
-		return specStack.pop();
-
+	/**
+	 * Build the specification of a parsed infix expression.
+	 *
+	 * @param node      root of the expression tree, see {@link CriteriaParser}
+	 * @param converter creates the specification of a criteria
+	 * @return Specification
+	 */
+	public Specification<T> build(CriteriaNode node, Function<SearchCriteria, Specification<T>> converter) {
+		if (node.isLeaf())
+			return converter.apply(node.getCriteria());
+
+		Specification<T> left = build(node.getLeft(), converter);
+		Specification<T> right = build(node.getRight(), converter);
+		return SearchOperation.AND_OPERATOR.equals(node.getOperator()) ? Specification.where(left).and(right)
+				: Specification.where(left).or(right);
 	}
 }
@@ -0,0 +1,49 @@
+package de.init.backend.datatable.search.jpa;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.init.backend.datatable.search.SearchQueryParseException;
+
+/**
+ * Parser of simple search expressions, like
+ * <tt>firstName:john,'lastName:do*</tt>. The criteria are separated by
+ * <tt>,</tt>, a criteria with the {@link SearchOperation#OR_PREDICATE_FLAG} is
+ * OR'ed with the previous ones, otherwise AND'ed. The query is scanned in one
+ * pass.
+ */
+public class SimpleCriteriaParser {
+
+	/**
+	 * Parse the simple expression.
+	 *
+	 * @param query simple expression
+	 * @return criteria in the order of the query, empty for a blank query
+	 * @throws SearchQueryParseException with the position of the error
+	 */
+	public List<SearchCriteria> parse(String query) {
+		List<SearchCriteria> criteria = new ArrayList<>();
+		CriteriaLexer lexer = new CriteriaLexer(query);
+		lexer.skipWhitespace();
+		if (lexer.atEnd())
+			return criteria;
+
+		while (true) {
+			lexer.skipWhitespace();
+			String orPredicate = null;
+			if (lexer.peek() == SearchOperation.OR_PREDICATE_FLAG.charAt(0)) {
+				lexer.skip();
+				orPredicate = SearchOperation.OR_PREDICATE_FLAG;
+			}
+			criteria.add(lexer.criterion(orPredicate, true));
+
+			lexer.skipWhitespace();
+			if (lexer.atEnd())
+				return criteria;
+			if (lexer.peek() != ',')
+				throw lexer.error("',' or end of query");
+			lexer.skip();
+		}
+	}
+
+}
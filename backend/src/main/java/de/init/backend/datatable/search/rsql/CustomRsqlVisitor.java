@@ -12,7 +12,14 @@ public class CustomRsqlVisitor<T> implements RSQLVisitor<Specification<T>, Void>
     private final RsqlSpecificationBuilder<T> builder;
  
     public CustomRsqlVisitor() {
-        builder = new RsqlSpecificationBuilder<>();
+        this(InListStrategy.DEFAULT);
+    }
+
+    /**
+     * @param inListStrategy creates the predicates of the IN lists
+     */
+    public CustomRsqlVisitor(InListStrategy inListStrategy) {
+        builder = new RsqlSpecificationBuilder<>(inListStrategy);
     }
  
     @Override
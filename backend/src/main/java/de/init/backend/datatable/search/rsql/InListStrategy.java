@@ -0,0 +1,266 @@
+package de.init.backend.datatable.search.rsql;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
+import javax.persistence.metamodel.ManagedType;
+
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import cz.jirutka.rsql.parser.ast.ComparisonNode;
+import cz.jirutka.rsql.parser.ast.LogicalNode;
+import cz.jirutka.rsql.parser.ast.Node;
+import cz.jirutka.rsql.parser.ast.RSQLOperators;
+
+/**
+ * Builds the predicates of <tt>=in=</tt> and <tt>=out=</tt> comparisons.
+ * <ul>
+ * <li>Lists are padded to the next power of two by repeating the last value,
+ * so the database sees only a few statement shapes and can reuse its
+ * plans.</li>
+ * <li>Lists longer than the chunk size are split into OR'ed IN lists of at
+ * most chunk size values, which keeps every list below the limit of the
+ * database (1000 on Oracle).</li>
+ * <li>Integral lists with at least temp table threshold values are inserted
+ * into a temporary table of the session by {@link #bind(Node, Class)} and
+ * compared by a subquery on {@link InListValue}.</li>
+ * </ul>
+ *
+ * The temporary table <tt>tmp_datatable_in_list</tt> is created when a
+ * connection is set up (<tt>spring.datasource.hikari.connection-init-sql</tt>)
+ * with <tt>ON COMMIT DELETE ROWS</tt>, so the strategy only inserts rows. This
+ * works in read-only transactions too: H2 treats read-only as a hint and
+ * PostgreSQL allows writes to temporary tables in read-only transactions, but
+ * no <tt>CREATE</tt>. Without transaction the lists are chunked, the rows
+ * would be deleted before the query.
+ *
+ * The strategy is passed to the specifications by {@link CustomRsqlVisitor},
+ * {@link #DEFAULT} is used without Spring context.
+ */
+@Component
+public class InListStrategy {
+
+	private static final int DEFAULT_CHUNK_SIZE = 1000;
+
+	/** chunked IN lists without temp table */
+	public static final InListStrategy DEFAULT = new InListStrategy(DEFAULT_CHUNK_SIZE, 0, null);
+
+	private static final int BATCH_SIZE = 500;
+
+	private static final String INSERT = "INSERT INTO " + InListValue.TABLE + " (list_id, id_value) VALUES (?, ?)";
+
+	private final int chunkSize;
+
+	private final int tempTableThreshold;
+
+	private final EntityManager entityManager;
+
+	/** ids of the lists in the temp table by their values, empty if unbound */
+	private final Map<List<Long>, String> tempLists;
+
+	/**
+	 * @param chunkSize          max amount of values in one IN list
+	 * @param tempTableThreshold min amount of values to use the temp table, 0
+	 *                           to disable, requires the table on every
+	 *                           connection
+	 * @param entityManager      transactional EntityManager
+	 */
+	@Autowired
+	public InListStrategy(@Value("${app.datatable.in-list.chunk-size}") int chunkSize,
+			@Value("${app.datatable.in-list.temp-table-threshold}") int tempTableThreshold,
+			EntityManager entityManager) {
+		this(chunkSize, tempTableThreshold, entityManager, Map.of());
+		if (chunkSize < 1)
+			throw new IllegalArgumentException("IN list chunk size must be positive");
+	}
+
+	private InListStrategy(int chunkSize, int tempTableThreshold, EntityManager entityManager,
+			Map<List<Long>, String> tempLists) {
+		this.chunkSize = chunkSize;
+		this.tempTableThreshold = tempTableThreshold;
+		this.entityManager = entityManager;
+		this.tempLists = tempLists;
+	}
+
+	/**
+	 * Insert the integral lists of the AST with at least temp table threshold
+	 * values into the temp table, before the specifications are created. A list
+	 * is inserted once per transaction. Has to be called in the transaction of
+	 * the query, which may be read-only.
+	 *
+	 * @param node      optimized AST
+	 * @param typeClass entity the AST is applied to
+	 * @return strategy which compares the inserted lists by subquery, this
+	 *         strategy if no list was inserted
+	 */
+	public InListStrategy bind(Node node, Class<?> typeClass) {
+		if (this.tempTableThreshold < 1 || this.entityManager == null
+				|| !TransactionSynchronizationManager.isActualTransactionActive())
+			return this;
+
+		ManagedType<?> type = this.entityManager.getMetamodel().managedType(typeClass);
+		List<List<Long>> lists = new ArrayList<>();
+		this.collect(node, type, lists);
+		if (lists.isEmpty())
+			return this;
+
+		Map<List<Long>, String> inserted = this.insertedLists();
+		Map<List<Long>, String> tempLists = new HashMap<>();
+		for (List<Long> ids : lists)
+			tempLists.put(ids, inserted.computeIfAbsent(ids, this::insert));
+		return new InListStrategy(this.chunkSize, this.tempTableThreshold, this.entityManager, tempLists);
+	}
+
+	/**
+	 * Create the predicate <tt>expression IN (values)</tt>. Doesn't access the
+	 * database, lists of the temp table have to be bound before.
+	 *
+	 * @param builder    CriteriaBuilder
+	 * @param query      query the predicate is used in
+	 * @param expression compared expression
+	 * @param values     converted arguments
+	 * @return Predicate
+	 */
+	public Predicate in(CriteriaBuilder builder, CriteriaQuery<?> query, Expression<?> expression,
+			Collection<Object> values) {
+		List<Object> distinct = new ArrayList<>(new LinkedHashSet<>(values));
+
+		List<Long> ids = this.tempLists.isEmpty() ? null : toIds(distinct);
+		String listId = ids != null ? this.tempLists.get(ids) : null;
+		if (listId != null) {
+			Subquery<Long> subquery = query.subquery(Long.class);
+			Root<InListValue> root = subquery.from(InListValue.class);
+			subquery.select(root.get("value")).where(builder.equal(root.get("listId"), listId));
+			return expression.in(subquery);
+		}
+
+		List<Predicate> chunks = new ArrayList<>();
+		for (int from = 0; from < distinct.size(); from += this.chunkSize) {
+			List<Object> chunk = distinct.subList(from, Math.min(from + this.chunkSize, distinct.size()));
+			chunks.add(expression.in(this.pad(chunk)));
+		}
+		return chunks.size() == 1 ? chunks.get(0) : builder.or(chunks.toArray(new Predicate[0]));
+	}
+
+	/**
+	 * Collect the distinct values of the long integral lists, which are compared
+	 * by {@link #in(CriteriaBuilder, CriteriaQuery, Expression, Collection)} like
+	 * {@link RsqlSpecification} calls it.
+	 */
+	private void collect(Node node, ManagedType<?> type, List<List<Long>> lists) {
+		if (node instanceof LogicalNode) {
+			((LogicalNode) node).getChildren().forEach(child -> this.collect(child, type, lists));
+			return;
+		}
+
+		ComparisonNode comparison = (ComparisonNode) node;
+		boolean equalAny = comparison.getOperator().equals(RsqlOptimizer.EQUAL_ANY);
+		if (comparison.getArguments().size() < this.tempTableThreshold || !equalAny
+				&& !comparison.getOperator().equals(RSQLOperators.IN)
+				&& !comparison.getOperator().equals(RSQLOperators.NOT_IN))
+			return;
+
+		SelectorPlan plan = SelectorPlan.of(type, comparison.getSelector());
+		List<Object> values = comparison.getArguments().stream().map(plan.getConverter())
+				.collect(Collectors.toList());
+		// equalAny compares null by IS NULL, only the other values by IN
+		if (equalAny)
+			values.removeIf(value -> value == null);
+		List<Long> ids = toIds(new ArrayList<>(new LinkedHashSet<>(values)));
+		if (ids != null && ids.size() >= this.tempTableThreshold)
+			lists.add(ids);
+	}
+
+	/**
+	 * @return the values as longs, null if not all are Long or Integer
+	 */
+	private static List<Long> toIds(List<Object> values) {
+		List<Long> ids = new ArrayList<>(values.size());
+		for (Object value : values) {
+			if (!(value instanceof Long) && !(value instanceof Integer))
+				return null;
+			ids.add(((Number) value).longValue());
+		}
+		return ids;
+	}
+
+	/**
+	 * Pad the list to the next power of two, but not above the chunk size.
+	 */
+	private List<Object> pad(List<Object> chunk) {
+		int bucket = 1;
+		while (bucket < chunk.size())
+			bucket <<= 1;
+		bucket = Math.min(bucket, this.chunkSize);
+
+		List<Object> padded = new ArrayList<>(bucket);
+		padded.addAll(chunk);
+		while (padded.size() < bucket)
+			padded.add(chunk.get(chunk.size() - 1));
+		return padded;
+	}
+
+	/**
+	 * The lists inserted in the current transaction.
+	 */
+	private Map<List<Long>, String> insertedLists() {
+		@SuppressWarnings("unchecked")
+		Map<List<Long>, String> lists = (Map<List<Long>, String>) TransactionSynchronizationManager.getResource(this);
+		if (lists != null)
+			return lists;
+
+		Map<List<Long>, String> inserted = new HashMap<>();
+		TransactionSynchronizationManager.bindResource(this, inserted);
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCompletion(int status) {
+				TransactionSynchronizationManager.unbindResourceIfPossible(InListStrategy.this);
+			}
+		});
+		return inserted;
+	}
+
+	/**
+	 * Insert the ids into the temp table. The rows are deleted by the database
+	 * at the end of the transaction.
+	 *
+	 * @return list id
+	 */
+	private String insert(List<Long> ids) {
+		String listId = UUID.randomUUID().toString();
+		this.entityManager.unwrap(Session.class).doWork(connection -> {
+			try (PreparedStatement statement = connection.prepareStatement(INSERT)) {
+				int count = 0;
+				for (Long id : ids) {
+					statement.setString(1, listId);
+					statement.setLong(2, id);
+					statement.addBatch();
+					if (++count % BATCH_SIZE == 0)
+						statement.executeBatch();
+				}
+				statement.executeBatch();
+			}
+		});
+		return listId;
+	}
+
+}
@@ -0,0 +1,73 @@
+package de.init.backend.datatable.search.rsql;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.Subselect;
+import org.hibernate.annotations.Synchronize;
+
+/**
+ * Row of the temporary ID table, which is joined by {@link InListStrategy}
+ * instead of very long <tt>=in=</tt> / <tt>=out=</tt> argument lists. The
+ * table is a temporary table created on every connection, its rows
+ * only live in the transaction which inserted them. It is mapped by a
+ * subselect, so the schema generation doesn't create a permanent table.
+ */
+@Entity
+@Immutable
+@IdClass(InListValue.Key.class)
+@Subselect("select list_id, id_value from " + InListValue.TABLE)
+@Synchronize(InListValue.TABLE)
+public class InListValue {
+
+	/** name of the temporary table */
+	static final String TABLE = "tmp_datatable_in_list";
+
+	@Id
+	@Column(name = "list_id", length = 36, nullable = false)
+	private String listId;
+
+	@Id
+	@Column(name = "id_value", nullable = false)
+	private Long value;
+
+	public String getListId() {
+		return listId;
+	}
+
+	public Long getValue() {
+		return value;
+	}
+
+	public static class Key implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private String listId;
+
+		private Long value;
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof Key))
+				return false;
+			Key other = (Key) obj;
+			return Objects.equals(listId, other.listId) && Objects.equals(value, other.value);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(listId, value);
+		}
+
+	}
+
+}
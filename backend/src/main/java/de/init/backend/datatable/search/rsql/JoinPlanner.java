@@ -0,0 +1,88 @@
+package de.init.backend.datatable.search.rsql;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.From;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
+
+/**
+ * Replays the {@link SelectorPlan} of a RSQL selector on the criteria tree. The
+ * joins are kept in the tree, so all predicates of one query share them:
+ * <ul>
+ * <li>Associations are left joined, identical join paths are reused.</li>
+ * <li>Selectors through a collection are resolved in a correlated
+ * <tt>EXISTS</tt> subquery, so the query keeps one row per entity and needs no
+ * <tt>DISTINCT</tt>.</li>
+ * </ul>
+ */
+final class JoinPlanner {
+
+	/**
+	 * Creates the predicate on the resolved path.
+	 */
+	@FunctionalInterface
+	interface PathPredicate {
+		Predicate create(Path<?> path);
+	}
+
+	private JoinPlanner() {
+	}
+
+	/**
+	 * Create the predicate on the path of the plan. If the selector passes a
+	 * collection, the predicate is wrapped in an EXISTS subquery correlated to the
+	 * root.
+	 *
+	 * @param root      query root
+	 * @param query     the query
+	 * @param builder   CriteriaBuilder
+	 * @param plan      resolved selector
+	 * @param predicate creates the predicate on the resolved path
+	 * @return Predicate
+	 */
+	static <T> Predicate predicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder builder, SelectorPlan plan,
+			PathPredicate predicate) {
+		if (!plan.passesCollection())
+			return predicate.create(path(root, plan));
+
+		Subquery<Integer> subquery = query.subquery(Integer.class);
+		Root<T> correlated = subquery.correlate(root);
+		subquery.select(builder.literal(1)).where(predicate.create(path(correlated, plan)));
+		return builder.exists(subquery);
+	}
+
+	/**
+	 * Resolve the path of the plan. Every association step is joined, existing
+	 * joins of the same attribute are reused.
+	 *
+	 * @param from root or join to start from
+	 * @param plan resolved selector
+	 * @return Path
+	 */
+	static Path<?> path(From<?, ?> from, SelectorPlan plan) {
+		Path<?> path = from;
+		for (SelectorPlan.Step step : plan.getSteps()) {
+			if (step.getJoinType() != null) {
+				from = join(from, step.getAttribute(), step.getJoinType());
+				path = from;
+			} else {
+				path = path.get(step.getAttribute());
+			}
+		}
+		return path;
+	}
+
+	private static From<?, ?> join(From<?, ?> from, String attribute, JoinType joinType) {
+		for (Join<?, ?> join : from.getJoins()) {
+			if (join.getAttribute().getName().equals(attribute) && join.getJoinType() == joinType)
+				return join;
+		}
+		return from.join(attribute, joinType);
+	}
+
+}
@@ -0,0 +1,189 @@
+package de.init.backend.datatable.search.rsql;
+
+import java.lang.reflect.AnnotatedElement;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import javax.persistence.metamodel.Attribute;
+
+import org.springframework.lang.NonNull;
+
+import de.init.backend.datatable.annotation.EpochMillis;
+import de.init.backend.datatable.search.SearchQueryParseException;
+
+/**
+ * Registry of the converters which turn RSQL arguments into the Java type of
+ * the JPA attribute, so the predicates compare on the native column type.
+ * Converters are keyed by the attribute Java type, primitive types are mapped
+ * to their wrapper. Enums are converted by their constant name. Types without
+ * converter keep the argument as String.
+ *
+ * The arguments "null" and "undefined" are converted to null for all types
+ * except String.
+ *
+ * Long attributes annotated with {@link EpochMillis} take ISO-8601 instants
+ * and dates too, other Long attributes, like ids, only numbers.
+ */
+public final class RsqlArgumentConverters {
+
+	private static final Map<Class<?>, Function<String, ?>> CONVERTERS = new ConcurrentHashMap<>();
+
+	static {
+		register(Integer.class, Integer::valueOf);
+		register(Long.class, Long::valueOf);
+		register(Short.class, Short::valueOf);
+		register(Byte.class, Byte::valueOf);
+		register(Double.class, Double::valueOf);
+		register(Float.class, Float::valueOf);
+		register(BigDecimal.class, BigDecimal::new);
+		register(BigInteger.class, BigInteger::new);
+		register(Boolean.class, RsqlArgumentConverters::parseBoolean);
+		register(Instant.class, RsqlArgumentConverters::parseInstant);
+		register(LocalDate.class, LocalDate::parse);
+		register(LocalDateTime.class, LocalDateTime::parse);
+		register(Date.class, arg -> Date.from(parseInstant(arg)));
+	}
+
+	private RsqlArgumentConverters() {
+	}
+
+	/**
+	 * Register a converter for the given attribute type. Replaces an existing
+	 * converter of the type.
+	 *
+	 * @param <T>       attribute type
+	 * @param type      attribute Java type
+	 * @param converter converts a RSQL argument, may throw a RuntimeException if
+	 *                  the argument is invalid
+	 */
+	public static <T> void register(@NonNull Class<T> type, @NonNull Function<String, ? extends T> converter) {
+		CONVERTERS.put(type, converter);
+	}
+
+	/**
+	 * Resolve the converter of the given attribute type.
+	 *
+	 * @param type attribute Java type
+	 * @return converter, which throws {@link SearchQueryParseException} if an
+	 *         argument can not be converted
+	 */
+	public static Function<String, Object> forType(@NonNull Class<?> type) {
+		Class<?> key = wrap(type);
+		Function<String, ?> converter = CONVERTERS.get(key);
+		if (converter == null && key.isEnum())
+			converter = CONVERTERS.computeIfAbsent(key, RsqlArgumentConverters::enumConverter);
+		if (converter == null)
+			return arg -> arg;
+		return checked(key, converter);
+	}
+
+	/**
+	 * Resolve the converter of the given attribute. Like
+	 * {@link #forType(Class)}, but a Long attribute annotated with
+	 * {@link EpochMillis} takes ISO-8601 instants and dates too.
+	 *
+	 * @param attribute JPA attribute
+	 * @return converter, which throws {@link SearchQueryParseException} if an
+	 *         argument can not be converted
+	 */
+	public static Function<String, Object> forAttribute(@NonNull Attribute<?, ?> attribute) {
+		Class<?> key = wrap(attribute.getJavaType());
+		if (key == Long.class && attribute.getJavaMember() instanceof AnnotatedElement
+				&& ((AnnotatedElement) attribute.getJavaMember()).isAnnotationPresent(EpochMillis.class))
+			return checked(key, RsqlArgumentConverters::parseEpochMillis);
+		return forType(key);
+	}
+
+	/**
+	 * Convert "null" and "undefined" to null and wrap the exceptions of the
+	 * converter.
+	 */
+	private static Function<String, Object> checked(Class<?> key, Function<String, ?> typed) {
+		return arg -> {
+			if (arg == null || arg.equals("null") || arg.equals("undefined"))
+				return null;
+			try {
+				return typed.apply(arg);
+			} catch (RuntimeException ex) {
+				throw new SearchQueryParseException("Could not parse '" + arg + "' to " + key.getSimpleName());
+			}
+		};
+	}
+
+	/**
+	 * A number is taken as epoch millis, otherwise an ISO-8601 instant or date
+	 * (start of the day in UTC) is converted to epoch millis.
+	 */
+	private static Long parseEpochMillis(String arg) {
+		try {
+			return Long.valueOf(arg);
+		} catch (NumberFormatException ex) {
+			return parseInstant(arg).toEpochMilli();
+		}
+	}
+
+	/**
+	 * Parse epoch millis, an ISO-8601 instant or an ISO-8601 date (start of the
+	 * day in UTC).
+	 */
+	private static Instant parseInstant(String arg) {
+		if (!arg.isEmpty() && (Character.isDigit(arg.charAt(0)) || arg.charAt(0) == '-') && arg.indexOf('-', 1) < 0)
+			return Instant.ofEpochMilli(Long.parseLong(arg));
+		try {
+			return Instant.parse(arg);
+		} catch (DateTimeParseException ex) {
+			return LocalDate.parse(arg).atStartOfDay(ZoneOffset.UTC).toInstant();
+		}
+	}
+
+	private static Boolean parseBoolean(String arg) {
+		if (arg.equalsIgnoreCase("true"))
+			return Boolean.TRUE;
+		if (arg.equalsIgnoreCase("false"))
+			return Boolean.FALSE;
+		throw new IllegalArgumentException(arg);
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static Function<String, ?> enumConverter(Class<?> type) {
+		return arg -> {
+			try {
+				return Enum.valueOf((Class<Enum>) type, arg);
+			} catch (IllegalArgumentException ex) {
+				return Enum.valueOf((Class<Enum>) type, arg.toUpperCase());
+			}
+		};
+	}
+
+	private static Class<?> wrap(Class<?> type) {
+		if (!type.isPrimitive())
+			return type;
+		if (type == int.class)
+			return Integer.class;
+		if (type == long.class)
+			return Long.class;
+		if (type == boolean.class)
+			return Boolean.class;
+		if (type == double.class)
+			return Double.class;
+		if (type == float.class)
+			return Float.class;
+		if (type == short.class)
+			return Short.class;
+		if (type == byte.class)
+			return Byte.class;
+		if (type == char.class)
+			return Character.class;
+		return type;
+	}
+
+}
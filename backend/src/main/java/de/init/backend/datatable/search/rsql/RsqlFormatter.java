@@ -0,0 +1,80 @@
+package de.init.backend.datatable.search.rsql;
+
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import cz.jirutka.rsql.parser.ast.ComparisonNode;
+import cz.jirutka.rsql.parser.ast.LogicalNode;
+import cz.jirutka.rsql.parser.ast.LogicalOperator;
+import cz.jirutka.rsql.parser.ast.Node;
+
+/**
+ * Formats a parsed RSQL AST as normalized query string, e.g. as key of cached
+ * counts. Queries with the same AST up to the order of the children of AND /
+ * OR, nesting of the same operator, duplicates and whitespaces get the same
+ * string:
+ * <ul>
+ * <li>Nested AND / OR nodes of the same operator are flattened, the children
+ * are sorted and deduplicated. Nodes of the other operator are put in
+ * parentheses.</li>
+ * <li>Comparisons use the first symbol of their operator, e.g. <tt>=lt=</tt>
+ * for <tt>&lt;</tt>.</li>
+ * <li>Every argument is double quoted, the arguments of multi value operators
+ * are sorted.</li>
+ * </ul>
+ * The result is a valid RSQL query with the same AST as the given one, only
+ * the parsed operators are supported.
+ */
+public final class RsqlFormatter {
+
+	private RsqlFormatter() {
+	}
+
+	/**
+	 * Format the AST. The given nodes are not modified.
+	 *
+	 * @param node root node
+	 * @return normalized query
+	 */
+	public static String format(Node node) {
+		if (node instanceof ComparisonNode)
+			return format((ComparisonNode) node);
+
+		LogicalNode logicalNode = (LogicalNode) node;
+		Set<String> children = new TreeSet<>();
+		collect(logicalNode.getOperator(), logicalNode, children);
+		if (children.size() == 1)
+			return children.iterator().next();
+		return String.join(logicalNode.getOperator() == LogicalOperator.AND ? ";" : ",", children);
+	}
+
+	/**
+	 * Add the formatted children of the node, children with the same operator are
+	 * flattened.
+	 */
+	private static void collect(LogicalOperator operator, LogicalNode node, Set<String> children) {
+		for (Node child : node.getChildren()) {
+			if (child instanceof LogicalNode && ((LogicalNode) child).getOperator() == operator) {
+				collect(operator, (LogicalNode) child, children);
+			} else {
+				children.add(child instanceof LogicalNode ? "(" + format(child) + ")" : format(child));
+			}
+		}
+	}
+
+	private static String format(ComparisonNode node) {
+		String arguments;
+		if (node.getOperator().isMultiValue())
+			arguments = node.getArguments().stream().map(RsqlFormatter::quote).sorted().distinct()
+					.collect(Collectors.joining(",", "(", ")"));
+		else
+			arguments = quote(node.getArguments().get(0));
+		return node.getSelector() + node.getOperator().getSymbol() + arguments;
+	}
+
+	private static String quote(String argument) {
+		return '"' + argument.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+	}
+
+}
@@ -0,0 +1,41 @@
+package de.init.backend.datatable.search.rsql;
+
+import java.util.List;
+import java.util.Objects;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.lang.NonNull;
+
+import cz.jirutka.rsql.parser.ast.LogicalOperator;
+
+/**
+ * Combines the predicates of all children in one n-ary
+ * <tt>builder.and(...)</tt> or <tt>builder.or(...)</tt>, instead of a chain of
+ * nested {@link Specification#and(Specification)}.
+ */
+class RsqlLogicalSpecification<T> implements Specification<T> {
+
+	private static final long serialVersionUID = 1L;
+
+	private final LogicalOperator operator;
+	private final List<Specification<T>> children;
+
+	RsqlLogicalSpecification(LogicalOperator operator, List<Specification<T>> children) {
+		this.operator = operator;
+		this.children = children;
+	}
+
+	@Override
+	public Predicate toPredicate(@NonNull Root<T> root, @NonNull CriteriaQuery<?> query,
+			@NonNull CriteriaBuilder builder) {
+		Predicate[] predicates = children.stream().map(child -> child.toPredicate(root, query, builder))
+				.filter(Objects::nonNull).toArray(Predicate[]::new);
+		return operator == LogicalOperator.AND ? builder.and(predicates) : builder.or(predicates);
+	}
+
+}
@@ -0,0 +1,170 @@
+package de.init.backend.datatable.search.rsql;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import cz.jirutka.rsql.parser.ast.ComparisonNode;
+import cz.jirutka.rsql.parser.ast.ComparisonOperator;
+import cz.jirutka.rsql.parser.ast.LogicalNode;
+import cz.jirutka.rsql.parser.ast.LogicalOperator;
+import cz.jirutka.rsql.parser.ast.Node;
+import cz.jirutka.rsql.parser.ast.RSQLOperators;
+
+/**
+ * Optimization pass over a parsed RSQL AST before the specifications are
+ * created.
+ * <ul>
+ * <li>Nested AND / OR nodes of the same operator are flattened into one n-ary
+ * node.</li>
+ * <li>Identical children of a logical node are removed.</li>
+ * <li>OR'ed <tt>==</tt> comparisons on one selector are merged into one
+ * {@link #EQUAL_ANY} comparison, OR'ed <tt>=in=</tt> and AND'ed <tt>=out=</tt>
+ * comparisons on one selector are merged into one list.</li>
+ * <li>Contradictions are folded to {@link #FALSE}: <tt>x=in=(a);x=out=(a,b)</tt>
+ * matches nothing, an AND with a FALSE child is FALSE, FALSE children of an OR
+ * are dropped.</li>
+ * </ul>
+ * Only rewrites which keep the result independent of the attribute type are
+ * made, the types are not known before the specification is applied.
+ *
+ * A selector with a path, like <tt>roles.name</tt>, may pass a collection (see
+ * {@link SelectorPlan#passesCollection()}). Each of its comparisons is an own
+ * <tt>EXISTS</tt> subquery, which can match another element of the collection,
+ * so AND'ed comparisons on a path are neither merged nor folded. OR'ed ones are
+ * merged, some element matches one of them exactly if some element matches the
+ * merged comparison.
+ */
+public final class RsqlOptimizer {
+
+	/**
+	 * Internal operator of merged <tt>==</tt> comparisons. Keeps the semantic of
+	 * <tt>==</tt> for every argument: case insensitive wildcard match for Strings,
+	 * equality otherwise.
+	 */
+	public static final ComparisonOperator EQUAL_ANY = new ComparisonOperator("=eqany=", true);
+
+	/** Internal operator of a comparison which matches nothing */
+	public static final ComparisonOperator FALSE = new ComparisonOperator("=false=", false);
+
+	private static final ComparisonNode FALSE_NODE = new ComparisonNode(FALSE, "false",
+			Collections.singletonList("false"));
+
+	private RsqlOptimizer() {
+	}
+
+	/**
+	 * Optimize the AST. The given nodes are not modified.
+	 *
+	 * @param node root node
+	 * @return optimized root node
+	 */
+	public static Node optimize(Node node) {
+		if (!(node instanceof LogicalNode))
+			return node;
+
+		LogicalNode logicalNode = (LogicalNode) node;
+		LogicalOperator operator = logicalNode.getOperator();
+
+		// flatten and dedupe the optimized children
+		Set<Node> children = new LinkedHashSet<>();
+		for (Node child : logicalNode.getChildren()) {
+			Node optimized = optimize(child);
+			if (optimized instanceof LogicalNode && ((LogicalNode) optimized).getOperator() == operator)
+				children.addAll(((LogicalNode) optimized).getChildren());
+			else
+				children.add(optimized);
+		}
+
+		List<Node> result;
+		if (operator == LogicalOperator.AND) {
+			if (children.contains(FALSE_NODE))
+				return FALSE_NODE;
+			result = merge(children, RSQLOperators.NOT_IN, RSQLOperators.NOT_IN, false);
+			if (isContradiction(result))
+				return FALSE_NODE;
+		} else {
+			children.remove(FALSE_NODE);
+			if (children.isEmpty())
+				return FALSE_NODE;
+			result = merge(children, RSQLOperators.EQUAL, EQUAL_ANY, true);
+			result = merge(result, RSQLOperators.IN, RSQLOperators.IN, true);
+		}
+
+		return result.size() == 1 ? result.get(0) : logicalNode.withChildren(result);
+	}
+
+	/**
+	 * Merge the comparisons of the operator (or the target operator) on the same
+	 * selector into one comparison of the target operator. The merged comparison
+	 * takes the position of the first one.
+	 *
+	 * @param paths true to merge selectors with a path too
+	 */
+	private static List<Node> merge(Iterable<Node> children, ComparisonOperator operator,
+			ComparisonOperator target, boolean paths) {
+		List<Node> result = new ArrayList<>();
+		Map<String, Integer> positions = new LinkedHashMap<>();
+		for (Node child : children) {
+			if (!(child instanceof ComparisonNode)) {
+				result.add(child);
+				continue;
+			}
+
+			ComparisonNode comparison = (ComparisonNode) child;
+			if (!comparison.getOperator().equals(operator) && !comparison.getOperator().equals(target)
+					|| !paths && isPath(comparison.getSelector())) {
+				result.add(child);
+				continue;
+			}
+
+			Integer position = positions.get(comparison.getSelector());
+			if (position == null) {
+				positions.put(comparison.getSelector(), result.size());
+				result.add(child);
+			} else {
+				ComparisonNode merged = (ComparisonNode) result.get(position);
+				Set<String> arguments = new LinkedHashSet<>(merged.getArguments());
+				arguments.addAll(comparison.getArguments());
+				result.set(position, new ComparisonNode(target, merged.getSelector(), new ArrayList<>(arguments)));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * AND'ed <tt>x=in=A</tt> and <tt>x=out=B</tt> match nothing if all
+	 * arguments of A are contained in B. Not for a path, the comparisons can
+	 * match different elements of a collection.
+	 */
+	private static boolean isContradiction(List<Node> children) {
+		Map<String, List<String>> excluded = new LinkedHashMap<>();
+		for (Node child : children) {
+			if (child instanceof ComparisonNode
+					&& ((ComparisonNode) child).getOperator().equals(RSQLOperators.NOT_IN)
+					&& !isPath(((ComparisonNode) child).getSelector()))
+				excluded.put(((ComparisonNode) child).getSelector(), ((ComparisonNode) child).getArguments());
+		}
+		for (Node child : children) {
+			if (child instanceof ComparisonNode && ((ComparisonNode) child).getOperator().equals(RSQLOperators.IN)) {
+				List<String> exclude = excluded.get(((ComparisonNode) child).getSelector());
+				if (exclude != null && exclude.containsAll(((ComparisonNode) child).getArguments()))
+					return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return true if the selector navigates an attribute, which can be a
+	 *         collection
+	 */
+	private static boolean isPath(String selector) {
+		return selector.indexOf('.') >= 0;
+	}
+
+}
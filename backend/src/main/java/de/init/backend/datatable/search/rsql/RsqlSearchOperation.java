@@ -3,7 +3,8 @@ package de.init.backend.datatable.search.rsql;
 import cz.jirutka.rsql.parser.ast.ComparisonOperator;
 import cz.jirutka.rsql.parser.ast.RSQLOperators;
 
-import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 enum RsqlSearchOperation {
     EQUAL(RSQLOperators.EQUAL), 
@@ -13,7 +14,9 @@ enum RsqlSearchOperation {
     LESS_THAN(RSQLOperators.LESS_THAN), 
     LESS_THAN_OR_EQUAL(RSQLOperators.LESS_THAN_OR_EQUAL), 
     IN(RSQLOperators.IN), 
-    NOT_IN(RSQLOperators.NOT_IN);
+    NOT_IN(RSQLOperators.NOT_IN),
+    EQUAL_ANY(RsqlOptimizer.EQUAL_ANY),
+    FALSE(RsqlOptimizer.FALSE);
  
     private final ComparisonOperator operator;
  
@@ -21,10 +24,16 @@ enum RsqlSearchOperation {
         this.operator = operator;
     }
 
+    private static final Map<ComparisonOperator, RsqlSearchOperation> BY_OPERATOR = new HashMap<>();
+
+    static {
+        for (RsqlSearchOperation operation : values()) {
+            BY_OPERATOR.put(operation.getOperator(), operation);
+        }
+    }
+
     public static RsqlSearchOperation getSimpleOperator(final ComparisonOperator operator) {
-        return Arrays.stream(values())
-          .filter(operation -> operation.getOperator() == operator)
-          .findAny().orElse(null);
+        return BY_OPERATOR.get(operator);
     }
 
     public ComparisonOperator getOperator() {
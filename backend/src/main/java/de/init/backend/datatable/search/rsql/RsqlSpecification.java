@@ -1,29 +1,16 @@
 package de.init.backend.datatable.search.rsql;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
 import java.util.stream.Collectors;
 
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
-import javax.persistence.criteria.From;
-import javax.persistence.criteria.Join;
-import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Expression;
 import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
-import javax.persistence.metamodel.Attribute.PersistentAttributeType;
-import javax.persistence.metamodel.CollectionAttribute;
-import javax.persistence.metamodel.ListAttribute;
-import javax.persistence.metamodel.MapAttribute;
-import javax.persistence.metamodel.PluralAttribute;
-import javax.persistence.metamodel.SetAttribute;
-import javax.persistence.metamodel.SingularAttribute;
-
-import org.hibernate.query.criteria.internal.path.PluralAttributePath;
-import org.hibernate.query.criteria.internal.path.SingularAttributePath;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.lang.NonNull;
 
@@ -34,27 +21,45 @@ public class RsqlSpecification<T> implements Specification<T> {
 
 	private static final long serialVersionUID = 1L;
 
-	private static final Logger log = LoggerFactory.getLogger(RsqlSpecification.class);
-
 	private final String property;
 	private final ComparisonOperator operator;
 	private final List<String> arguments;
+	private final RsqlSearchOperation operation;
+	private final InListStrategy inListStrategy;
 
 	public RsqlSpecification(final String property, final ComparisonOperator operator, final List<String> arguments) {
+		this(property, operator, arguments, InListStrategy.DEFAULT);
+	}
+
+	public RsqlSpecification(final String property, final ComparisonOperator operator, final List<String> arguments,
+			final InListStrategy inListStrategy) {
 		super();
 		this.property = property;
 		this.operator = operator;
 		this.arguments = arguments;
+		this.operation = RsqlSearchOperation.getSimpleOperator(operator);
+		this.inListStrategy = inListStrategy;
 	}
 
 	@Override
 	public Predicate toPredicate(@NonNull Root<T> root, @NonNull CriteriaQuery<?> query,
 			@NonNull CriteriaBuilder builder) {
-		Path<String> propertyExpression = parseProperty(root);
-		List<Object> args = castArguments(propertyExpression);
+		if (operation == RsqlSearchOperation.FALSE) {
+			// folded contradiction, has no property
+			return builder.disjunction();
+		}
+
+		SelectorPlan plan = SelectorPlan.of(root.getModel(), property);
+		List<Object> args = castArguments(plan);
+		return JoinPlanner.predicate(root, query, builder, plan, path -> createPredicate(path, args, query, builder));
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private Predicate createPredicate(Path propertyExpression, List<Object> args, CriteriaQuery<?> query,
+			CriteriaBuilder builder) {
 		Object argument = args.get(0);
 
-		switch (RsqlSearchOperation.getSimpleOperator(operator)) {
+		switch (operation) {
 
 		case EQUAL:
 			if (argument instanceof String) {
@@ -76,114 +81,75 @@ public class RsqlSpecification<T> implements Specification<T> {
 			}
 
 		case GREATER_THAN:
-			return builder.greaterThan(propertyExpression, argument.toString());
+			return builder.greaterThan(propertyExpression, comparable(argument));
 
 		case GREATER_THAN_OR_EQUAL:
-			return builder.greaterThanOrEqualTo(propertyExpression, argument.toString());
+			return builder.greaterThanOrEqualTo(propertyExpression, comparable(argument));
 
 		case LESS_THAN:
-			return builder.lessThan(propertyExpression, argument.toString());
+			return builder.lessThan(propertyExpression, comparable(argument));
 
 		case LESS_THAN_OR_EQUAL:
-			return builder.lessThanOrEqualTo(propertyExpression, argument.toString());
+			return builder.lessThanOrEqualTo(propertyExpression, comparable(argument));
 
 		case IN:
-			return propertyExpression.in(args);
+			return inListStrategy.in(builder, query, propertyExpression, args);
 
 		case NOT_IN:
-			return builder.not(propertyExpression.in(args));
+			return builder.not(inListStrategy.in(builder, query, propertyExpression, args));
+
+		case EQUAL_ANY:
+			return equalAny(builder, query, propertyExpression, args);
 
 		default:
 			return null;
 		}
 	}
 
-	private Path<String> parseProperty(Root<T> root) {
-		Path<String> path;
-		if (property.contains(".")) {
-			// Nested properties
-			String[] pathSteps = property.split("\\.");
-			String step = pathSteps[0];
-			path = root.get(step);
-			From lastFrom = root;
-
-			for (int i = 1; i <= pathSteps.length - 1; i++) {
-				if (path instanceof PluralAttributePath) {
-					PluralAttribute attr = ((PluralAttributePath) path).getAttribute();
-					Join join = getJoin(attr, lastFrom);
-					path = join.get(pathSteps[i]);
-					lastFrom = join;
-				} else if (path instanceof SingularAttributePath) {
-					SingularAttribute attr = ((SingularAttributePath) path).getAttribute();
-					if (attr.getPersistentAttributeType() != PersistentAttributeType.BASIC) {
-						Join join = lastFrom.join(attr, JoinType.LEFT);
-						path = join.get(pathSteps[i]);
-						lastFrom = join;
-					} else {
-						path = path.get(pathSteps[i]);
-					}
-				} else {
-					path = path.get(pathSteps[i]);
-				}
-			}
-		} else {
-			path = root.get(property);
-		}
-		return path;
-	}
-
-	private Join getJoin(PluralAttribute attr, From from) {
-		final Set<?> joins = from.getJoins();
-		for (Object object : joins) {
-			Join<?, ?> join = (Join<?, ?>) object;
-			if (join.getAttribute().getName().equals(attr.getName())) {
-				return join;
+	/**
+	 * OR'ed {@link RsqlSearchOperation#EQUAL} comparisons in one predicate. String
+	 * arguments without wildcards are compared in one IN list of lower case values,
+	 * other values by the {@link InListStrategy}.
+	 */
+	private Predicate equalAny(CriteriaBuilder builder, CriteriaQuery<?> query, Path<String> path,
+			List<Object> args) {
+		List<Predicate> predicates = new ArrayList<>();
+		List<Expression<String>> lowerValues = new ArrayList<>();
+		List<Object> values = new ArrayList<>();
+		for (Object argument : args) {
+			if (argument == null) {
+				predicates.add(builder.isNull(path));
+			} else if (argument instanceof String) {
+				String pattern = argument.toString().replace('*', '%');
+				if (pattern.indexOf('%') >= 0 || pattern.indexOf('_') >= 0)
+					predicates.add(builder.like(builder.lower(path), builder.lower(builder.literal(pattern))));
+				else
+					lowerValues.add(builder.lower(builder.literal(pattern)));
+			} else {
+				values.add(argument);
 			}
 		}
-		return createJoin(attr, from);
+		if (!lowerValues.isEmpty())
+			predicates.add(0, builder.lower(path).in(lowerValues.toArray(new Expression<?>[0])));
+		if (!values.isEmpty())
+			predicates.add(0, inListStrategy.in(builder, query, path, values));
+		return predicates.size() == 1 ? predicates.get(0) : builder.or(predicates.toArray(new Predicate[0]));
 	}
 
-	private Join createJoin(PluralAttribute attr, From from) {
-		switch (attr.getCollectionType()) {
-		case COLLECTION:
-			return from.join((CollectionAttribute) attr);
-		case SET:
-			return from.join((SetAttribute) attr);
-		case LIST:
-			return from.join((ListAttribute) attr);
-		case MAP:
-			return from.join((MapAttribute) attr);
-		default:
-			return null;
-		}
+	/**
+	 * Convert the arguments to the Java type of the property with the converter
+	 * of the plan.
+	 */
+	private List<Object> castArguments(SelectorPlan plan) {
+		return arguments.stream().map(plan.getConverter()).collect(Collectors.toList());
 	}
 
-	private List<Object> castArguments(Path<?> propertyExpression) {
-		Class<?> type = propertyExpression.getJavaType();
-		try {
-			return arguments.stream().map(arg -> {
-				if (type.equals(Integer.class)) {
-					if (arg.equals("undefined") || arg.equals("null")) {
-						return null;
-					} else {
-						return Integer.parseInt(arg);
-					}
-				} else if (type.equals(Long.class)) {
-					if (arg.equals("undefined") || arg.equals("null")) {
-						return null;
-					} else {
-						return Long.parseLong(arg);
-					}
-				} else if (type.equals(Byte.class)) {
-					return Byte.parseByte(arg);
-				} else {
-					return arg;
-				}
-			}).collect(Collectors.toList());
-		} catch (NumberFormatException ex) {
-			log.error("RsqlSpecification errror: parse " + arguments + " to number", ex);
-			throw new SearchQueryParseException();
+	@SuppressWarnings("rawtypes")
+	private Comparable comparable(Object argument) {
+		if (!(argument instanceof Comparable)) {
+			throw new SearchQueryParseException("Operator " + operator + " needs a comparable value for " + property);
 		}
+		return (Comparable) argument;
 	}
 
-}
\ No newline at end of file
+}
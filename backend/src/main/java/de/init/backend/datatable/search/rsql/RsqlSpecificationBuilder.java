@@ -8,11 +8,16 @@ import org.springframework.data.jpa.domain.Specification;
 
 import cz.jirutka.rsql.parser.ast.ComparisonNode;
 import cz.jirutka.rsql.parser.ast.LogicalNode;
-import cz.jirutka.rsql.parser.ast.LogicalOperator;
 import cz.jirutka.rsql.parser.ast.Node;
 
 class RsqlSpecificationBuilder<T> {
 
+	private final InListStrategy inListStrategy;
+
+	RsqlSpecificationBuilder(InListStrategy inListStrategy) {
+		this.inListStrategy = inListStrategy;
+	}
+
 	public Specification<T> createSpecification(final Node node) {
 		if (node instanceof LogicalNode) {
 			return createSpecification((LogicalNode) node);
@@ -28,23 +33,12 @@ class RsqlSpecificationBuilder<T> {
 		List<Specification<T>> specs = logicalNode.getChildren().stream().map(this::createSpecification)
 				.filter(Objects::nonNull).collect(Collectors.toList());
 
-		Specification<T> result = specs.get(0);
-		if (logicalNode.getOperator() == LogicalOperator.AND) {
-			for (int i = 1; i < specs.size(); i++) {
-				result = Specification.where(result).and(specs.get(i));
-			}
-		} else if (logicalNode.getOperator() == LogicalOperator.OR) {
-			for (int i = 1; i < specs.size(); i++) {
-				result = Specification.where(result).or(specs.get(i));
-			}
-		}
-
-		return result;
+		return specs.size() == 1 ? specs.get(0) : new RsqlLogicalSpecification<>(logicalNode.getOperator(), specs);
 	}
 
 	public Specification<T> createSpecification(ComparisonNode comparisonNode) {
-		return Specification.where(new RsqlSpecification<>(comparisonNode.getSelector(), comparisonNode.getOperator(),
-				comparisonNode.getArguments()));
+		return new RsqlSpecification<>(comparisonNode.getSelector(), comparisonNode.getOperator(),
+				comparisonNode.getArguments(), this.inListStrategy);
 	}
 
 }
\ No newline at end of file
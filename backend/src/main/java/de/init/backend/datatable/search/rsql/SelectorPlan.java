@@ -0,0 +1,198 @@
+package de.init.backend.datatable.search.rsql;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+import javax.persistence.criteria.JoinType;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.Attribute.PersistentAttributeType;
+import javax.persistence.metamodel.ManagedType;
+import javax.persistence.metamodel.PluralAttribute;
+import javax.persistence.metamodel.SingularAttribute;
+import javax.persistence.metamodel.Type;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import de.init.backend.datatable.search.SearchQueryParseException;
+
+/**
+ * Resolved path of a RSQL selector on an entity. The plan is built once per
+ * entity type and selector from the JPA metamodel and holds the attribute
+ * chain with the join type of every step, the Java type of the compared
+ * attribute and its argument converter. Creating a predicate only replays the
+ * plan against the current root, see {@link JoinPlanner}.
+ */
+final class SelectorPlan {
+
+	/** max number of cached plans */
+	private static final long CACHE_MAX_SIZE = 10_000;
+
+	/**
+	 * Plans by managed type and selector. Unknown selectors are not cached, they
+	 * are rejected before a query is created.
+	 */
+	private static final Cache<Key, SelectorPlan> CACHE = CacheBuilder.newBuilder().maximumSize(CACHE_MAX_SIZE)
+			.build();
+
+	/**
+	 * One attribute of the selector.
+	 */
+	static final class Step {
+
+		private final String attribute;
+		private final JoinType joinType;
+
+		private Step(String attribute, JoinType joinType) {
+			this.attribute = attribute;
+			this.joinType = joinType;
+		}
+
+		String getAttribute() {
+			return attribute;
+		}
+
+		/**
+		 * @return join type of an association, <tt>null</tt> if the attribute is
+		 *         navigated without a join (embedded or compared attribute)
+		 */
+		JoinType getJoinType() {
+			return joinType;
+		}
+	}
+
+	private final List<Step> steps;
+	private final boolean passesCollection;
+	private final Class<?> javaType;
+	private final Function<String, Object> converter;
+
+	private SelectorPlan(List<Step> steps, boolean passesCollection, Attribute<?, ?> attribute) {
+		this.steps = Collections.unmodifiableList(steps);
+		this.passesCollection = passesCollection;
+		this.javaType = attribute.getJavaType();
+		this.converter = RsqlArgumentConverters.forAttribute(attribute);
+	}
+
+	/**
+	 * Get the cached plan of the selector or build it.
+	 *
+	 * @param type     managed type of the query root
+	 * @param selector RSQL selector, like "roles.name"
+	 * @return SelectorPlan
+	 * @throws SearchQueryParseException if the selector does not reference a
+	 *                                   basic attribute of the type
+	 */
+	static SelectorPlan of(ManagedType<?> type, String selector) {
+		try {
+			return CACHE.get(new Key(type, selector), () -> build(type, selector));
+		} catch (UncheckedExecutionException | ExecutionException ex) {
+			if (ex.getCause() instanceof SearchQueryParseException)
+				throw (SearchQueryParseException) ex.getCause();
+			throw new IllegalStateException(ex.getCause());
+		}
+	}
+
+	private static SelectorPlan build(ManagedType<?> root, String selector) {
+		String[] names = selector.split("\\.", -1);
+		List<Step> steps = new ArrayList<>(names.length);
+		ManagedType<?> type = root;
+		boolean passesCollection = false;
+		// a join needs a root or join, embeddables are navigated by path only
+		boolean joinable = true;
+
+		for (int i = 0; i < names.length - 1; i++) {
+			Attribute<?, ?> attribute = getAttribute(type, names[i], selector);
+			Type<?> next;
+			if (attribute.isCollection()) {
+				passesCollection = true;
+				next = ((PluralAttribute<?, ?, ?>) attribute).getElementType();
+			} else {
+				next = ((SingularAttribute<?, ?>) attribute).getType();
+			}
+			if (!(next instanceof ManagedType))
+				throw unknownSelector(selector, "'" + names[i] + "' has no attributes");
+
+			JoinType joinType = null;
+			if (joinable && (attribute.isCollection() || attribute.isAssociation()))
+				joinType = attribute.isCollection() ? JoinType.INNER : JoinType.LEFT;
+			else
+				joinable = false;
+			steps.add(new Step(names[i], joinType));
+			type = (ManagedType<?>) next;
+		}
+
+		Attribute<?, ?> attribute = getAttribute(type, names[names.length - 1], selector);
+		if (attribute.getPersistentAttributeType() != PersistentAttributeType.BASIC)
+			throw unknownSelector(selector, "'" + attribute.getName() + "' is not a basic attribute");
+		steps.add(new Step(attribute.getName(), null));
+
+		return new SelectorPlan(steps, passesCollection, attribute);
+	}
+
+	private static Attribute<?, ?> getAttribute(ManagedType<?> type, String name, String selector) {
+		try {
+			return type.getAttribute(name);
+		} catch (IllegalArgumentException ex) {
+			throw unknownSelector(selector, "unknown attribute '" + name + "'");
+		}
+	}
+
+	private static SearchQueryParseException unknownSelector(String selector, String reason) {
+		return new SearchQueryParseException("Invalid selector '" + selector + "': " + reason);
+	}
+
+	List<Step> getSteps() {
+		return steps;
+	}
+
+	/**
+	 * @return true if an attribute before the compared one is a collection
+	 */
+	boolean passesCollection() {
+		return passesCollection;
+	}
+
+	Class<?> getJavaType() {
+		return javaType;
+	}
+
+	/**
+	 * @return converter of the arguments to {@link #getJavaType()}, see
+	 *         {@link RsqlArgumentConverters#forAttribute(Attribute)}
+	 */
+	Function<String, Object> getConverter() {
+		return converter;
+	}
+
+	/**
+	 * Cache key, the managed types are singletons of the metamodel.
+	 */
+	private static final class Key {
+
+		private final ManagedType<?> type;
+		private final String selector;
+
+		private Key(ManagedType<?> type, String selector) {
+			this.type = type;
+			this.selector = selector;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key))
+				return false;
+			Key other = (Key) obj;
+			return this.type == other.type && this.selector.equals(other.selector);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * System.identityHashCode(this.type) + this.selector.hashCode();
+		}
+	}
+
+}
@@ -39,6 +39,9 @@ public class AccountDto extends ResponseDto implements Serializable{
 
 	protected ArrayList<String> roles;
 
+	/** version of the account, an update sends it as If-Match header */
+	protected long version;
+
 	public AccountDto() {
 		super(200);
 	}
@@ -51,6 +54,7 @@ public class AccountDto extends ResponseDto implements Serializable{
 		this.email = account.getEmail();
 		this.username = account.getUsername();
 		this.roles = new ArrayList<>(account.getRoles().stream().map(Role::getName).collect(Collectors.toList()));
+		this.version = account.getVersion();
 	}
 
 	public long getId() {
@@ -77,6 +81,10 @@ public class AccountDto extends ResponseDto implements Serializable{
 		return roles;
 	}
 
+	public long getVersion() {
+		return version;
+	}
+
 	public Account toAccount() {
 		Account a = new Account();
 		a.setEmail(this.email);
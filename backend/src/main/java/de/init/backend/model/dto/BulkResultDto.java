@@ -0,0 +1,31 @@
+package de.init.backend.model.dto;
+
+import de.init.backend.authentication.model.ResponseDto;
+
+/**
+ * Result of a bulk update or delete.
+ */
+public class BulkResultDto extends ResponseDto {
+
+	private static final long serialVersionUID = 1L;
+
+	/** matching rows of a dry run, otherwise changed rows */
+	private final long rows;
+
+	private final boolean dryRun;
+
+	public BulkResultDto(long rows, boolean dryRun) {
+		super(200);
+		this.rows = rows;
+		this.dryRun = dryRun;
+	}
+
+	public long getRows() {
+		return rows;
+	}
+
+	public boolean isDryRun() {
+		return dryRun;
+	}
+
+}
@@ -1,8 +1,6 @@
 package de.init.backend.model.entity;
 
 import java.io.Serializable;
-import java.util.Arrays;
-import java.util.List;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
@@ -12,17 +10,16 @@ import de.init.backend.authentication.model.User;
 import de.init.backend.datatable.annotation.Editable;
 import de.init.backend.datatable.annotation.Searchable;
 
+// need to add @Editiable @Searchable for CrudService at fields, but fields are
+// on superclass so we have define them by the annotation value
+@Editable({ "username", "lastUpdated" })
+@Searchable({ "username", "lastUpdated" })
 @Entity
 @Table(name = "accounts")
 public class Account extends User implements Serializable {
 
 	private static final long serialVersionUID = 1L;
 
-	// need to add @Editiable @Searchable for CrudService at fields, but fields are
-	// on superclass so we have define them on another way
-	public static final List<String> ediableAndSearchableFields = Arrays.asList("username", "email", "firstName", "lastName",
-			"lastUpdated");
-
 	@Editable
 	@Searchable
 	@Column(name = "email", unique = true)
@@ -48,6 +45,7 @@ public class Account extends User implements Serializable {
 		this.lastUpdated = user.getLastUpdated();
 		this.password = user.getPassword();
 		this.username = user.getUsername();
+		this.version = user.getVersion();
 		this.roles = user.getRoles();
 	}
 
@@ -26,4 +26,8 @@ public interface AccountRepository extends UserRepository<Account>, DataTableRep
 	public Optional<Account> findByFirstNameAndLastName(String firstName, String lastName);
 
 	public boolean existsByEmail(String email);
+
+	public boolean existsByEmailAndIdNot(String email, Long id);
+
+	public boolean existsByUsernameAndIdNot(String username, Long id);
 }
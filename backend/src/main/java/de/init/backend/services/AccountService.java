@@ -1,19 +1,25 @@
 package de.init.backend.services;
 
-import java.lang.reflect.Field;
 import java.util.Date;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import javax.annotation.Nullable;
+import javax.persistence.EntityManager;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Slice;
 import org.springframework.lang.NonNull;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.google.common.collect.Lists;
 
@@ -21,9 +27,20 @@ import de.init.backend.AuthConfig.ROLE;
 import de.init.backend.authentication.AuthenticationSessionService;
 import de.init.backend.authentication.error.UserNotFoundException;
 import de.init.backend.authentication.error.UsernameAlreadyExistException;
+import de.init.backend.datatable.BulkRequestBuilder;
+import de.init.backend.datatable.CountCache;
+import de.init.backend.datatable.CountMode;
 import de.init.backend.datatable.CrudService;
+import de.init.backend.datatable.DataTableRow;
+import de.init.backend.datatable.FetchPlan;
 import de.init.backend.datatable.PageService;
-import de.init.backend.datatable.annotation.AnnotationService;
+import de.init.backend.datatable.Projection;
+import de.init.backend.datatable.VersionConflictException;
+import de.init.backend.datatable.annotation.Editable;
+import de.init.backend.datatable.budget.QueryBudget;
+import de.init.backend.datatable.budget.QueryBudgetExceededException;
+import de.init.backend.datatable.budget.QueryBudgets;
+import de.init.backend.datatable.search.rsql.InListStrategy;
 import de.init.backend.error.EmailAlreadyExistException;
 import de.init.backend.model.dto.AccountDto;
 import de.init.backend.model.dto.DetailedAccountDto;
@@ -31,37 +48,94 @@ import de.init.backend.model.dto.NewAccountDto;
 import de.init.backend.model.entity.Account;
 import de.init.backend.repositories.AccountRepository;
 
+/**
+ * The accounts are mapped to DTOs inside of the service transactions, open
+ * session in view is disabled. Reading methods run in a read-only transaction
+ * and load the accounts read-only, so they don't depend on the transaction of
+ * a caller. Lazy associations needed by the DTOs are fetched explicitly.
+ */
 @Service
+@Transactional(readOnly = true)
 public class AccountService {
 	private static final Logger logger = LoggerFactory.getLogger(AccountService.class);
 
+	/** selectable fields of the {@link AccountDto} */
+	private static final Set<String> FIELDS = Set.of("id", "username", "email", "firstName", "lastName");
+
+	/** selectable fields of the {@link DetailedAccountDto} */
+	private static final Set<String> DETAILED_FIELDS = Set.of("id", "username", "email", "firstName", "lastName",
+			"lastLogin", "created", "lastUpdated", "enabled");
+
+	/** unique fields, which can't be set to the same value for many accounts */
+	private static final Set<String> UNIQUE_FIELDS = Set.of("username", "email");
+
+	/**
+	 * fields only the bulk update can change, e.g. to disable accounts. They are
+	 * not {@link Editable}, so an update of an entity without them doesn't
+	 * disable the account
+	 */
+	private static final Set<String> BULK_EDITABLE_FIELDS = Set.of("enabled");
+
+	/** the DTOs contain the role names */
+	private static final FetchPlan ROLES = FetchPlan.of("roles");
+
 	private final AccountRepository repository;
 	private final AuthenticationSessionService<Account> userService;
 	private final PasswordEncoder passwordEncoder;
 	private final PageService<Account, Long> pageService;
 	private final CrudService<Account, Long> crudService;
+	private final CountCache countCache;
+	private final QueryBudgets queryBudgets;
+	private final EntityManager entityManager;
 
 	@Autowired
 	public AccountService(AccountRepository repository, AuthenticationSessionService<Account> userService,
-			PasswordEncoder passwordEncoder) {
+			PasswordEncoder passwordEncoder, EntityManager entityManager, CountCache countCache,
+			QueryBudgets queryBudgets, InListStrategy inListStrategy,
+			@Value("${app.datatable.keyset-threshold}") long keysetThreshold,
+			@Value("${app.datatable.window-count}") boolean windowCount,
+			@Value("${app.datatable.bulk.chunk-size}") int bulkChunkSize,
+			@Value("${app.datatable.bulk.max-rows}") long bulkMaxRows) {
 		this.repository = repository;
 		this.userService = userService;
-		this.pageService = new PageService<>(repository, Account.class);
-		this.crudService = new CrudService<>(repository, Account.class);
+		this.pageService = new PageService<>(repository, Account.class, entityManager);
+		this.pageService.setKeysetThreshold(keysetThreshold);
+		this.pageService.setWindowCount(windowCount);
+		this.pageService.setCountCache(countCache);
+		this.pageService.setBulkChunkSize(bulkChunkSize);
+		this.pageService.setBulkMaxRows(bulkMaxRows);
+		this.pageService.setBulkEditableFields(BULK_EDITABLE_FIELDS);
+		this.pageService.setInListStrategy(inListStrategy);
+		this.crudService = new CrudService<>(repository, Account.class, entityManager);
+		this.crudService.setCountCache(countCache);
+		this.countCache = countCache;
+		this.queryBudgets = queryBudgets;
+		this.entityManager = entityManager;
 
 		this.passwordEncoder = passwordEncoder;
 	}
 
+	/**
+	 * @return detailed DTO of the authenticated account
+	 */
+	public DetailedAccountDto getAuthenticatedAccount() {
+		Account account = this.userService.getAuthenticatedUser();
+		return new DetailedAccountDto(account);
+	}
+
 	public AccountDto getAccountById(long id) {
-		Account account = this.crudService.get(id);
+		Account account = this.crudService.get(id, true);
 		return this.castAccount(account);
 	}
 
 	public List<AccountDto> getAllAccounts() {
-		List<Account> list = Lists.newArrayList(this.crudService.getAll());
-		return list.stream().map(this::castAccount).collect(Collectors.toList());
+		List<Account> list = Lists.newArrayList(this.crudService.getAll(true));
+		ROLES.load(this.entityManager, Account.class, list);
+		Function<Account, AccountDto> cast = this.accountCaster();
+		return list.stream().map(cast).collect(Collectors.toList());
 	}
 
+	@Transactional
 	public AccountDto createAccount(NewAccountDto accountDto) throws UsernameAlreadyExistException {
 		Account account = accountDto.toAccount();
 
@@ -69,30 +143,53 @@ public class AccountService {
 		this.checkEmailExists(account.getEmail());
 
 		account = this.userService.registerNewUser(account);
+		this.countCache.invalidate(Account.class);
 		logger.info("Created account " + account);
 		return this.castAccount(account);
 	}
 
-	public AccountDto updateAccount(long id, AccountDto accountDto) throws UserNotFoundException {
-		Account account = crudService.get(id);
-		if (account == null)
+	/**
+	 * Update the editable fields of the account, which are given in the DTO. The
+	 * account is not loaded before, the fields are written with one UPDATE per
+	 * table and the version is incremented.
+	 *
+	 * @param id         Account id
+	 * @param accountDto New values, null fields are not changed
+	 * @param version    Version of the If-Match header, null to update any version
+	 * @return updated account with the new version
+	 * @throws UserNotFoundException    if no account with the id exists
+	 * @throws VersionConflictException if the account has another version
+	 */
+	@Transactional
+	public AccountDto updateAccount(long id, AccountDto accountDto, @Nullable Long version)
+			throws UserNotFoundException {
+		Map<String, Object> values = new LinkedHashMap<>();
+		// if username is given, check if another account has it
+		if (accountDto.getUsername() != null) {
+			this.checkUsernameExists(accountDto.getUsername(), id);
+			values.put("username", accountDto.getUsername());
+		}
+		// if email is given, check if another account has it
+		if (accountDto.getEmail() != null) {
+			this.checkEmailExists(accountDto.getEmail(), id);
+			values.put("email", accountDto.getEmail());
+		}
+		if (accountDto.getFirstName() != null)
+			values.put("firstName", accountDto.getFirstName());
+		if (accountDto.getLastName() != null)
+			values.put("lastName", accountDto.getLastName());
+		values.put("lastUpdated", new Date().getTime());
+
+		if (!this.crudService.update(id, values, version))
 			throw new UserNotFoundException();
+		this.userService.refreshAuthenticatedUser();
 
-		// if username change, check if username already exist
-		if (account.getUsername() != null && !account.getUsername().equals(accountDto.getUsername()))
-			this.checkUsernameExists(accountDto.getUsername());
-		// if email change, check if email already exist
-		if (account.getEmail()!= null && !account.getEmail().equals(accountDto.getEmail()))
-			this.checkEmailExists(accountDto.getEmail());
-		
-		Account updateAccount = accountDto.toAccount();
-		updateAccount.setLastUpdated(new Date().getTime());
-
-		updateAccount = this.crudService.update(id, updateAccount, this.getEditableAndSearchableFields());
+		Account updateAccount = this.crudService.get(id);
 		logger.info("Updated account {}", updateAccount);
 		return this.castAccount(updateAccount);
 	}
 
+	@Transactional
 	public AccountDto changePassword(long id, String newPassword) throws UserNotFoundException {
 		Account account = crudService.get(id);
 
@@ -104,40 +201,160 @@ public class AccountService {
 		account.setPassword(passwordEncoder.encode(newPassword));
 		account.setLastUpdated(new Date().getTime());
 		account = this.repository.save(account);
+		this.userService.refreshAuthenticatedUser();
 		logger.info("Changed password for account {}", account.getUsername());
 		return this.castAccount(account);
 	}
 
+	@Transactional
 	public void deleteAccount(long id) {
 		this.crudService.delete(id);
+		this.userService.refreshAuthenticatedUser();
 		logger.info("Deleted user for id {}", id);
 	}
 
+	/**
+	 * Apply the values to all accounts matching the RSQL filter, e.g. disable
+	 * them with <tt>{"enabled":false}</tt>. No account is loaded, the accounts are
+	 * written in chunks of ids with one UPDATE per table.
+	 *
+	 * @param filter  RSQL filter, required
+	 * @param values  Values of the editable fields, except of the unique username
+	 *                and email
+	 * @param dryRun  Only count the matching accounts
+	 * @param maxRows Lower limit of matching accounts than the configured one, can
+	 *                be <tt>null</tt>
+	 * @return amount of matching accounts for a dry run, otherwise of updated
+	 *         accounts
+	 * @throws IllegalArgumentException     if the filter is missing or a field
+	 *                                      can't be updated
+	 * @throws QueryBudgetExceededException if the filter is over the budget of the
+	 *                                      "accounts" endpoint or more accounts
+	 *                                      than the max rows match
+	 */
+	@Transactional
+	public long bulkUpdate(String filter, Map<String, Object> values, boolean dryRun, @Nullable Long maxRows) {
+		for (String field : values.keySet()) {
+			if (UNIQUE_FIELDS.contains(field))
+				throw new IllegalArgumentException("Field '" + field + "' is unique and can't be updated in bulk");
+		}
+		Map<String, Object> updated = new LinkedHashMap<>(values);
+		updated.put("lastUpdated", new Date().getTime());
+
+		long rows = this.bulk(filter, dryRun, maxRows).update(updated);
+		if (!dryRun) {
+			this.userService.refreshAuthenticatedUser();
+			logger.info("Updated {} accounts matching {} with {}", rows, filter, values);
+		}
+		return rows;
+	}
+
+	/**
+	 * Delete all accounts matching the RSQL filter, including their roles.
+	 *
+	 * @param filter  RSQL filter, required
+	 * @param dryRun  Only count the matching accounts
+	 * @param maxRows Lower limit of matching accounts than the configured one, can
+	 *                be <tt>null</tt>
+	 * @return amount of matching accounts for a dry run, otherwise of deleted
+	 *         accounts
+	 * @throws IllegalArgumentException     if the filter is missing
+	 * @throws QueryBudgetExceededException if the filter is over the budget of the
+	 *                                      "accounts" endpoint or more accounts
+	 *                                      than the max rows match
+	 */
+	@Transactional
+	public long bulkDelete(String filter, boolean dryRun, @Nullable Long maxRows) {
+		long rows = this.bulk(filter, dryRun, maxRows).delete();
+		if (!dryRun) {
+			this.userService.refreshAuthenticatedUser();
+			logger.info("Deleted {} accounts matching {}", rows, filter);
+		}
+		return rows;
+	}
+
 	public List<AccountDto> search(String query) {
-		List<Account> list = this.pageService.search(query);
-		return list.stream().map(this::castAccount).collect(Collectors.toList());
+		List<Account> list = this.pageService.search(query, null, true);
+		ROLES.load(this.entityManager, Account.class, list);
+		Function<Account, AccountDto> cast = this.accountCaster();
+		return list.stream().map(cast).collect(Collectors.toList());
+	}
+
+	/**
+	 * Search like {@link #search(String)}, but returns only the given fields.
+	 *
+	 * @param query  Search query
+	 * @param fields Fields of the {@link AccountDto} or for admins of the
+	 *               {@link DetailedAccountDto}, the id is always included
+	 * @return rows of the fields
+	 * @throws IllegalArgumentException if a field can't be selected
+	 */
+	public List<DataTableRow> search(String query, List<String> fields) {
+		return this.pageService.search(query, null, this.projection(fields));
 	}
 
 	/**
 	 * Returns a Page object of this entity. Can be filtered by a static filter or
 	 * dynamic search query.
 	 * 
-	 * @param page      Page index
-	 * @param size      Size of elements per page
-	 * @param sortBy    Page sorted by
-	 * @param ascending Sorted ascending (true) or descending (false)
-	 * @param search    Search query
-	 * @param filter    RSQL query filter
-	 * @return Page
+	 * @param page         Page index
+	 * @param size         Size of elements per page
+	 * @param sortBy       Page sorted by
+	 * @param ascending    Sorted ascending (true) or descending (false)
+	 * @param search       Search query
+	 * @param filter       RSQL query filter
+	 * @param cursor       Cursor of the previous page for keyset pagination
+	 * @param includeTotal Count the total amount of elements, otherwise a Slice
+	 *                     without total is returned
+	 * @param approximate  Allow an approximate total, see
+	 *                     {@link CountMode#APPROXIMATE}
+	 * @return Page or Slice
+	 * @throws QueryBudgetExceededException if the filters are over the budget of
+	 *                                      the "accounts" endpoint
 	 */
-	public Page<AccountDto> getPage(int page, int size, String sortBy, Boolean ascending, String search,
-			String filter) {
-		Page<Account> pageObject = this.pageService.getPage(page, size, sortBy, ascending, search, filter,
-				this.getEditableAndSearchableFields());
-		Page<AccountDto> pageDto = pageObject.map(this::castAccount);
+	public Slice<AccountDto> getPage(int page, int size, String sortBy, Boolean ascending, String search,
+			String filter, String cursor, boolean includeTotal, boolean approximate) {
+		Slice<Account> pageObject = this.pageService.builder() //
+				.page(page, size, sortBy, ascending) //
+				.filter(search, null) //
+				.filter(filter) //
+				.cursor(cursor) //
+				.budget(this.queryBudgets.forEndpoint("accounts")) //
+				.readOnly() //
+				.fetch(ROLES) //
+				.count(!includeTotal ? CountMode.NONE : approximate ? CountMode.APPROXIMATE : CountMode.EXACT) //
+				.execute();
+		Slice<AccountDto> pageDto = pageObject.map(this.accountCaster());
 		return pageDto;
 	}
 
+	/**
+	 * Returns a Page object of the sparse fieldset. Like
+	 * {@link #getPage(int, int, String, Boolean, String, String, String, boolean, boolean)},
+	 * but only the columns of the given fields are selected.
+	 * 
+	 * @param fields Fields of the {@link AccountDto} or for admins of the
+	 *               {@link DetailedAccountDto}, the id is always included
+	 * @return Page or Slice of rows
+	 * @throws IllegalArgumentException     if a field can't be selected
+	 * @throws QueryBudgetExceededException if the filters are over the budget of
+	 *                                      the "accounts" endpoint
+	 */
+	public Slice<DataTableRow> getPage(int page, int size, String sortBy, Boolean ascending, String search,
+			String filter, String cursor, boolean includeTotal, boolean approximate, List<String> fields) {
+		Projection projection = this.projection(fields);
+		return this.pageService.builder() //
+				.page(page, size, sortBy, ascending) //
+				.filter(search, null) //
+				.filter(filter) //
+				.cursor(cursor) //
+				.budget(this.queryBudgets.forEndpoint("accounts")) //
+				.readOnly() //
+				.count(!includeTotal ? CountMode.NONE : approximate ? CountMode.APPROXIMATE : CountMode.EXACT) //
+				.execute(projection);
+	}
+
+	@Transactional
 	public void addTestAccounts() {
 		try {
 			if (!this.repository.existsByUsername("adam")) {
@@ -161,26 +378,51 @@ public class AccountService {
 		}
 	}
 
-	private Set<Field> getEditableAndSearchableFields() {
-		return new AnnotationService(Account.class)
-				.getFieldsWithName(new HashSet<>(Account.ediableAndSearchableFields));
+	private AccountDto castAccount(Account account) {
+		return this.accountCaster().apply(account);
 	}
 
-	private AccountDto castAccount(Account account) {
-		Account user = this.userService.getAuthenticatedUser();
-		if (user != null && user.hasRole(ROLE.ROLE_ADMIN.toString()))
-			return new DetailedAccountDto(account);
+	/**
+	 * Admins get the detailed accounts. The role is checked once, so the returned
+	 * function can be applied to all accounts of a page.
+	 */
+	private Function<Account, AccountDto> accountCaster() {
+		if (this.userService.hasAuthenticatedRole(ROLE.ROLE_ADMIN.toString()))
+			return DetailedAccountDto::new;
 		else
-			return new AccountDto(account);
+			return AccountDto::new;
+	}
+
+	private BulkRequestBuilder<Account, Long> bulk(String filter, boolean dryRun, @Nullable Long maxRows) {
+		return this.pageService.bulk() //
+				.filter(filter) //
+				.budget(this.queryBudgets.forEndpoint("accounts")) //
+				.maxRows(maxRows != null ? maxRows : QueryBudget.UNLIMITED) //
+				.dryRun(dryRun);
+	}
+
+	/**
+	 * Only the fields of the DTO the authenticated user gets can be selected.
+	 */
+	private Projection projection(List<String> fields) {
+		Set<String> allowed = this.userService.hasAuthenticatedRole(ROLE.ROLE_ADMIN.toString())
+				? DETAILED_FIELDS
+				: FIELDS;
+		return Projection.of(Account.class, fields, allowed);
 	}
 
 	private void checkEmailExists(@NonNull String email) {
 		if (email.isBlank() || this.repository.existsByEmail(email))
 			throw new EmailAlreadyExistException();
 	}
-	
-	private void checkUsernameExists(@NonNull String username) {
-		if (username.isBlank() || this.repository.existsByUsername(username))
+
+	private void checkEmailExists(@NonNull String email, long id) {
+		if (email.isBlank() || this.repository.existsByEmailAndIdNot(email, id))
+			throw new EmailAlreadyExistException();
+	}
+
+	private void checkUsernameExists(@NonNull String username, long id) {
+		if (username.isBlank() || this.repository.existsByUsernameAndIdNot(username, id))
 			throw new UsernameAlreadyExistException();
 	}
 }
@@ -0,0 +1,329 @@
+package de.init.backend.services;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import de.init.backend.AuthConfig.ROLE;
+import de.init.backend.authentication.model.Role;
+import de.init.backend.authentication.repository.RoleRepository;
+import de.init.backend.datatable.CountCache;
+import de.init.backend.model.entity.Account;
+
+/**
+ * Generates synthetic accounts for load tests. The accounts are derived from a
+ * seed and their index, so the same seed always generates the same accounts,
+ * independent of the parallelism. The users are named <tt>user&lt;seed&gt;-&lt;index&gt;</tt>,
+ * a further run with the same seed generates the lowest indices which don't
+ * exist yet, so it fills the gaps a failed run left before it continues after
+ * the existing accounts of the seed.
+ *
+ * The rows are inserted with JDBC batches, bypassing the persistence context.
+ * The ids are taken from the identifier generator of the entity, so they don't
+ * collide with accounts created by JPA, the pooled optimizer of the generator
+ * needs only one sequence call per block of ids. All accounts share one
+ * password hash.
+ */
+@Service
+public class TestAccountGenerator {
+	private static final Logger logger = LoggerFactory.getLogger(TestAccountGenerator.class);
+
+	/** password of all generated accounts */
+	public static final String PASSWORD = "password";
+
+	/** every ADMIN_RATE account is an admin */
+	private static final int ADMIN_RATE = 50;
+
+	private static final String INSERT_USER = "INSERT INTO auth_user (id, username, password, enabled, created, last_updated, last_login, version) VALUES (?, ?, ?, ?, ?, ?, ?, 0)";
+	private static final String INSERT_ACCOUNT = "INSERT INTO accounts (id, email, first_name, last_name) VALUES (?, ?, ?, ?)";
+	private static final String INSERT_ROLE = "INSERT INTO users_roles (user_id, role_id) VALUES (?, ?)";
+
+	private static final String[] FIRST_NAMES = { "Anna", "Ben", "Clara", "David", "Emma", "Felix", "Greta", "Hannah",
+			"Ida", "Jonas", "Klara", "Lukas", "Mia", "Noah", "Olga", "Paul", "Sophie", "Tim", "Lena", "Max", "Eva",
+			"Frank", "Adam", "Jörg" };
+
+	private static final String[] LAST_NAMES = { "Müller", "Schmidt", "Schneider", "Fischer", "Weber", "Meyer",
+			"Wagner", "Becker", "Schulz", "Hoffmann", "Koch", "Richter", "Klein", "Wolf", "Neumann", "Schwarz",
+			"Zimmermann", "Krüger", "Hartmann", "Lange", "Smith", "Mustermann", "Maurer", "Grüger" };
+
+	private static final String[] DOMAINS = { "example.org", "example.com", "example.net", "mail.example.de" };
+
+	private static final long YEAR = 365L * 24 * 60 * 60 * 1000;
+
+	private final SessionFactoryImplementor sessionFactory;
+	private final IdentifierGenerator idGenerator;
+	private final RoleRepository roleRepository;
+	private final PasswordEncoder passwordEncoder;
+	private final CountCache countCache;
+	private final EntityManager entityManager;
+	private final int batchSize;
+	private final int maxCount;
+	private final int maxParallelism;
+
+	@Autowired
+	public TestAccountGenerator(EntityManagerFactory entityManagerFactory, EntityManager entityManager,
+			RoleRepository roleRepository, PasswordEncoder passwordEncoder, CountCache countCache,
+			@Value("${app.test-accounts.batch-size}") int batchSize,
+			@Value("${app.test-accounts.max-count}") int maxCount,
+			@Value("${app.test-accounts.max-parallelism}") int maxParallelism) {
+		this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+		this.idGenerator = this.sessionFactory.getMetamodel().entityPersister(Account.class).getIdentifierGenerator();
+		this.entityManager = entityManager;
+		this.roleRepository = roleRepository;
+		this.passwordEncoder = passwordEncoder;
+		this.countCache = countCache;
+		this.batchSize = batchSize;
+		this.maxCount = maxCount;
+		this.maxParallelism = maxParallelism;
+	}
+
+	/**
+	 * Check the arguments of {@link #generate}.
+	 *
+	 * @throws IllegalArgumentException if the count or parallelism are out of
+	 *                                  range
+	 */
+	public void checkArguments(int count, int parallelism) {
+		if (count < 1 || count > this.maxCount)
+			throw new IllegalArgumentException("count must be between 1 and " + this.maxCount);
+		if (parallelism < 1 || parallelism > this.maxParallelism)
+			throw new IllegalArgumentException("parallelism must be between 1 and " + this.maxParallelism);
+	}
+
+	/**
+	 * @param seed seed of the accounts
+	 * @return amount of existing accounts generated with the seed
+	 */
+	public long countExisting(long seed) {
+		return ((Number) this.entityManager
+				.createNativeQuery("SELECT COUNT(*) FROM auth_user WHERE username LIKE ?1")
+				.setParameter(1, usernamePrefix(seed) + "%").getSingleResult()).longValue();
+	}
+
+	/**
+	 * Generate accounts and insert them with the given amount of threads, each
+	 * with its own connection. Every batch is committed on its own, so a failed
+	 * run keeps the accounts inserted so far, a further run with the same seed
+	 * inserts the missing ones.
+	 *
+	 * @param count       amount of accounts
+	 * @param seed        seed of the accounts
+	 * @param parallelism amount of threads
+	 * @param progress    called with the amount of inserted accounts after every
+	 *                    committed batch, never concurrently
+	 * @return amount of inserted accounts
+	 * @throws IllegalArgumentException if the count or parallelism are out of
+	 *                                  range
+	 */
+	public long generate(int count, long seed, int parallelism, LongConsumer progress) {
+		this.checkArguments(count, parallelism);
+
+		long userRole = this.findRoleId(ROLE.ROLE_USER);
+		long adminRole = this.findRoleId(ROLE.ROLE_ADMIN);
+		String passwordHash = this.passwordEncoder.encode(PASSWORD);
+		long[] indices = this.missingIndices(seed, count);
+		long start = System.currentTimeMillis();
+
+		AtomicLong inserted = new AtomicLong();
+		LongConsumer committed = rows -> {
+			synchronized (inserted) {
+				progress.accept(inserted.addAndGet(rows));
+			}
+		};
+
+		ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+		try {
+			List<Future<?>> workers = new ArrayList<>();
+			int chunk = (count + parallelism - 1) / parallelism;
+			for (int from = 0; from < count; from += chunk) {
+				long[] range = Arrays.copyOfRange(indices, from, Math.min(from + chunk, count));
+				workers.add(executor.submit(
+						() -> this.insert(range, seed, passwordHash, userRole, adminRole, start, committed)));
+			}
+			for (Future<?> worker : workers)
+				worker.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Generation of test accounts was interrupted", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Generation of test accounts failed", e.getCause());
+		} finally {
+			executor.shutdownNow();
+			this.countCache.invalidate(Account.class);
+		}
+
+		logger.info("Created {} test accounts with seed {} in {} ms", inserted.get(), seed,
+				System.currentTimeMillis() - start);
+		return inserted.get();
+	}
+
+	/**
+	 * The lowest indices of the seed without account. The usernames of the seed
+	 * are read once, so the generation doesn't depend on the existing accounts
+	 * being contiguous.
+	 *
+	 * @return count indices in ascending order
+	 */
+	private long[] missingIndices(long seed, int count) {
+		String prefix = usernamePrefix(seed);
+		BitSet existing = new BitSet();
+		try (StatelessSession session = this.sessionFactory.openStatelessSession()) {
+			session.doWork(connection -> {
+				try (PreparedStatement statement = connection
+						.prepareStatement("SELECT username FROM auth_user WHERE username LIKE ?")) {
+					statement.setString(1, prefix + "%");
+					statement.setFetchSize(this.batchSize);
+					try (ResultSet result = statement.executeQuery()) {
+						while (result.next()) {
+							int index = parseIndex(result.getString(1).substring(prefix.length()));
+							if (index >= 0)
+								existing.set(index);
+						}
+					}
+				}
+			});
+		}
+
+		long[] indices = new long[count];
+		int index = -1;
+		for (int i = 0; i < count; i++) {
+			index = existing.nextClearBit(index + 1);
+			indices[i] = index;
+		}
+		return indices;
+	}
+
+	/**
+	 * Insert the accounts of the given indices.
+	 */
+	private void insert(long[] indices, long seed, String passwordHash, long userRole, long adminRole, long now,
+			LongConsumer committed) {
+		try (StatelessSession session = this.sessionFactory.openStatelessSession()) {
+			SharedSessionContractImplementor implementor = (SharedSessionContractImplementor) session;
+			session.doWork(connection -> {
+				connection.setAutoCommit(false);
+				try (PreparedStatement users = connection.prepareStatement(INSERT_USER);
+						PreparedStatement accounts = connection.prepareStatement(INSERT_ACCOUNT);
+						PreparedStatement roles = connection.prepareStatement(INSERT_ROLE)) {
+					int batch = 0;
+					for (int i = 0; i < indices.length; i++) {
+						long id = ((Number) this.idGenerator.generate(implementor, null)).longValue();
+						this.addAccount(users, accounts, roles, id, indices[i], seed, passwordHash, userRole,
+								adminRole, now);
+						if (++batch == this.batchSize || i == indices.length - 1) {
+							users.executeBatch();
+							accounts.executeBatch();
+							roles.executeBatch();
+							connection.commit();
+							committed.accept(batch);
+							batch = 0;
+						}
+					}
+				} catch (SQLException e) {
+					rollback(connection);
+					throw e;
+				}
+			});
+		}
+	}
+
+	private void addAccount(PreparedStatement users, PreparedStatement accounts, PreparedStatement roles, long id,
+			long index, long seed, String passwordHash, long userRole, long adminRole, long now) throws SQLException {
+		SplittableRandom random = new SplittableRandom(seed * 0x9E3779B97F4A7C15L + index);
+		String username = usernamePrefix(seed) + index;
+		String firstName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+		String lastName = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+		String email = toAscii(firstName + "." + lastName).toLowerCase() + "." + username + "@"
+				+ DOMAINS[random.nextInt(DOMAINS.length)];
+		long created = now - (long) (random.nextDouble() * 3 * YEAR);
+		long lastUpdated = created + (long) (random.nextDouble() * (now - created));
+		// a quarter of the accounts never logged in
+		boolean loggedIn = random.nextInt(4) > 0;
+
+		users.setLong(1, id);
+		users.setString(2, username);
+		users.setString(3, passwordHash);
+		users.setBoolean(4, random.nextInt(20) > 0);
+		users.setLong(5, created);
+		users.setLong(6, lastUpdated);
+		if (loggedIn)
+			users.setLong(7, lastUpdated + (long) (random.nextDouble() * (now - lastUpdated)));
+		else
+			users.setNull(7, Types.BIGINT);
+		users.addBatch();
+
+		accounts.setLong(1, id);
+		accounts.setString(2, email);
+		accounts.setString(3, firstName);
+		accounts.setString(4, lastName);
+		accounts.addBatch();
+
+		roles.setLong(1, id);
+		roles.setLong(2, userRole);
+		roles.addBatch();
+		if (random.nextInt(ADMIN_RATE) == 0) {
+			roles.setLong(1, id);
+			roles.setLong(2, adminRole);
+			roles.addBatch();
+		}
+	}
+
+	private long findRoleId(ROLE role) {
+		return this.roleRepository.findByName(role.toString()).map(Role::getId)
+				.orElseThrow(() -> new IllegalStateException("Role " + role + " does not exist"));
+	}
+
+	private static String usernamePrefix(long seed) {
+		return "user" + seed + "-";
+	}
+
+	/**
+	 * @return index of the username suffix, -1 if it is no generated index
+	 */
+	private static int parseIndex(String suffix) {
+		if (suffix.isEmpty() || suffix.length() > 9 || suffix.length() > 1 && suffix.charAt(0) == '0'
+				|| !suffix.chars().allMatch(c -> c >= '0' && c <= '9'))
+			return -1;
+		return Integer.parseInt(suffix);
+	}
+
+	private static String toAscii(String name) {
+		return name.replace("ä", "ae").replace("ö", "oe").replace("ü", "ue").replace("ß", "ss");
+	}
+
+	private static void rollback(Connection connection) {
+		try {
+			connection.rollback();
+		} catch (SQLException e) {
+			logger.warn("Rollback of test accounts failed", e);
+		}
+	}
+
+}
@@ -0,0 +1,84 @@
+package de.init.backend.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import de.init.backend.authentication.jwt.JWTUtils;
+import de.init.backend.repositories.AccountRepository;
+
+/**
+ * Calls the endpoints mapping accounts to DTOs without open session in view. A
+ * lazy load outside of a service transaction throws a
+ * LazyInitializationException and fails the request. The test itself must not
+ * be transactional, otherwise its transaction would keep the session open.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class LazyLoadingTest {
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private ApplicationContext context;
+
+	@Autowired
+	private AccountRepository accountRepository;
+
+	@Value("${app.endpoint.api}")
+	private String api;
+
+	@Value("${app.endpoint.login}")
+	private String login;
+
+	private String authorization;
+
+	@BeforeEach
+	void login() throws Exception {
+		this.authorization = this.mvc
+				.perform(post(this.api + this.login).param("username", "admin").param("password", "admin"))
+				.andExpect(status().isOk()).andExpect(noException()).andReturn().getResponse()
+				.getHeader(JWTUtils.HEADER_STRING);
+		assertNotNull(this.authorization);
+
+		this.mvc.perform(get(this.api + "/accounts/create_test").header(JWTUtils.HEADER_STRING, this.authorization))
+				.andExpect(status().isNoContent()).andExpect(noException());
+	}
+
+	@Test
+	void openSessionInViewIsDisabled() {
+		assertEquals(0, this.context.getBeanNamesForType(OpenEntityManagerInViewInterceptor.class).length);
+	}
+
+	@Test
+	void accountsAreMappedInTransactions() throws Exception {
+		long id = this.accountRepository.findByUsername("adam").orElseThrow().getId();
+		String[] urls = { "/accounts", "/accounts/" + id, "/accounts/page?size=20",
+				"/accounts/page?size=20&includeTotal=false", "/accounts/page?size=20&fields=username,email",
+				"/accounts/search?query=adam", "/accounts/search?query=adam&fields=username", "/user" };
+		for (String url : urls) {
+			this.mvc.perform(get(this.api + url).header(JWTUtils.HEADER_STRING, this.authorization))
+					.andExpect(status().isOk()).andExpect(noException());
+		}
+	}
+
+	private static ResultMatcher noException() {
+		return result -> assertNull(result.getResolvedException(), result.getRequest().getRequestURI());
+	}
+
+}
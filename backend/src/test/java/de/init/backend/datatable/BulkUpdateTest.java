@@ -0,0 +1,92 @@
+package de.init.backend.datatable;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.persistence.EntityManager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import de.init.backend.model.entity.Account;
+import de.init.backend.repositories.AccountRepository;
+
+/**
+ * A bulk editable field can be changed by a bulk update only, the merge of an
+ * entity keeps it.
+ */
+@SpringBootTest
+class BulkUpdateTest {
+
+	private static final String FILTER = "username==bulk_*";
+
+	@Autowired
+	private AccountRepository repository;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	private PageService<Account, Long> pageService;
+
+	private final List<Long> ids = new ArrayList<>();
+
+	@BeforeEach
+	void createAccounts() {
+		this.pageService = new PageService<>(this.repository, Account.class, this.entityManager);
+		for (int i = 0; i < 3; i++) {
+			Account account = new Account();
+			account.setUsername("bulk_" + i);
+			account.setEmail("bulk_" + i + "@test.de");
+			account.setEnabled(true);
+			this.ids.add(this.repository.save(account).getId());
+		}
+	}
+
+	@AfterEach
+	void deleteAccounts() {
+		this.repository.deleteAll(this.repository.findAllById(this.ids));
+		this.ids.clear();
+	}
+
+	@Test
+	void keepEnabledOnMerge() {
+		CrudService<Account, Long> crudService = new CrudService<>(this.repository, Account.class,
+				this.entityManager);
+		Account updated = new Account();
+		updated.setUsername("bulk_renamed");
+		crudService.update(this.ids.get(0), updated);
+
+		Account account = this.repository.findById(this.ids.get(0)).orElseThrow();
+		assertEquals("bulk_renamed", account.getUsername());
+		assertTrue(account.isEnabled());
+	}
+
+	@Test
+	void updateBulkEditableField() {
+		assertThrows(IllegalArgumentException.class, () -> this.disableAll());
+
+		this.pageService.setBulkEditableFields(Set.of("enabled"));
+		assertEquals(3, this.disableAll());
+		this.repository.findAllById(this.ids).forEach(account -> assertFalse(account.isEnabled()));
+	}
+
+	private long disableAll() {
+		return this.transactionTemplate
+				.execute(status -> this.pageService.bulk().filter(FILTER).update(Map.of("enabled", false)));
+	}
+
+}
@@ -0,0 +1,105 @@
+package de.init.backend.datatable;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import de.init.backend.model.entity.Account;
+import de.init.backend.repositories.AccountRepository;
+
+/**
+ * A cursor is only used for the next page of the same size and filters, a
+ * stale cursor falls back to the offset.
+ */
+@SpringBootTest
+class KeysetCursorTest {
+
+	private static final String FILTER = "username==keyset_*";
+
+	@Autowired
+	private AccountRepository repository;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	private PageService<Account, Long> pageService;
+
+	private final List<Long> ids = new ArrayList<>();
+
+	@BeforeEach
+	void createAccounts() {
+		this.pageService = new PageService<>(this.repository, Account.class, this.entityManager);
+		this.pageService.setKeysetThreshold(0);
+		for (int i = 0; i < 20; i++) {
+			Account account = new Account();
+			account.setUsername("keyset_" + i);
+			account.setEmail("keyset_" + i + (i % 2 == 0 ? "@even.de" : "@odd.de"));
+			this.ids.add(this.repository.save(account).getId());
+		}
+	}
+
+	@AfterEach
+	void deleteAccounts() {
+		this.repository.deleteAll(this.repository.findAllById(this.ids));
+		this.ids.clear();
+	}
+
+	@Test
+	void seekNextPage() {
+		String cursor = this.cursor(5, FILTER);
+		// the offset would skip a row after the first one is deleted, the seek doesn't
+		this.repository.deleteById(this.ids.get(0));
+		assertEquals(this.ids.subList(5, 10), this.page(1, 5, FILTER, cursor));
+		assertEquals(this.ids.subList(6, 11), this.page(1, 5, FILTER, null));
+	}
+
+	@Test
+	void ignoreCursorOfOtherSize() {
+		String cursor = this.cursor(5, FILTER);
+		// seeking behind the fifth row would return the rows 5 - 14
+		assertEquals(this.ids.subList(10, 20), this.page(1, 10, FILTER, cursor));
+	}
+
+	@Test
+	void ignoreCursorOfOtherFilter() {
+		String cursor = this.cursor(5, FILTER);
+		List<Long> even = new ArrayList<>();
+		for (int i = 0; i < this.ids.size(); i += 2)
+			even.add(this.ids.get(i));
+		// seeking behind the fifth row would return the even rows 6 - 14
+		assertEquals(even.subList(5, 10), this.page(1, 5, FILTER + ";email==*@even.de", cursor));
+	}
+
+	@Test
+	void keepCursorOfSameFilterInOtherNotation() {
+		String cursor = ((DataTablePage<Account>) this.pageService.builder().page(0, 5, "id", true)
+				.filter("email==keyset_*").filter(FILTER).execute()).getNextCursor();
+		assertNotNull(cursor);
+		this.repository.deleteById(this.ids.get(0));
+		assertEquals(this.ids.subList(5, 10), this.page(1, 5, "username==keyset_*;email==keyset_*", cursor));
+	}
+
+	private String cursor(int size, String filter) {
+		String cursor = ((DataTablePage<Account>) this.pageService.builder().page(0, size, "id", true).filter(filter)
+				.execute()).getNextCursor();
+		assertNotNull(cursor);
+		return cursor;
+	}
+
+	private List<Long> page(int page, int size, String filter, String cursor) {
+		return this.pageService.builder().page(page, size, "id", true).filter(filter).cursor(cursor).execute()
+				.getContent().stream().map(Account::getId).collect(Collectors.toList());
+	}
+
+}
@@ -0,0 +1,92 @@
+package de.init.backend.datatable.budget;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import javax.persistence.EntityManager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import de.init.backend.datatable.PageService;
+import de.init.backend.datatable.search.rsql.InListStrategy;
+import de.init.backend.model.entity.Account;
+import de.init.backend.repositories.AccountRepository;
+import de.init.backend.services.AccountService;
+
+/**
+ * Filters over budget are rejected before their specifications are created,
+ * long <tt>=in=</tt> lists are scored by their amount of values.
+ */
+@SpringBootTest(properties = "app.datatable.in-list.temp-table-threshold=20")
+class QueryBudgetTest {
+
+	@Autowired
+	private AccountRepository repository;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private InListStrategy inListStrategy;
+
+	@Autowired
+	private AccountService accountService;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	private PageService<Account, Long> pageService;
+
+	@BeforeEach
+	void createPageService() {
+		this.pageService = new PageService<>(this.repository, Account.class, this.entityManager);
+		this.pageService.setInListStrategy(this.inListStrategy);
+	}
+
+	@Test
+	void checkBudgetBeforeCreatingSpecifications() {
+		String ids = ids(25);
+		this.transactionTemplate.executeWithoutResult(status -> {
+			QueryBudgetExceededException e = assertThrows(QueryBudgetExceededException.class,
+					() -> this.pageService.builder().filter("id=in=(" + ids + ")").filter("username==a*")
+							.budget(new QueryBudget(1, -1, 2, 2, 100)).execute());
+			assertEquals(List.of("comparisons: 2 > 1"), e.getViolations());
+			// creating the specification would have inserted the list into the temp table
+			assertEquals(0, ((Number) this.entityManager
+					.createNativeQuery("select count(*) from tmp_datatable_in_list").getSingleResult()).intValue());
+		});
+	}
+
+	@Test
+	void scoreInListsByArguments() {
+		QueryBudget budget = new QueryBudget(2, 100, 2, 2, 100);
+		this.pageService.builder().filter("id=in=(" + ids(60) + ");id=out=(" + ids(40) + ")").budget(budget)
+				.execute();
+
+		QueryBudgetExceededException e = assertThrows(QueryBudgetExceededException.class,
+				() -> this.pageService.builder().filter("id=in=(" + ids(60) + ")").filter("id=out=(" + ids(41) + ")")
+						.budget(budget).execute());
+		assertEquals(List.of("in list arguments: 101 > 100"), e.getViolations());
+	}
+
+	@Test
+	void rejectLongInListOfAccountPage() {
+		// default budget of app.datatable.budget.defaults.max-in-list-arguments
+		QueryBudgetExceededException e = assertThrows(QueryBudgetExceededException.class, () -> this.accountService
+				.getPage(0, 10, "id", true, null, "id=in=(" + ids(10001) + ")", null, false, false));
+		assertEquals(List.of("in list arguments: 10001 > 10000"), e.getViolations());
+	}
+
+	private static String ids(int count) {
+		return IntStream.rangeClosed(1, count).mapToObj(String::valueOf).collect(Collectors.joining(","));
+	}
+
+}
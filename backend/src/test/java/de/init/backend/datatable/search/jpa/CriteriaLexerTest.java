@@ -0,0 +1,113 @@
+package de.init.backend.datatable.search.jpa;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import de.init.backend.datatable.search.SearchQueryParseException;
+
+/**
+ * A criterion is scanned as <tt>key operation [prefix] value [suffix]</tt>,
+ * errors carry the position where the expected input is missing.
+ */
+class CriteriaLexerTest {
+
+	@Test
+	void scanOperations() {
+		assertCriterion("a:b", "a", SearchOperation.EQUALITY, "b");
+		assertCriterion("a!b", "a", SearchOperation.NEGATION, "b");
+		assertCriterion("a>22", "a", SearchOperation.GREATER_THAN, "22");
+		assertCriterion("a<22", "a", SearchOperation.LESS_THAN, "22");
+		assertCriterion("a~b", "a", SearchOperation.LIKE, "b");
+	}
+
+	@Test
+	void turnEqualityWithAsteriskIntoLike() {
+		assertCriterion("a:b*", "a", SearchOperation.STARTS_WITH, "b");
+		assertCriterion("a:*b", "a", SearchOperation.ENDS_WITH, "b");
+		assertCriterion("a:*b*", "a", SearchOperation.CONTAINS, "b");
+		// the asterisk only changes equalities
+		assertCriterion("a!*b*", "a", SearchOperation.NEGATION, "b");
+	}
+
+	@Test
+	void ignoreOtherAffixes() {
+		// quotes don't group a value, they are dropped like any other punctuation
+		assertCriterion("a:'b'", "a", SearchOperation.EQUALITY, "b");
+		assertCriterion("a:\"b\"", "a", SearchOperation.EQUALITY, "b");
+		assertCriterion("a:-b.", "a", SearchOperation.EQUALITY, "b");
+
+		// separators and parentheses end the criterion
+		for (String query : new String[] { "a:b,c:d", "a:b)", "a:b(" }) {
+			CriteriaLexer lexer = new CriteriaLexer(query);
+			lexer.criterion(null, false);
+			assertEquals(3, lexer.position(), query);
+		}
+
+		// a value ends at the first non word character, only one is consumed
+		CriteriaLexer lexer = new CriteriaLexer("a:\"b c\"");
+		assertEquals("b", lexer.criterion(null, false).getValue());
+		assertEquals(' ', lexer.peek());
+	}
+
+	@Test
+	void scanNestedKey() {
+		SearchCriteria criteria = new CriteriaLexer("address.city:x").criterion(null, true);
+		assertEquals("address.city", criteria.getKey());
+		assertTrue(criteria.isNested());
+
+		assertError(new CriteriaLexer("address.city:x"), false, "operation : ! > < ~", "'.'", 7);
+		assertError(new CriteriaLexer("address.:x"), true, "attribute name", "':'", 8);
+		assertError(new CriteriaLexer("a.b.c:x"), true, "operation : ! > < ~", "'.'", 3);
+	}
+
+	@Test
+	void reportErrorPosition() {
+		assertError(new CriteriaLexer(""), false, "attribute name", "end of query", 0);
+		assertError(new CriteriaLexer(":b"), false, "attribute name", "':'", 0);
+		assertError(new CriteriaLexer("a=b"), false, "operation : ! > < ~", "'='", 1);
+		assertError(new CriteriaLexer("a:"), false, "value", "end of query", 2);
+		assertError(new CriteriaLexer("a:**b"), false, "value", "'*'", 3);
+		assertError(new CriteriaLexer("äb:c"), false, "attribute name", "'ä'", 0);
+	}
+
+	@Test
+	void scanKeyword() {
+		CriteriaLexer lexer = new CriteriaLexer("AND x");
+		int end = lexer.wordEnd();
+		assertEquals(3, end);
+		assertEquals(0, lexer.position());
+		assertTrue(lexer.isKeyword("AND", end));
+		assertFalse(lexer.isKeyword("AN", end));
+		assertFalse(lexer.isKeyword("OR", end));
+
+		lexer.position(end);
+		lexer.skipWhitespace();
+		assertEquals('x', lexer.peek());
+		lexer.skip();
+		assertTrue(lexer.atEnd());
+		assertEquals(0, lexer.peek());
+	}
+
+	private static void assertCriterion(String query, String key, SearchOperation operation, String value) {
+		CriteriaLexer lexer = new CriteriaLexer(query);
+		SearchCriteria criteria = lexer.criterion(null, false);
+		assertEquals(key, criteria.getKey(), query);
+		assertEquals(operation, criteria.getOperation(), query);
+		assertEquals(value, criteria.getValue(), query);
+		assertFalse(criteria.isOrPredicate(), query);
+		assertTrue(lexer.atEnd(), query);
+	}
+
+	private static void assertError(CriteriaLexer lexer, boolean nestedKey, String expected, String found,
+			int position) {
+		SearchQueryParseException e = assertThrows(SearchQueryParseException.class,
+				() -> lexer.criterion(null, nestedKey));
+		assertEquals("Expected " + expected + " but found " + found + " at column " + (position + 1), e.getMessage());
+		assertEquals(position, e.getPosition());
+	}
+
+}
@@ -0,0 +1,97 @@
+package de.init.backend.datatable.search.jpa;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import de.init.backend.datatable.search.SearchQueryParseException;
+
+/**
+ * AND binds stronger than OR, operators of the same precedence are left
+ * associative. Malformed expressions are rejected with the position of the
+ * error instead of skipping the unmatched tokens.
+ */
+class CriteriaParserTest {
+
+	private final CriteriaParser parser = new CriteriaParser();
+
+	@Test
+	void bindAndStrongerThanOr() {
+		assertTree("(a:1 OR (b:2 AND c:3))", "a:1 OR b:2 AND c:3");
+		assertTree("((a:1 AND b:2) OR c:3)", "a:1 AND b:2 OR c:3");
+		assertTree("((a:1 AND b:2) OR (c:3 AND d:4))", "a:1 AND b:2 OR c:3 AND d:4");
+		assertTree("((a:1 OR b:2) OR c:3)", "a:1 OR b:2 OR c:3");
+		assertTree("((a:1 AND b:2) AND c:3)", "a:1 and b:2 AND c:3");
+	}
+
+	@Test
+	void groupByParentheses() {
+		assertTree("((a:1 OR b:2) AND c:3)", "( a:1 OR b:2 ) AND c:3");
+		assertTree("(a:1 AND (b:2 OR c:3))", "a:1 AND (b:2 OR c:3)");
+		// no whitespace needed around parentheses
+		assertTree("((a:1 OR (b:2 AND c:3)) AND d:4)", "(a:1 or(b:2 and c:3))and d:4");
+		assertTree("a:1", "((a:1))");
+	}
+
+	@Test
+	void parseKeywordAsAttribute() {
+		// a keyword followed by an operation is an attribute name
+		CriteriaNode root = parser.parse("or:x AND and:y");
+		assertEquals(SearchOperation.AND_OPERATOR, root.getOperator());
+		assertEquals("or", root.getLeft().getCriteria().getKey());
+		assertEquals("and", root.getRight().getCriteria().getKey());
+	}
+
+	@Test
+	void parseAffixes() {
+		CriteriaNode root = parser.parse("firstName:*oh* OR lastName:'doe'");
+		assertEquals(SearchOperation.CONTAINS, root.getLeft().getCriteria().getOperation());
+		assertEquals("oh", root.getLeft().getCriteria().getValue());
+		assertEquals(SearchOperation.EQUALITY, root.getRight().getCriteria().getOperation());
+		assertEquals("doe", root.getRight().getCriteria().getValue());
+	}
+
+	@Test
+	void rejectFormerlySkippedInput() {
+		// the regex parser dropped tokens it didn't match and operands without operator
+		assertError("a=b AND c:d", "operation : ! > < ~", "'='", 1);
+		assertError("a:b c:d", "AND, OR, ')' or end of query", "'c'", 4);
+		assertError("a:1 And b:2", "AND, OR, ')' or end of query", "'A'", 4);
+		assertError("a:b ANDc:d", "AND, OR, ')' or end of query", "'A'", 4);
+		assertError("address.city:x", "operation : ! > < ~", "'.'", 7);
+	}
+
+	@Test
+	void reportErrorPosition() {
+		assertError("", "attribute name", "end of query", 0);
+		assertError("AND a:b", "search criterion or '('", "'A'", 0);
+		assertError("a:b AND", "attribute name", "end of query", 7);
+		assertError("a:b OR OR c:d", "search criterion or '('", "'O'", 7);
+		assertError("( a:b", "')'", "end of query", 5);
+		assertError("a:b )", "AND, OR or end of query", "')'", 4);
+		assertError("(a:b OR c:d", "')'", "end of query", 11);
+		assertError("()", "attribute name", "')'", 1);
+	}
+
+	/**
+	 * @param expected tree with every operator node in parentheses
+	 */
+	private void assertTree(String expected, String query) {
+		assertEquals(expected, format(parser.parse(query)), query);
+	}
+
+	private static String format(CriteriaNode node) {
+		if (node.isLeaf())
+			return node.getCriteria().getKey() + ":" + node.getCriteria().getValue();
+		return "(" + format(node.getLeft()) + " " + node.getOperator() + " " + format(node.getRight()) + ")";
+	}
+
+	private void assertError(String query, String expected, String found, int position) {
+		SearchQueryParseException e = assertThrows(SearchQueryParseException.class, () -> parser.parse(query));
+		assertEquals("Expected " + expected + " but found " + found + " at column " + (position + 1), e.getMessage(),
+				query);
+		assertEquals(position, e.getPosition(), query);
+	}
+
+}
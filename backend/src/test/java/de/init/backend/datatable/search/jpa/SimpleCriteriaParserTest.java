@@ -0,0 +1,78 @@
+package de.init.backend.datatable.search.jpa;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import de.init.backend.datatable.search.SearchQueryParseException;
+
+/**
+ * Criteria separated by <tt>,</tt>, malformed queries are rejected with the
+ * position of the error instead of skipping the unmatched parts.
+ */
+class SimpleCriteriaParserTest {
+
+	private final SimpleCriteriaParser parser = new SimpleCriteriaParser();
+
+	@Test
+	void parseCriteria() {
+		List<SearchCriteria> criteria = parser.parse(" firstName:john, 'lastName:do* ,address.city~*ber*,age>22 ");
+		assertEquals(4, criteria.size());
+
+		assertEquals("firstName", criteria.get(0).getKey());
+		assertEquals(SearchOperation.EQUALITY, criteria.get(0).getOperation());
+		assertEquals("john", criteria.get(0).getValue());
+		assertFalse(criteria.get(0).isOrPredicate());
+
+		assertEquals("lastName", criteria.get(1).getKey());
+		assertEquals(SearchOperation.STARTS_WITH, criteria.get(1).getOperation());
+		assertEquals("do", criteria.get(1).getValue());
+		assertTrue(criteria.get(1).isOrPredicate());
+
+		assertEquals("address.city", criteria.get(2).getKey());
+		assertTrue(criteria.get(2).isNested());
+		assertEquals(SearchOperation.LIKE, criteria.get(2).getOperation());
+
+		assertEquals(SearchOperation.GREATER_THAN, criteria.get(3).getOperation());
+		assertEquals("22", criteria.get(3).getValue());
+	}
+
+	@Test
+	void parseBlankQuery() {
+		assertTrue(parser.parse("").isEmpty());
+		assertTrue(parser.parse(" \t ").isEmpty());
+	}
+
+	@Test
+	void rejectFormerlySkippedInput() {
+		// the regex parser dropped everything it didn't match
+		assertError("a=b", "operation : ! > < ~", "'='", 1);
+		assertError("a:b;c:d", "',' or end of query", "'c'", 4);
+		assertError("a:b c:d", "',' or end of query", "'c'", 4);
+		assertError("a:\"b c\"", "',' or end of query", "'c'", 5);
+		assertError("a:b,,c:d", "attribute name", "','", 4);
+		assertError("first name:x", "operation : ! > < ~", "' '", 5);
+	}
+
+	@Test
+	void reportErrorPosition() {
+		assertError(":b", "attribute name", "':'", 0);
+		assertError("a:", "value", "end of query", 2);
+		assertError("a:b,", "attribute name", "end of query", 4);
+		assertError("''a:b", "attribute name", "'''", 1);
+		assertError("a:b,address.:x", "attribute name", "':'", 12);
+	}
+
+	private void assertError(String query, String expected, String found, int position) {
+		SearchQueryParseException e = assertThrows(SearchQueryParseException.class, () -> parser.parse(query));
+		assertEquals("Expected " + expected + " but found " + found + " at column " + (position + 1), e.getMessage(),
+				query);
+		assertEquals(position, e.getPosition(), query);
+	}
+
+}
@@ -0,0 +1,186 @@
+package de.init.backend.datatable.search.rsql;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import de.init.backend.datatable.PageService;
+import de.init.backend.model.dto.AccountDto;
+import de.init.backend.model.entity.Account;
+import de.init.backend.repositories.AccountRepository;
+import de.init.backend.services.AccountService;
+
+/**
+ * Long IN lists are joined through the temp table in read-write and read-only
+ * transactions and chunked without transaction, with the same result.
+ */
+@SpringBootTest(properties = { "app.datatable.in-list.chunk-size=8", "app.datatable.in-list.temp-table-threshold=20",
+		"spring.jpa.properties.hibernate.session_factory.statement_inspector=de.init.backend.datatable.search.rsql.InListStrategyTest$SqlRecorder" })
+class InListStrategyTest {
+
+	private static final int ACCOUNTS = 30;
+
+	@Autowired
+	private AccountRepository repository;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private InListStrategy inListStrategy;
+
+	@Autowired
+	private AccountService accountService;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private PageService<Account, Long> pageService;
+
+	private final List<Long> ids = new ArrayList<>();
+
+	@BeforeEach
+	void createAccounts() {
+		this.pageService = new PageService<>(this.repository, Account.class, this.entityManager);
+		this.pageService.setInListStrategy(this.inListStrategy);
+		this.transaction(false, () -> {
+			for (int i = 0; i < ACCOUNTS; i++) {
+				Account account = new Account();
+				account.setUsername("inlist_" + i);
+				account.setEmail("inlist_" + i + "@inlist.de");
+				this.ids.add(this.repository.save(account).getId());
+			}
+			return null;
+		});
+	}
+
+	@AfterEach
+	void deleteAccounts() {
+		this.transaction(false, () -> {
+			this.repository.deleteAll(this.repository.findAllById(this.ids));
+			return null;
+		});
+	}
+
+	@Test
+	void joinTempTableInReadWriteTransaction() {
+		for (int size : new int[] { 3, 13, 25 }) {
+			SqlRecorder.clear();
+			assertEquals(size, this.transaction(false, () -> this.count("id=in=", size)), "in " + size);
+			assertEquals(size >= 20, SqlRecorder.contains(InListValue.TABLE), SqlRecorder.statements.toString());
+
+			assertEquals(ACCOUNTS - size, this.transaction(false, () -> this.count("id=out=", size)), "out " + size);
+		}
+
+		// the rows of a list only live in the transaction which inserted them
+		for (int size : new int[] { 25, 20 }) {
+			this.transaction(false, () -> {
+				this.count("id=in=", size);
+				assertEquals(size, this.countTempRows());
+				return null;
+			});
+		}
+	}
+
+	@Test
+	void joinTempTableInReadOnlyTransaction() {
+		for (int size : new int[] { 3, 13, 25 }) {
+			SqlRecorder.clear();
+			assertEquals(size, this.transaction(true, () -> this.count("id=in=", size)), "in " + size);
+			assertEquals(ACCOUNTS - size, this.transaction(true, () -> this.count("id=out=", size)), "out " + size);
+			assertEquals(size >= 20, SqlRecorder.contains(InListValue.TABLE), SqlRecorder.statements.toString());
+		}
+	}
+
+	@Test
+	void joinTempTableInAccountPage() {
+		SqlRecorder.clear();
+		String filter = "username==inlist_*;id=in=(" + this.values(25) + ")";
+		Slice<AccountDto> page = this.accountService.getPage(0, 5, "id", true, null, filter, null, true, false);
+		assertEquals(25, ((Page<AccountDto>) page).getTotalElements());
+		assertEquals(this.ids.subList(0, 5), page.map(AccountDto::getId).getContent());
+		assertTrue(SqlRecorder.statements.stream()
+				.anyMatch(sql -> sql.startsWith("select") && sql.contains("from " + InListValue.TABLE)),
+				SqlRecorder.statements.toString());
+		assertEquals(0, this.transaction(false, this::countTempRows));
+	}
+
+	@Test
+	void chunkWithoutTransaction() {
+		SqlRecorder.clear();
+		assertEquals(25, this.count("id=in=", 25));
+		assertFalse(SqlRecorder.contains(InListValue.TABLE), SqlRecorder.statements.toString());
+		assertTrue(SqlRecorder.statements.stream().anyMatch(sql -> sql.contains(" or ")),
+				SqlRecorder.statements.toString());
+	}
+
+	private long count(String comparison, int size) {
+		String values = this.values(size);
+		return this.pageService.getPage(0, 5, "id", true, null, "username==inlist_*;" + comparison + "(" + values + ")")
+				.getTotalElements();
+	}
+
+	private String values(int size) {
+		return this.ids.subList(0, size).stream().map(String::valueOf).collect(Collectors.joining(","));
+	}
+
+	private long countTempRows() {
+		return ((Number) this.entityManager.createNativeQuery("select count(*) from " + InListValue.TABLE)
+				.getSingleResult()).longValue();
+	}
+
+	private <R> R transaction(boolean readOnly, Supplier<R> action) {
+		TransactionTemplate template = new TransactionTemplate(this.transactionManager);
+		template.setReadOnly(readOnly);
+		return template.execute(status -> action.get());
+	}
+
+	/**
+	 * Records the statements.
+	 */
+	public static class SqlRecorder implements StatementInspector {
+
+		private static final long serialVersionUID = 1L;
+
+		private static final List<String> statements = new ArrayList<>();
+
+		@Override
+		public String inspect(String sql) {
+			synchronized (statements) {
+				statements.add(sql);
+			}
+			return sql;
+		}
+
+		static void clear() {
+			synchronized (statements) {
+				statements.clear();
+			}
+		}
+
+		static boolean contains(String part) {
+			synchronized (statements) {
+				return statements.stream().anyMatch(sql -> sql.contains(part));
+			}
+		}
+	}
+
+}
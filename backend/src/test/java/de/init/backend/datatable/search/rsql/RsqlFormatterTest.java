@@ -0,0 +1,55 @@
+package de.init.backend.datatable.search.rsql;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import org.junit.jupiter.api.Test;
+
+import cz.jirutka.rsql.parser.RSQLParser;
+
+/**
+ * The normalized query is the key of cached counts, queries with the same
+ * meaning have to get the same key.
+ */
+class RsqlFormatterTest {
+
+	@Test
+	void sortChildren() {
+		assertEquals(format("a==1;b==2"), format("b==2;a==1"));
+		assertEquals(format("a==1,b==2"), format("b==2,a==1"));
+		assertNotEquals(format("a==1;b==2"), format("a==1,b==2"));
+	}
+
+	@Test
+	void ignoreWhitespaceAndQuotes() {
+		assertEquals(format("a==1;b==2"), format("  a == 1 ; b=='2'  "));
+		assertEquals(format("a==\"x y\""), format("a=='x y'"));
+	}
+
+	@Test
+	void flattenAndDedupe() {
+		assertEquals("a==\"1\";b==\"2\";c==\"3\"", format("(a==1;(b==2;c==3));a==1"));
+		assertEquals("(a==\"1\",b==\"2\");c==\"3\"", format("c==3;(b==2,a==1)"));
+		assertEquals("a==\"1\"", format("a==1;a==1"));
+	}
+
+	@Test
+	void normalizeOperatorsAndArguments() {
+		assertEquals(format("a=lt=5"), format("a<5"));
+		assertEquals("a=in=(\"1\",\"2\")", format("a=in=(2,1,2)"));
+	}
+
+	@Test
+	void parseFormattedQuery() {
+		String[] queries = { "a==\"it's \\\"quoted\\\"\"", "a=out=(x,'y;z');(b=ge=3,c!=*d*)", "a.b==1,a.c=in=(2)" };
+		for (String query : queries) {
+			String formatted = format(query);
+			assertEquals(formatted, format(formatted), query);
+		}
+	}
+
+	private static String format(String query) {
+		return RsqlFormatter.format(new RSQLParser().parse(query));
+	}
+
+}
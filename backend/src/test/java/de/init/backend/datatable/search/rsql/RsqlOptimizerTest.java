@@ -0,0 +1,233 @@
+package de.init.backend.datatable.search.rsql;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.annotation.Transactional;
+
+import cz.jirutka.rsql.parser.RSQLParser;
+import cz.jirutka.rsql.parser.ast.ComparisonNode;
+import cz.jirutka.rsql.parser.ast.LogicalNode;
+import cz.jirutka.rsql.parser.ast.LogicalOperator;
+import cz.jirutka.rsql.parser.ast.Node;
+import de.init.backend.AuthConfig.ROLE;
+import de.init.backend.authentication.model.Role;
+import de.init.backend.authentication.repository.RoleRepository;
+import de.init.backend.model.entity.Account;
+import de.init.backend.repositories.AccountRepository;
+
+/**
+ * Compares the SQL and the result of the specifications created from the
+ * parsed and from the optimized AST.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=de.init.backend.datatable.search.rsql.RsqlOptimizerTest$SqlRecorder")
+@Transactional
+class RsqlOptimizerTest {
+
+	@Autowired
+	private AccountRepository repository;
+
+	@Autowired
+	private RoleRepository roleRepository;
+
+	private final List<Long> ids = new ArrayList<>();
+
+	@BeforeEach
+	void createAccounts() {
+		String[][] names = { { "anna", "Anna", "Adams" }, { "bert", "Bert", "Brown" }, { "carl", "Carl", "Clark" },
+				{ "dora", "Dora", "Adams" } };
+		for (String[] name : names) {
+			Account account = new Account();
+			account.setUsername("optimizer_" + name[0]);
+			account.setEmail(name[0] + "@optimizer.de");
+			account.setFirstName(name[1]);
+			account.setLastName(name[2]);
+			account.setRoles(this.roles(name[0]));
+			this.ids.add(this.repository.save(account).getId());
+		}
+	}
+
+	@Test
+	void flattenNestedOperators() {
+		String query = "username==optimizer_*;(firstName==*nn*,(lastName==Brown,(email==carl*)))";
+		LogicalNode and = (LogicalNode) optimize(query);
+		assertEquals(LogicalOperator.AND, and.getOperator());
+		LogicalNode or = (LogicalNode) and.getChildren().get(1);
+		assertEquals(LogicalOperator.OR, or.getOperator());
+		assertEquals(3, or.getChildren().size());
+		assertTrue(or.getChildren().stream().allMatch(ComparisonNode.class::isInstance));
+
+		// the flat predicate renders the same SQL as the nested one
+		Comparison comparison = compare(query);
+		assertEquals(3, comparison.result.size());
+		assertEquals(comparison.parsedSql, comparison.optimizedSql);
+	}
+
+	@Test
+	void mergeEqualitiesIntoInList() {
+		Comparison strings = compare("firstName==Anna,firstName==bert,firstName==Carl");
+		assertEquals(3, strings.result.size());
+		assertEquals(3, count(strings.parsedSql, " like "), strings.toString());
+		assertEquals(0, count(strings.optimizedSql, " like "), strings.toString());
+		assertTrue(strings.optimizedSql.contains(" in (lower(?) , lower(?) , lower(?))"), strings.toString());
+
+		String idQuery = this.ids.subList(0, 3).stream().map(id -> "id==" + id).collect(Collectors.joining(","));
+		Comparison numbers = compare(idQuery);
+		assertEquals(3, numbers.result.size());
+		assertEquals(3, count(numbers.parsedSql, ".id=?"), numbers.toString());
+		// padded to the next power of two by the InListStrategy
+		assertTrue(numbers.optimizedSql.contains(".id in (? , ? , ? , ?)"), numbers.toString());
+
+		// wildcards keep their like
+		Comparison wildcards = compare("firstName==A*,firstName==Bert");
+		assertEquals(2, wildcards.result.size());
+		assertEquals(1, count(wildcards.optimizedSql, " like "), wildcards.toString());
+	}
+
+	@Test
+	void mergeInLists() {
+		Comparison in = compare("lastName=in=(Adams,Brown),lastName=in=(Brown,Clark)");
+		assertEquals(4, in.result.size());
+		assertEquals(1, count(in.optimizedSql, " in ("), in.toString());
+
+		Comparison out = compare("username==optimizer_*;lastName=out=(Adams);lastName=out=(Clark)");
+		assertEquals(1, out.result.size());
+		assertEquals(1, count(out.optimizedSql, " not in "), out.toString());
+	}
+
+	@Test
+	void dedupeComparisons() {
+		Comparison comparison = compare("firstName==Anna;firstName==Anna;(lastName==Adams,lastName==Adams)");
+		assertEquals(1, comparison.result.size());
+		assertEquals(4, count(comparison.parsedSql, " like "), comparison.toString());
+		assertEquals(2, count(comparison.optimizedSql, " like "), comparison.toString());
+	}
+
+	@Test
+	void foldContradictions() {
+		Comparison contradiction = compare("lastName=in=(Adams,Brown);lastName=out=(Adams,Brown,Clark)");
+		assertTrue(contradiction.result.isEmpty());
+		assertTrue(where(contradiction.optimizedSql).startsWith("0=1 "), contradiction.toString());
+
+		Comparison or = compare("firstName==Dora,(lastName=in=(Adams);lastName=out=(Adams))");
+		assertEquals(1, or.result.size());
+		assertFalse(where(or.optimizedSql).contains(" in ("), or.toString());
+	}
+
+	@Test
+	void keepComparisonsOnCollections() {
+		// anna has both roles, every comparison on roles.name is an own EXISTS
+		Comparison out = compare("roles.name=out=(ROLE_ADMIN);roles.name=out=(ROLE_USER)");
+		assertEquals(List.of(this.ids.get(0)), out.result);
+		assertEquals(2, count(out.optimizedSql, " not in "), out.toString());
+
+		Comparison in = compare("roles.name=in=(ROLE_ADMIN);roles.name=out=(ROLE_ADMIN,X)");
+		assertEquals(List.of(this.ids.get(0)), in.result);
+		assertFalse(where(in.optimizedSql).startsWith("0=1 "), in.toString());
+
+		Comparison both = compare("roles.name==ROLE_ADMIN;roles.name==ROLE_USER");
+		assertEquals(List.of(this.ids.get(0)), both.result);
+
+		// OR'ed comparisons are still merged into one EXISTS
+		Comparison any = compare("roles.name==ROLE_ADMIN,roles.name==ROLE_USER");
+		assertEquals(this.ids.subList(0, 2), any.result);
+		assertEquals(1, count(any.optimizedSql, " exists "), any.toString());
+	}
+
+	/**
+	 * anna has the admin and the user role, bert the user role, the others none.
+	 */
+	private List<Role> roles(String name) {
+		List<Role> roles = new ArrayList<>();
+		if (name.equals("anna"))
+			roles.add(this.roleRepository.findByName(ROLE.ROLE_ADMIN.toString()).orElseThrow());
+		if (name.equals("anna") || name.equals("bert"))
+			roles.add(this.roleRepository.findByName(ROLE.ROLE_USER.toString()).orElseThrow());
+		return roles;
+	}
+
+	private static Node optimize(String query) {
+		return RsqlOptimizer.optimize(new RSQLParser().parse(query));
+	}
+
+	/**
+	 * Select the accounts with the specifications of the parsed and the optimized
+	 * AST and record their SQL.
+	 */
+	private Comparison compare(String query) {
+		Node parsed = new RSQLParser().parse(query);
+		List<Long> parsedResult = this.select(parsed.accept(new CustomRsqlVisitor<>()));
+		String parsedSql = SqlRecorder.last();
+		List<Long> optimizedResult = this.select(RsqlOptimizer.optimize(parsed).accept(new CustomRsqlVisitor<>()));
+		String optimizedSql = SqlRecorder.last();
+
+		assertEquals(parsedResult, optimizedResult, query);
+		return new Comparison(parsedSql, optimizedSql, optimizedResult);
+	}
+
+	private List<Long> select(Specification<Account> specification) {
+		return this.repository.findAll(specification, Sort.by("id")).stream().map(Account::getId)
+				.filter(this.ids::contains).collect(Collectors.toList());
+	}
+
+	private static int count(String sql, String part) {
+		return sql.split(Pattern.quote(part), -1).length - 1;
+	}
+
+	private static String where(String sql) {
+		return sql.substring(sql.indexOf(" where ") + " where ".length());
+	}
+
+	private static final class Comparison {
+
+		private final String parsedSql;
+		private final String optimizedSql;
+		private final List<Long> result;
+
+		private Comparison(String parsedSql, String optimizedSql, List<Long> result) {
+			this.parsedSql = parsedSql;
+			this.optimizedSql = optimizedSql;
+			this.result = result;
+		}
+
+		@Override
+		public String toString() {
+			return "\nparsed:    " + parsedSql + "\noptimized: " + optimizedSql;
+		}
+	}
+
+	/**
+	 * Records the last select statement.
+	 */
+	public static class SqlRecorder implements StatementInspector {
+
+		private static final long serialVersionUID = 1L;
+
+		private static String last;
+
+		@Override
+		public String inspect(String sql) {
+			if (sql.startsWith("select"))
+				last = sql;
+			return sql;
+		}
+
+		static String last() {
+			return last;
+		}
+	}
+
+}
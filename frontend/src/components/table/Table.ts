@@ -39,4 +39,7 @@ export type LoadFunction = (
   ascending?: boolean,
   search?: string,
   filter?: string,
-) => Promise<{ rows: any[]; total: number }>;
+) => Promise<LoadResult>;
+
+/** exactTotal is false if total is an estimate */
+export type LoadResult = { rows: any[]; total: number; exactTotal?: boolean };
@@ -1,5 +1,5 @@
 import DataTable from "./PaginatedTableWrapper.vue";
-import { Action, Header, Options, LoadFunction } from "./Table";
+import { Action, Header, Options, LoadFunction, LoadResult } from "./Table";
 
 export default DataTable;
-export { LoadFunction, Action, Header, Options };
+export { LoadFunction, LoadResult, Action, Header, Options };
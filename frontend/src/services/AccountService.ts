@@ -65,6 +65,9 @@ class AccountService {
     ascending?: boolean,
     search?: string,
     filter?: string,
+    cursor?: string,
+    includeTotal?: boolean,
+    approximateTotal?: boolean,
   ): Promise<Page<User>> {
     const params = {
       page,
@@ -73,6 +76,9 @@ class AccountService {
       ascending,
       search,
       filter,
+      cursor,
+      includeTotal,
+      approximateTotal,
     };
 
     return this.authService
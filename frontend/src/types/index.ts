@@ -22,6 +22,12 @@ export interface Page<T> {
   size: Number;
   totalElements: number;
   totalPages: number;
+  /** false if totalElements is an estimate */
+  exactTotal?: boolean;
+  /** only present if the page was requested without total */
+  hasNext?: boolean;
+  /** opaque cursor to request the next page via keyset pagination */
+  nextCursor?: string;
   pageable: {
     unpaged: boolean;
     offset: number;